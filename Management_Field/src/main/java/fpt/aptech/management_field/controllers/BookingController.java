@@ -7,8 +7,12 @@ import fpt.aptech.management_field.payload.dtos.BookingReceiptDTO;
 import fpt.aptech.management_field.mappers.BookingMapper;
 import fpt.aptech.management_field.security.services.UserDetailsImpl;
 import fpt.aptech.management_field.services.BookingService;
+import fpt.aptech.management_field.services.BookingSlotIndex;
 import fpt.aptech.management_field.services.FieldService;
+import fpt.aptech.management_field.services.IdempotencyService;
 import fpt.aptech.management_field.services.PayPalPaymentService;
+import fpt.aptech.management_field.services.SlotSuggestionService;
+import fpt.aptech.management_field.services.TeammateCandidateIndex;
 
 import fpt.aptech.management_field.services.UnifiedCompatibilityService;
 import fpt.aptech.management_field.repositories.UserRepository;
@@ -63,6 +67,9 @@ public class BookingController {
     @Autowired
     private UnifiedCompatibilityService unifiedCompatibilityService;
 
+    @Autowired
+    private TeammateCandidateIndex teammateCandidateIndex;
+
     @Autowired
     private UserRepository userRepository;
     
@@ -72,6 +79,15 @@ public class BookingController {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingSlotIndex bookingSlotIndex;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private SlotSuggestionService slotSuggestionService;
+
     @Autowired
     private fpt.aptech.management_field.services.UserService userService;
 
@@ -86,17 +102,21 @@ public class BookingController {
     public ResponseEntity<?> createBatchBooking(
             @Valid @RequestBody BatchBookingRequest batchRequest,
             @RequestParam(value = "clientType", defaultValue = "web") String clientType,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
-        try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            Long userId = userDetails.getId();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Long userId = userDetails.getId();
 
-            Map<String, Object> result = bookingService.createBatchBooking(userId, batchRequest, clientType);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Error: " + e.getMessage()));
-        }
+        return idempotencyService.execute("booking-batch", idempotencyKey != null ? userId + ":" + idempotencyKey : null,
+                List.of(batchRequest, clientType), () -> {
+            try {
+                Map<String, Object> result = bookingService.createBatchBooking(userId, batchRequest, clientType);
+                return ResponseEntity.ok(result);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Error: " + e.getMessage()));
+            }
+        });
     }
 
     @GetMapping("/available-fields")
@@ -112,24 +132,45 @@ public class BookingController {
         }
     }
 
+    @GetMapping("/suggestions")
+    public ResponseEntity<?> getSlotSuggestions(
+            @RequestParam Long fieldId,
+            @RequestParam Instant fromTime,
+            @RequestParam Instant toTime,
+            @RequestParam(defaultValue = "5") int limit) {
+        try {
+            if (limit < 1 || limit > 20) {
+                throw new IllegalArgumentException("limit must be between 1 and 20");
+            }
+            return ResponseEntity.ok(slotSuggestionService.suggest(fieldId, fromTime, toTime, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('OWNER') or hasRole('ADMIN')")
     public ResponseEntity<?> createBooking(
             @Valid @RequestBody BookingRequest bookingRequest, 
             @RequestParam(value = "clientType", defaultValue = "web") String clientType,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         // Spring Security ensures 'authentication' is not null here because of @PreAuthorize
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         Long userId = userDetails.getId();
 
-        try {
-            // The service layer will handle the logic, including payment creation
-            Map<String, Object> response = bookingService.createBooking(userId, bookingRequest, clientType);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            // Return a specific error message from the service
-            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
-        }
+        // Keys are scoped per user so two clients cannot collide on the same key
+        return idempotencyService.execute("booking-create", idempotencyKey != null ? userId + ":" + idempotencyKey : null,
+                List.of(bookingRequest, clientType), () -> {
+            try {
+                // The service layer will handle the logic, including payment creation
+                Map<String, Object> response = bookingService.createBooking(userId, bookingRequest, clientType);
+                return ResponseEntity.ok(response);
+            } catch (RuntimeException e) {
+                // Return a specific error message from the service
+                return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+            }
+        });
     }
 
     // NOT USED
@@ -137,24 +178,29 @@ public class BookingController {
     public ResponseEntity<?> confirmPayment(
             @RequestParam String orderId,
             @RequestParam String token,
-            @RequestParam String payerId) {
-        try {
-            Long bookingId = Long.valueOf(orderId.replace("BOOKING_", ""));
-            Booking booking = bookingService.confirmPayment(bookingId, token, payerId);
-            return ResponseEntity.ok(Map.of(
-                    "booking", booking,
-                    "message", "Payment confirmed successfully",
-                    "bookingId", booking.getBookingId()
-            ));
-        } catch (NumberFormatException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid order ID format: " + e.getMessage()));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid payment data: " + e.getMessage()));
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", "Failed to confirm payment: " + e.getMessage()));
-        }
+            @RequestParam String payerId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // The PayPal order token identifies the payment when the client sends no key
+        return idempotencyService.execute("booking-confirm", idempotencyKey != null ? idempotencyKey : token,
+                List.of(orderId, token, payerId), () -> {
+            try {
+                Long bookingId = Long.valueOf(orderId.replace("BOOKING_", ""));
+                Booking booking = bookingService.confirmPayment(bookingId, token, payerId);
+                return ResponseEntity.ok(Map.of(
+                        "booking", booking,
+                        "message", "Payment confirmed successfully",
+                        "bookingId", booking.getBookingId()
+                ));
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid order ID format: " + e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid payment data: " + e.getMessage()));
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+            } catch (Exception e) {
+                return ResponseEntity.status(500).body(Map.of("error", "Failed to confirm payment: " + e.getMessage()));
+            }
+        });
     }
 
     // NOT USED
@@ -217,6 +263,12 @@ public class BookingController {
             @RequestParam String token,
             @RequestParam String PayerID,
             @RequestParam(required = false) String bookingId) {
+        // PayPal may deliver the same return more than once; the order token identifies it
+        return idempotencyService.execute("booking-payment-callback", token, List.of(token, PayerID, String.valueOf(bookingId)),
+                () -> processPaymentCallback(token, PayerID, bookingId));
+    }
+
+    private ResponseEntity<?> processPaymentCallback(String token, String PayerID, String bookingId) {
         try {
             if (bookingId == null || bookingId.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -561,13 +613,13 @@ public class BookingController {
             // Get the current user
             User currentUser = booking.getUser();
             
-            // Get potential teammates (discoverable ROLE_USER only, excluding current user)
-            List<User> potentialTeammates = userRepository.findDiscoverableRegularUsersExcludingUser(userId);
-            
             // Determine sport type from booking (you might need to add this field to Booking)
             // For now, we'll use a default sport type or extract from field name
             String sportType = "BONG_DA"; // Default to football/soccer
             
+            // Get potential teammates from the candidate index (discoverable ROLE_USER only, excluding current user)
+            List<User> potentialTeammates = teammateCandidateIndex.candidates(currentUser, sportType);
+            
             List<Map<String, Object>> recommendations;
             
             // Use UnifiedCompatibilityService for teammate recommendations
@@ -670,14 +722,18 @@ public ResponseEntity<?> checkAvailability(
         @RequestParam String fromTime,
         @RequestParam String toTime) {
     try {
-        Field field = fieldRepository.findById(fieldId)
-                .orElseThrow(() -> new RuntimeException("Field not found"));
+        if (!fieldRepository.existsById(fieldId)) {
+            throw new RuntimeException("Field not found");
+        }
         
         Instant from = Instant.parse(fromTime);
         Instant to = Instant.parse(toTime);
         
-        boolean isAvailable = !bookingRepository
-                .existsByFieldAndFromTimeLessThanEqualAndToTimeGreaterThanEqual(field, to, from);
+        boolean isAvailable = bookingSlotIndex.isAvailable(fieldId, from, to);
+        if (!isAvailable) {
+            return ResponseEntity.ok(Map.of("available", false,
+                    "suggestions", slotSuggestionService.suggest(fieldId, from, to, 3)));
+        }
         
         return ResponseEntity.ok(Map.of("available", isAvailable));
     } catch (Exception e) {
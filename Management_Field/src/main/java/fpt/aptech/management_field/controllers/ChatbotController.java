@@ -3,16 +3,23 @@ package fpt.aptech.management_field.controllers;
 import fpt.aptech.management_field.payload.dtos.ChatbotRequestDTO;
 import fpt.aptech.management_field.payload.dtos.ChatbotResponseDTO;
 import fpt.aptech.management_field.services.ChatbotService;
+import fpt.aptech.management_field.services.ConversationContextService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -20,6 +27,9 @@ import java.util.Map;
 @Tag(name = "Chatbot", description = "AI Chatbot APIs for customer support")
 public class ChatbotController {
 
+    // The AI deadline plus the local processing that follows it
+    private static final Duration STREAM_TIMEOUT = Duration.ofSeconds(30);
+
     @Autowired
     private ChatbotService chatbotService;
 
@@ -30,27 +40,83 @@ public class ChatbotController {
             @ApiResponse(responseCode = "400", description = "Invalid request body"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ChatbotResponseDTO> sendMessage(
+    public CompletableFuture<ResponseEntity<ChatbotResponseDTO>> sendMessage(
             @Parameter(description = "Request body containing user message and optional context", required = true)
             @RequestBody ChatbotRequestDTO request) {
         
-        try {
-            if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
-                ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
-                errorResponse.setText("Message cannot be empty");
-                errorResponse.setSessionId(request.getSessionId());
-                return ResponseEntity.badRequest().body(errorResponse);
-            }
-            
-            ChatbotResponseDTO response = chatbotService.processMessage(request);
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
+        if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
             ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
-            errorResponse.setText("Unable to process your request at the moment");
+            errorResponse.setText("Message cannot be empty");
             errorResponse.setSessionId(request.getSessionId());
-            return ResponseEntity.internalServerError().body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+        }
+        if (isSessionIdTooLong(request.getSessionId())) {
+            ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
+            errorResponse.setText("Session id cannot be longer than "
+                    + ConversationContextService.MAX_SESSION_ID_LENGTH + " characters");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+        }
+        
+        // The request thread is released while the AI service is called
+        return chatbotService.processMessage(request)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
+                    errorResponse.setText("Unable to process your request at the moment");
+                    errorResponse.setSessionId(request.getSessionId());
+                    return ResponseEntity.internalServerError().body(errorResponse);
+                });
+    }
+
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Send message to chatbot as a stream",
+            description = "Server-sent events: 'session' with the session id right away, then the reply text " +
+                    "as 'message' events line by line as soon as it is ready, then 'done' with the full response " +
+                    "including actions and context")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "400", description = "Message is empty or session id is too long")
+    })
+    public ResponseEntity<SseEmitter> streamMessage(
+            @Parameter(description = "Request body containing user message and optional context", required = true)
+            @RequestBody ChatbotRequestDTO request) {
+        
+        if (request.getMessage() == null || request.getMessage().trim().isEmpty()
+                || isSessionIdTooLong(request.getSessionId())) {
+            return ResponseEntity.badRequest().build();
         }
+        if (request.getSessionId() == null || request.getSessionId().isEmpty()) {
+            request.setSessionId(UUID.randomUUID().toString());
+        }
+        
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        try {
+            emitter.send(SseEmitter.event().name("session").data(Map.of("sessionId", request.getSessionId())));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+        
+        chatbotService.processMessage(request).whenComplete((response, error) -> {
+            try {
+                if (error != null) {
+                    emitter.send(SseEmitter.event().name("error").data("Unable to process your request at the moment"));
+                    emitter.complete();
+                    return;
+                }
+                if (response.getText() != null) {
+                    for (String line : response.getText().split("\n")) {
+                        emitter.send(SseEmitter.event().name("message").data(line));
+                    }
+                }
+                emitter.send(SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
     }
 
     @GetMapping("/health")
@@ -65,4 +131,8 @@ public class ChatbotController {
             "timestamp", String.valueOf(System.currentTimeMillis())
         ));
     }
-}
\ No newline at end of file
+
+    private static boolean isSessionIdTooLong(String sessionId) {
+        return sessionId != null && sessionId.length() > ConversationContextService.MAX_SESSION_ID_LENGTH;
+    }
+}
@@ -1,9 +1,13 @@
 package fpt.aptech.management_field.controllers;
 
 import fpt.aptech.management_field.payload.response.FieldSummaryResponse;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse;
 import fpt.aptech.management_field.payload.response.LocationCardResponse;
 import fpt.aptech.management_field.payload.response.LocationDetailResponse;
 import fpt.aptech.management_field.payload.response.LocationMapResponse;
+import fpt.aptech.management_field.payload.response.MapClusterResponse;
+import fpt.aptech.management_field.services.LocationAvailabilityService;
+import fpt.aptech.management_field.services.LocationClusterService;
 import fpt.aptech.management_field.services.LocationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,11 +15,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -27,6 +33,9 @@ public class LocationController {
     @Autowired
     private LocationService locationService;
 
+    @Autowired
+    private LocationAvailabilityService locationAvailabilityService;
+
     @GetMapping("/test")
     @Operation(summary = "Test endpoint", description = "Simple test endpoint without database operations")
     public ResponseEntity<String> test() {
@@ -69,6 +78,32 @@ public class LocationController {
         }
     }
 
+    @GetMapping("/map-clusters")
+    @Operation(summary = "Get clustered map markers", description = "Get aggregated location clusters for a map viewport; individual locations are returned from zoom " + LocationClusterService.MARKER_ZOOM)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved clusters"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public ResponseEntity<?> getMapClusters(
+            @Parameter(description = "Map zoom level", required = true, example = "12")
+            @RequestParam Integer zoom,
+            @Parameter(description = "South-west corner latitude", required = true, example = "10.70")
+            @RequestParam BigDecimal southWestLat,
+            @Parameter(description = "South-west corner longitude", required = true, example = "106.60")
+            @RequestParam BigDecimal southWestLng,
+            @Parameter(description = "North-east corner latitude", required = true, example = "10.85")
+            @RequestParam BigDecimal northEastLat,
+            @Parameter(description = "North-east corner longitude", required = true, example = "106.75")
+            @RequestParam BigDecimal northEastLng) {
+        try {
+            List<MapClusterResponse> clusters = locationService.getMapClusters(
+                    zoom, southWestLat, southWestLng, northEastLat, northEastLng);
+            return ResponseEntity.ok(clusters);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/map-search")
     @Transactional(readOnly = true)
     @Operation(summary = "Search locations on map", description = "Get a list of locations in a geographic area to display markers on the map")
@@ -134,6 +169,34 @@ public class LocationController {
         }
     }
 
+    @GetMapping("/{locationId}/availability")
+    @Operation(summary = "Get location availability calendar", description = "Get a field by time-slot grid of free, booked and closed slots for a location over a range of days")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved availability"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public ResponseEntity<?> getLocationAvailability(
+            @Parameter(description = "Location ID", required = true, example = "1")
+            @PathVariable Long locationId,
+            @Parameter(description = "First day (inclusive)", required = true, example = "2025-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @Parameter(description = "Last day (inclusive), defaults to fromDate", example = "2025-01-07")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @Parameter(description = "Slot size in minutes: 15, 30 or 60", example = "60")
+            @RequestParam(defaultValue = "60") Integer slotMinutes) {
+        if (slotMinutes != 15 && slotMinutes != 30 && slotMinutes != 60) {
+            return ResponseEntity.badRequest().body("slotMinutes must be 15, 30 or 60");
+        }
+        try {
+            LocationAvailabilityResponse availability = locationAvailabilityService.getAvailability(
+                    locationId, fromDate, toDate != null ? toDate : fromDate, slotMinutes
+            );
+            return ResponseEntity.ok(availability);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{slug}")
     @Transactional(readOnly = true)
     @Operation(summary = "Get location details by slug", description = "Get all details of a specific location by slug")
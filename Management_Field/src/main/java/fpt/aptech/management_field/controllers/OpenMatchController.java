@@ -10,6 +10,7 @@ import fpt.aptech.management_field.repositories.UserRepository;
 import fpt.aptech.management_field.security.services.UserDetailsImpl;
 
 import fpt.aptech.management_field.services.OpenMatchService;
+import fpt.aptech.management_field.services.TeammateCandidateIndex;
 import fpt.aptech.management_field.services.UnifiedCompatibilityService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -41,6 +42,9 @@ public class OpenMatchController {
     @Autowired
     private UnifiedCompatibilityService unifiedCompatibilityService;
     
+    @Autowired
+    private TeammateCandidateIndex teammateCandidateIndex;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -341,12 +345,12 @@ public class OpenMatchController {
             User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
             
-            // Get potential teammates (discoverable ROLE_USER only, excluding current user)
-            List<User> potentialTeammates = userRepository.findDiscoverableRegularUsersExcludingUser(userId);
-            
             // Use default sport type if not provided
             String finalSportType = sportType != null ? sportType : "BONG_DA";
             
+            // Get potential teammates from the candidate index (discoverable ROLE_USER only, excluding current user)
+            List<User> potentialTeammates = teammateCandidateIndex.candidates(currentUser, finalSportType);
+            
             List<Map<String, Object>> recommendations;
             
             // Use UnifiedCompatibilityService for teammate recommendations
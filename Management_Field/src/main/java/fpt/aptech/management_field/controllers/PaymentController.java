@@ -1,10 +1,12 @@
 package fpt.aptech.management_field.controllers;
 
+import fpt.aptech.management_field.exception.SlotHoldExpiredException;
 import fpt.aptech.management_field.models.Payment;
 import fpt.aptech.management_field.models.ParticipatingTeam;
 import fpt.aptech.management_field.models.Booking;
 import java.util.List;
 import fpt.aptech.management_field.services.BookingService;
+import fpt.aptech.management_field.services.IdempotencyService;
 import fpt.aptech.management_field.services.ParticipatingTeamService;
 import fpt.aptech.management_field.services.PaymentService;
 import org.slf4j.Logger;
@@ -28,40 +30,66 @@ public class PaymentController {
     @Autowired
     private ParticipatingTeamService participatingTeamService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping("/paypal/callback")
     public RedirectView handlePayPalCallback(
             @RequestParam String paymentId,
             @RequestParam(required = false) String token,
             @RequestParam(required = false) String PayerID,
             @RequestHeader(value = "User-Agent", required = false) String userAgent) {
+        // PayPal and mobile clients repeat this return; capture and confirm only once per payment.
+        // Error redirects are not stored so a failed capture can be retried.
+        boolean isFlutterApp = isFlutterApp(userAgent);
+        String redirectUrl = idempotencyService.executeRedirect("payment-paypal-callback", paymentId,
+                () -> processPayPalCallback(paymentId, token, PayerID, userAgent).getUrl(),
+                url -> !url.contains("error="));
+        if (redirectUrl == null) {
+            redirectUrl = isFlutterApp ?
+                "playerconnect://payment/error?error=payment_in_progress&message=Payment-is-being-processed" :
+                "http://localhost:3000/en/payment/cancel?error=payment_in_progress&message=Payment-is-being-processed";
+        }
+        return new RedirectView(redirectUrl);
+    }
+
+    private boolean isFlutterApp(String userAgent) {
+        return userAgent != null &&
+            (userAgent.toLowerCase().contains("flutter") ||
+             userAgent.toLowerCase().contains("dart") ||
+             userAgent.toLowerCase().contains("android") ||
+             userAgent.toLowerCase().contains("ios"));
+    }
+
+    private RedirectView processPayPalCallback(String paymentId, String token, String PayerID, String userAgent) {
         try {
             logger.info("PayPal callback received - paymentId: {}, token: {}, PayerID: {}", paymentId, token, PayerID);
             
-            // First, handle the payment callback
-            Payment callbackPayment = paymentService.handlePayPalCallback(Long.parseLong(paymentId));
+            Payment callbackPayment = paymentService.getPayment(Long.parseLong(paymentId));
             
             // Detect if request is from Flutter app (mobile)
-            boolean isFlutterApp = userAgent != null && 
-                (userAgent.toLowerCase().contains("flutter") || 
-                 userAgent.toLowerCase().contains("dart") ||
-                 userAgent.toLowerCase().contains("android") ||
-                 userAgent.toLowerCase().contains("ios"));
+            boolean isFlutterApp = isFlutterApp(userAgent);
             
             logger.info("Request from Flutter app: {}, User-Agent: {}", isFlutterApp, userAgent);
             
-            // Then, update the corresponding booking or tournament status
+            // Capture the payment, then update the corresponding booking or tournament status
             if ("BOOKING".equals(callbackPayment.getPayableType().name())) {
-                // Update booking status to confirmed (handle both single and batch bookings)
+                // Captures only while the bookings (single or batch) are still held, and confirms them together;
+                // any other failure redirects to the error page below, with the capture refunded
                 try {
-                    // Try batch confirmation first (this will handle multiple bookings created together)
-                    List<Booking> confirmedBookings = bookingService.confirmBatchPayment(callbackPayment.getPayableId());
+                    List<Booking> confirmedBookings = bookingService.confirmPayPalBookingPayment(callbackPayment);
                     if (confirmedBookings.size() > 1) {
                         logger.info("Batch booking confirmation: {} bookings confirmed after payment success", confirmedBookings.size());
                     } else {
                         logger.info("Single booking {} status updated to confirmed after payment success", callbackPayment.getPayableId());
                     }
-                } catch (Exception e) {
-                    logger.error("Failed to update booking status for booking {}: {}", callbackPayment.getPayableId(), e.getMessage());
+                } catch (SlotHoldExpiredException e) {
+                    logger.warn("Not capturing payment {}: {}", paymentId, e.getMessage());
+                    paymentService.handlePayPalCancel(callbackPayment.getPaymentId());
+                    String errorUrl = isFlutterApp ?
+                        "playerconnect://payment/error?error=slot_expired&message=Booking-hold-expired" :
+                        "http://localhost:3000/en/payment/cancel?error=slot_expired&message=Booking-hold-expired";
+                    return new RedirectView(errorUrl);
                 }
                 
                 // Choose redirect URL based on client type
@@ -77,7 +105,10 @@ public class PaymentController {
                 logger.info("Redirecting to: {}", redirectUrl);
                 return new RedirectView(redirectUrl);
                 
-            } else if ("TOURNAMENT".equals(callbackPayment.getPayableType().name())) {
+            }
+            
+            callbackPayment = paymentService.handlePayPalCallback(callbackPayment.getPaymentId());
+            if ("TOURNAMENT".equals(callbackPayment.getPayableType().name())) {
                 // Update tournament participation status to confirmed
                 try {
                     ParticipatingTeam participant = participatingTeamService.confirmRegistration(callbackPayment.getPayableId());
@@ -114,22 +145,14 @@ public class PaymentController {
             }
         } catch (NumberFormatException e) {
             logger.error("Invalid paymentId format: {}", paymentId, e);
-            boolean isFlutterApp = userAgent != null && 
-                (userAgent.toLowerCase().contains("flutter") || 
-                 userAgent.toLowerCase().contains("dart") ||
-                 userAgent.toLowerCase().contains("android") ||
-                 userAgent.toLowerCase().contains("ios"));
+            boolean isFlutterApp = isFlutterApp(userAgent);
             String errorUrl = isFlutterApp ?
                 "playerconnect://payment/error?error=invalid_payment_id&message=Invalid-payment-ID" :
                 "http://localhost:3000/en/payment/cancel?error=invalid_payment_id&message=Invalid-payment-ID";
             return new RedirectView(errorUrl);
         } catch (Exception e) {
             logger.error("Error processing PayPal callback", e);
-            boolean isFlutterApp = userAgent != null && 
-                (userAgent.toLowerCase().contains("flutter") || 
-                 userAgent.toLowerCase().contains("dart") ||
-                 userAgent.toLowerCase().contains("android") ||
-                 userAgent.toLowerCase().contains("ios"));
+            boolean isFlutterApp = isFlutterApp(userAgent);
             String errorUrl = isFlutterApp ?
                 "playerconnect://payment/error?error=payment_failed&message=Payment-processing-error" :
                 "http://localhost:3000/en/payment/cancel?error=payment_failed&message=Payment-processing-error";
@@ -0,0 +1,58 @@
+package fpt.aptech.management_field.controllers;
+
+import fpt.aptech.management_field.payload.response.SearchResultResponse;
+import fpt.aptech.management_field.services.SearchIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search", description = "Unified search over fields, locations, field types and tournaments")
+public class SearchController {
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @GetMapping
+    @Operation(summary = "Search", description = "Accent-insensitive, typo-tolerant search; 'quan 7' matches 'Quận 7'")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved results"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public ResponseEntity<?> search(
+            @Parameter(description = "Search text", required = true, example = "san 5 quan 7")
+            @RequestParam String q,
+            @Parameter(description = "Kinds to search: FIELD, LOCATION, FIELD_TYPE, TOURNAMENT; all when omitted")
+            @RequestParam(required = false) List<String> kinds,
+            @Parameter(description = "Maximum number of results", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            if (limit < 1 || limit > 100) {
+                throw new IllegalArgumentException("limit must be between 1 and 100");
+            }
+            Set<SearchIndexService.Kind> selected = EnumSet.allOf(SearchIndexService.Kind.class);
+            if (kinds != null && !kinds.isEmpty()) {
+                selected = EnumSet.noneOf(SearchIndexService.Kind.class);
+                for (String kind : kinds) {
+                    selected.add(SearchIndexService.Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+            List<SearchResultResponse> results = searchIndexService.search(q, selected, limit, true);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
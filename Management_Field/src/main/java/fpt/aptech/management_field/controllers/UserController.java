@@ -1,12 +1,10 @@
 package fpt.aptech.management_field.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
 import fpt.aptech.management_field.models.Notification;
 import fpt.aptech.management_field.models.User;
 import fpt.aptech.management_field.payload.dtos.BookingHistoryDto;
-import fpt.aptech.management_field.payload.dtos.SportProfileDto;
 import fpt.aptech.management_field.payload.request.ChangePasswordRequest;
 import fpt.aptech.management_field.payload.request.OnboardingRequest;
 import fpt.aptech.management_field.payload.request.UpdateUserProfileRequest;
@@ -16,8 +14,10 @@ import fpt.aptech.management_field.security.services.UserDetailsImpl;
 import fpt.aptech.management_field.services.BookingService;
 import fpt.aptech.management_field.services.NotificationService;
 import fpt.aptech.management_field.services.OnboardingService;
+import fpt.aptech.management_field.services.SportProfileService;
 import fpt.aptech.management_field.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -51,8 +51,12 @@ public class UserController {
     
     @Autowired
     private OnboardingService onboardingService;
-    
-    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SportProfileService sportProfileService;
 
     @GetMapping("/profile")
     public ResponseEntity<?> getUserProfile() {
@@ -80,20 +84,8 @@ public class UserController {
             response.put("status", user.getStatus());
             response.put("roles", user.getRoles());
             
-            // Parse sport profiles from JSON
-            if (user.getSportProfiles() != null) {
-                try {
-                    Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                        user.getSportProfiles(), 
-                        new TypeReference<Map<String, SportProfileDto>>() {}
-                    );
-                    response.put("sportProfiles", sportProfiles);
-                } catch (JsonProcessingException e) {
-                    response.put("sportProfiles", new HashMap<>());
-                }
-            } else {
-                response.put("sportProfiles", new HashMap<>());
-            }
+            // Typed sport profiles, empty when missing or unreadable
+            response.put("sportProfiles", sportProfileService.getProfiles(user));
             
             return ResponseEntity.ok(response);
         } else {
@@ -157,8 +149,7 @@ public class UserController {
             try {
                 // Convert sport profiles to JSON string
                 if (request.getSportProfiles() != null) {
-                    String sportProfilesJson = objectMapper.writeValueAsString(request.getSportProfiles());
-                    user.setSportProfiles(sportProfilesJson);
+                    sportProfileService.setProfiles(user, request.getSportProfiles());
                 }
                 
                 if (request.getIsDiscoverable() != null) {
@@ -166,6 +157,7 @@ public class UserController {
                 }
                 
                 userRepository.save(user);
+                eventPublisher.publishEvent(new SportProfileChangedEvent(this, user.getId()));
                 
                 return ResponseEntity.ok(new MessageResponse("Sport profiles updated successfully"));
             } catch (JsonProcessingException e) {
@@ -0,0 +1,21 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.Booking;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published whenever a booking is created, cancelled or changes status,
+ * so in-memory views of the booking table can stay current.
+ */
+public class BookingChangedEvent extends ApplicationEvent {
+    private final Booking booking;
+
+    public BookingChangedEvent(Object source, Booking booking) {
+        super(source);
+        this.booking = booking;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+}
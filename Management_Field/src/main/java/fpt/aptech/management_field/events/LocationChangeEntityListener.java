@@ -0,0 +1,31 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.Location;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on {@link Location}. Turns every write into a {@link LocationChangedEvent},
+ * whichever controller or service made it.
+ */
+public class LocationChangeEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onLocationWrite(Location location) {
+        eventPublisher.publishEvent(new LocationChangedEvent(this, location.getLocationId(), location.getSlug(),
+                location.getLatitude(), location.getLongitude(), false));
+    }
+
+    @PostRemove
+    public void onLocationRemove(Location location) {
+        eventPublisher.publishEvent(new LocationChangedEvent(this, location.getLocationId(), location.getSlug(),
+                null, null, true));
+    }
+}
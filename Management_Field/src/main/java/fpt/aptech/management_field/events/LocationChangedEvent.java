@@ -0,0 +1,47 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a location is created, edited or deleted. Carries the slug and
+ * coordinates as written so listeners do not need to reload the entity.
+ */
+public class LocationChangedEvent extends ApplicationEvent {
+    private final Long locationId;
+    private final String slug;
+    private final BigDecimal latitude;
+    private final BigDecimal longitude;
+    private final boolean removed;
+
+    public LocationChangedEvent(Object source, Long locationId, String slug, BigDecimal latitude, BigDecimal longitude,
+                                boolean removed) {
+        super(source);
+        this.locationId = locationId;
+        this.slug = slug;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.removed = removed;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public BigDecimal getLatitude() {
+        return latitude;
+    }
+
+    public BigDecimal getLongitude() {
+        return longitude;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+}
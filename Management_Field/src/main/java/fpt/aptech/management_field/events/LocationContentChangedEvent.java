@@ -0,0 +1,19 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when something a location aggregates over changes: one of its fields or its review summary.
+ */
+public class LocationContentChangedEvent extends ApplicationEvent {
+    private final Long locationId;
+
+    public LocationContentChangedEvent(Object source, Long locationId) {
+        super(source);
+        this.locationId = locationId;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+}
@@ -0,0 +1,35 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.Location;
+import fpt.aptech.management_field.models.LocationReview;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on fields and location reviews. Turns every write into a
+ * {@link LocationContentChangedEvent} for the owning location.
+ */
+public class LocationContentEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onContentWrite(Object entity) {
+        Location location = null;
+        if (entity instanceof Field field) {
+            location = field.getLocation();
+        } else if (entity instanceof LocationReview review) {
+            location = review.getLocation();
+        }
+        if (location != null && location.getLocationId() != null) {
+            eventPublisher.publishEvent(new LocationContentChangedEvent(this, location.getLocationId()));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when an open match or draft match is created, updated or removed, or
+ * when someone joins, leaves or shows interest in one.
+ */
+public class MatchChangedEvent extends ApplicationEvent {
+    private final Class<?> matchType;
+    private final Long matchId;
+
+    public MatchChangedEvent(Object source, Class<?> matchType, Long matchId) {
+        super(source);
+        this.matchType = matchType;
+        this.matchId = matchId;
+    }
+
+    /**
+     * {@code OpenMatch.class} or {@code DraftMatch.class}.
+     */
+    public Class<?> getMatchType() {
+        return matchType;
+    }
+
+    public Long getMatchId() {
+        return matchId;
+    }
+}
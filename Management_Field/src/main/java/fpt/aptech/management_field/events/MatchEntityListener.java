@@ -0,0 +1,40 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.DraftMatch;
+import fpt.aptech.management_field.models.DraftMatchInterestedUser;
+import fpt.aptech.management_field.models.OpenMatch;
+import fpt.aptech.management_field.models.OpenMatchParticipant;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on open and draft matches and on their participants and interested
+ * users. Turns every write into a {@link MatchChangedEvent} for the match concerned.
+ */
+public class MatchEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        if (entity instanceof OpenMatch match) {
+            publish(OpenMatch.class, match.getId());
+        } else if (entity instanceof OpenMatchParticipant participant && participant.getOpenMatch() != null) {
+            publish(OpenMatch.class, participant.getOpenMatch().getId());
+        } else if (entity instanceof DraftMatch match) {
+            publish(DraftMatch.class, match.getId());
+        } else if (entity instanceof DraftMatchInterestedUser interest && interest.getDraftMatch() != null) {
+            publish(DraftMatch.class, interest.getDraftMatch().getId());
+        }
+    }
+
+    private void publish(Class<?> matchType, Long matchId) {
+        eventPublisher.publishEvent(new MatchChangedEvent(this, matchType, matchId));
+    }
+}
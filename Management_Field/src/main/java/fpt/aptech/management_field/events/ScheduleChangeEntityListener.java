@@ -0,0 +1,55 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.FieldClosure;
+import fpt.aptech.management_field.models.GlobalClosure;
+import fpt.aptech.management_field.models.HolidayClosure;
+import fpt.aptech.management_field.models.Location;
+import fpt.aptech.management_field.models.OperatingHour;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on operating hours and closure entities. Turns every write, including
+ * cascaded ones, into a {@link ScheduleChangedEvent}. Instantiated by Hibernate through
+ * the Spring bean container, so injection works.
+ */
+public class ScheduleChangeEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onScheduleWrite(Object entity) {
+        eventPublisher.publishEvent(new ScheduleChangedEvent(this, locationIdOf(entity)));
+    }
+
+    private Long locationIdOf(Object entity) {
+        if (entity instanceof OperatingHour hour) {
+            return locationIdOf(hour.getField());
+        }
+        if (entity instanceof FieldClosure closure) {
+            return locationIdOf(closure.getField());
+        }
+        if (entity instanceof HolidayClosure holiday) {
+            return locationIdOf(holiday.getLocation());
+        }
+        if (entity instanceof GlobalClosure closure) {
+            return locationIdOf(closure.getLocation());
+        }
+        return null;
+    }
+
+    private Long locationIdOf(Field field) {
+        return field != null ? locationIdOf(field.getLocation()) : null;
+    }
+
+    private Long locationIdOf(Location location) {
+        return location != null ? location.getLocationId() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when operating hours or closures change. A null location id means
+ * the change applies to every location.
+ */
+public class ScheduleChangedEvent extends ApplicationEvent {
+    private final Long locationId;
+
+    public ScheduleChangedEvent(Object source, Long locationId) {
+        super(source);
+        this.locationId = locationId;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+}
@@ -0,0 +1,32 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a field, field type or tournament is written, so the search index
+ * can reindex that one entity.
+ */
+public class SearchableEntityChangedEvent extends ApplicationEvent {
+    private final Class<?> entityType;
+    private final Long entityId;
+    private final boolean removed;
+
+    public SearchableEntityChangedEvent(Object source, Class<?> entityType, Long entityId, boolean removed) {
+        super(source);
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.removed = removed;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,41 @@
+package fpt.aptech.management_field.events;
+
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.FieldType;
+import fpt.aptech.management_field.models.Tournament;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on the searchable entities other than locations, which have
+ * {@link LocationChangeEntityListener}. Turns every write into a {@link SearchableEntityChangedEvent}.
+ */
+public class SearchableEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Field field) {
+            eventPublisher.publishEvent(new SearchableEntityChangedEvent(this, Field.class, field.getFieldId(), removed));
+        } else if (entity instanceof FieldType type) {
+            eventPublisher.publishEvent(new SearchableEntityChangedEvent(this, FieldType.class, type.getTypeId(), removed));
+        } else if (entity instanceof Tournament tournament) {
+            eventPublisher.publishEvent(new SearchableEntityChangedEvent(this, Tournament.class, tournament.getTournamentId(), removed));
+        }
+    }
+}
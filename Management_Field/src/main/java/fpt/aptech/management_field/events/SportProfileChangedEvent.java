@@ -0,0 +1,20 @@
+package fpt.aptech.management_field.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a user's sport profiles are rewritten, by the user or from their
+ * booking history.
+ */
+public class SportProfileChangedEvent extends ApplicationEvent {
+    private final Long userId;
+
+    public SportProfileChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
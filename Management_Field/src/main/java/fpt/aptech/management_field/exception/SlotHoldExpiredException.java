@@ -0,0 +1,11 @@
+package fpt.aptech.management_field.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SlotHoldExpiredException extends ApiBaseException {
+    public SlotHoldExpiredException(String message) {
+        super(message);
+    }
+}
@@ -11,7 +11,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_group_id", columnList = "booking_group_id"),
+        @Index(name = "idx_bookings_user_from_time", columnList = "user_id, from_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -46,6 +49,10 @@ public class Booking {
     @Column(name = "payment_token")
     private String paymentToken;
 
+    // Shared by all bookings paid with one payment; null on bookings made before groups existed
+    @Column(name = "booking_group_id", length = 36)
+    private String bookingGroupId;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -1,9 +1,11 @@
 package fpt.aptech.management_field.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "booking_users")
@@ -11,7 +13,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @IdClass(BookingUserId.class)
-public class BookingUser {
+public class BookingUser implements Persistable<BookingUserId> {
     @Id
     @Column(name = "booking_id")
     private Long bookingId;
@@ -33,6 +35,29 @@ public class BookingUser {
     @ManyToOne
     @JoinColumn(name = "user_id", insertable = false, updatable = false)
     private User user;
+
+    // Ids are assigned, so without this Spring Data would merge (SELECT, then INSERT) every new row
+    @Transient
+    @JsonIgnore
+    private boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public BookingUserId getId() {
+        return new BookingUserId(bookingId, userId);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
     
     // Explicit getters and setters for compatibility
     public Long getBookingId() {
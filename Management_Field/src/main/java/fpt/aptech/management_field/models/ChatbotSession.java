@@ -0,0 +1,29 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Conversation context of one chatbot session, shared by all instances when the
+ * context store runs in jdbc mode.
+ */
+@Entity
+@Table(name = "chatbot_sessions", indexes = @Index(name = "idx_chatbot_sessions_accessed", columnList = "last_accessed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatbotSession {
+    @Id
+    @Column(name = "session_id", length = 64)
+    private String sessionId;
+
+    @Column(name = "context_json", nullable = false, columnDefinition = "nvarchar(max)")
+    private String contextJson;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private Instant lastAccessedAt;
+}
@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.MatchEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(MatchEntityListener.class)
 @Table(name = "draft_matches")
 @Data
 @NoArgsConstructor
@@ -51,6 +53,9 @@ public class DraftMatch {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "draft_match_interested_users",
@@ -67,6 +72,12 @@ public class DraftMatch {
         if (status == null) {
             status = DraftMatchStatus.RECRUITING;
         }
+        updatedAt = createdAt;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
     
     // Explicit getters and setters for compatibility
@@ -166,6 +177,14 @@ public class DraftMatch {
         this.createdAt = createdAt;
     }
     
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
     /**
      * Check if the draft match is active (can accept new interests)
      */
@@ -1,6 +1,7 @@
 package fpt.aptech.management_field.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import fpt.aptech.management_field.events.MatchEntityListener;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
  * and their current status (pending, accepted, rejected)
  */
 @Entity
+@EntityListeners(MatchEntityListener.class)
 @Table(name = "draft_match_interested_users", 
        uniqueConstraints = {
            @UniqueConstraint(columnNames = {"draft_match_id", "user_id"})
@@ -0,0 +1,32 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Whether and when the draft match scores of a user were materialized. A user gets a
+ * row on asking for ranked draft matches, and loses it (and the scores) once they have
+ * not asked for a while.
+ */
+@Entity
+@Table(name = "draft_match_ranking_states",
+       indexes = @Index(name = "idx_draft_match_ranking_states_requested", columnList = "last_requested_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftMatchRankingState {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_requested_at", nullable = false)
+    private LocalDateTime lastRequestedAt;
+
+    // Scores cover every match changed up to this time; null until the first run, or after a profile change
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+}
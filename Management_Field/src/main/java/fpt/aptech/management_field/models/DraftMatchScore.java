@@ -0,0 +1,62 @@
+package fpt.aptech.management_field.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Precomputed compatibility of one active draft match for one user, read by the ranked
+ * draft match listing. Maintained by DraftMatchRecommendationMaterializer; the time
+ * the scores were computed is kept once per user in {@link DraftMatchRankingState}.
+ */
+@Entity
+@Table(name = "draft_match_scores",
+       indexes = @Index(name = "idx_draft_match_scores_match", columnList = "draft_match_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(DraftMatchScoreId.class)
+public class DraftMatchScore implements Persistable<DraftMatchScoreId> {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "draft_match_id")
+    private Long draftMatchId;
+
+    @Column(name = "compatibility_score", nullable = false)
+    private double compatibilityScore;
+
+    @Column(name = "explicit_score")
+    private Double explicitScore;
+
+    @Column(name = "implicit_score")
+    private Double implicitScore;
+
+    // Ids are assigned, so without this Spring Data would merge (SELECT, then INSERT) every new row
+    @Transient
+    @JsonIgnore
+    private boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public DraftMatchScoreId getId() {
+        return new DraftMatchScoreId(userId, draftMatchId);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
@@ -0,0 +1,15 @@
+package fpt.aptech.management_field.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftMatchScoreId implements Serializable {
+    private Long userId;
+    private Long draftMatchId;
+}
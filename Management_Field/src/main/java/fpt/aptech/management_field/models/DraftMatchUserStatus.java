@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "draft_match_user_status")
+@Table(name = "draft_match_user_status", indexes = @Index(name = "idx_draft_match_user_status_user", columnList = "user_id, status"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,6 +1,8 @@
 package fpt.aptech.management_field.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import fpt.aptech.management_field.events.LocationContentEntityListener;
+import fpt.aptech.management_field.events.SearchableEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +13,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "fields")
+@EntityListeners({LocationContentEntityListener.class, SearchableEntityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,6 +1,7 @@
 package fpt.aptech.management_field.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import fpt.aptech.management_field.events.SearchableEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "field_types")
+@EntityListeners(SearchableEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
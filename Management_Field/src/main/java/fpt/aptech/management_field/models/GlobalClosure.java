@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.ScheduleChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(ScheduleChangeEntityListener.class)
 @Table(name = "global_closure")
 @Data
 @NoArgsConstructor
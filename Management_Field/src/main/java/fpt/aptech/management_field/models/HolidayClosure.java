@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.ScheduleChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(ScheduleChangeEntityListener.class)
 @Table(name = "holiday_closure")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,43 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Stored outcome of a request sent with an idempotency key, replayed to retries of the same request.
+ * A record without a status code is still being processed.
+ */
+@Entity
+@Table(name = "idempotency_records",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"endpoint", "idempotency_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "record_id")
+    private Long recordId;
+
+    @Column(name = "endpoint", nullable = false, length = 64)
+    private String endpoint;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "nvarchar(max)")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
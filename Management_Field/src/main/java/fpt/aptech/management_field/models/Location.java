@@ -1,6 +1,7 @@
 package fpt.aptech.management_field.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import fpt.aptech.management_field.events.LocationChangeEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,6 +16,7 @@ import java.util.regex.Pattern;
 
 @Entity
 @Table(name = "locations")
+@EntityListeners(LocationChangeEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -66,6 +68,9 @@ public class Location {
     public void generateSlug() {
         if (this.name != null && (this.slug == null || this.slug.isEmpty())) {
             this.slug = createSlugFromName(this.name);
+        } else if (this.slug != null) {
+            // Stored lowercase so slug lookups can match the column exactly
+            this.slug = this.slug.trim().toLowerCase(Locale.ENGLISH);
         }
     }
     
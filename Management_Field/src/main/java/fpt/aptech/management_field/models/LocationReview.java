@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.LocationContentEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "location_reviews")
+@EntityListeners(LocationContentEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
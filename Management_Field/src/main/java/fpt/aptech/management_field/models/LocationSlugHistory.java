@@ -0,0 +1,32 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A slug a location used before it was renamed, kept so old links still resolve.
+ */
+@Entity
+@Table(name = "location_slug_history", indexes = @Index(name = "idx_location_slug_history_location", columnList = "location_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationSlugHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "slug_history_id")
+    private Long slugHistoryId;
+
+    @Column(name = "slug", nullable = false, unique = true)
+    private String slug;
+
+    @Column(name = "location_id", nullable = false)
+    private Long locationId;
+
+    @Column(name = "retired_at", nullable = false)
+    private Instant retiredAt;
+}
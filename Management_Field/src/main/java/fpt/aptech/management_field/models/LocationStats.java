@@ -0,0 +1,44 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Denormalized per-location aggregates read by location cards and map markers.
+ * Maintained by LocationStatsService; never written by request handlers.
+ */
+@Entity
+@Table(name = "location_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStats {
+    @Id
+    @Column(name = "location_id")
+    private Long locationId;
+
+    @Column(name = "field_count", nullable = false)
+    private int fieldCount;
+
+    @Column(name = "min_hourly_rate")
+    private Integer minHourlyRate;
+
+    @Column(name = "average_rating", precision = 3, scale = 2)
+    private BigDecimal averageRating;
+
+    // Bookings starting within the last 30 days, or later
+    @Column(name = "recent_booking_count", nullable = false)
+    private long recentBookingCount;
+
+    // Thumbnail of the location's first field, shown when the location has none of its own
+    @Column(name = "field_thumbnail_url")
+    private String fieldThumbnailUrl;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
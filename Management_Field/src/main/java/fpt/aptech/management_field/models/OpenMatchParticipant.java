@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.MatchEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "open_match_participants")
+@EntityListeners(MatchEntityListener.class)
+@Table(name = "open_match_participants", indexes = @Index(name = "idx_open_match_participants_user", columnList = "user_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
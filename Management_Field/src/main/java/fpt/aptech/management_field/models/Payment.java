@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = @Index(name = "idx_payments_group_id", columnList = "booking_group_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +44,10 @@ public class Payment {
     @Column(name = "payable_type")
     @Enumerated(EnumType.STRING)
     private PaymentPayable payableType;
+
+    // Booking group this payment pays for, see Booking.bookingGroupId
+    @Column(name = "booking_group_id", length = 36)
+    private String bookingGroupId;
     // New fields for admin commission
     @Column(name = "admin_commission")
     private Integer adminCommission; // 5% of total amount
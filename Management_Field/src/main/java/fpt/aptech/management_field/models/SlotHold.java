@@ -0,0 +1,39 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Time-limited reservation of a pending booking's slot while the user pays.
+ * When it expires before payment completes, the booking is cancelled and the slot freed.
+ */
+@Entity
+@Table(name = "slot_holds", indexes = @Index(name = "idx_slot_holds_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "hold_id")
+    private Long holdId;
+
+    @Column(name = "booking_id", nullable = false, unique = true)
+    private Long bookingId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "from_time", nullable = false)
+    private Instant fromTime;
+
+    @Column(name = "to_time", nullable = false)
+    private Instant toTime;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
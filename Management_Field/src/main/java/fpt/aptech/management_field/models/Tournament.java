@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.models;
 
+import fpt.aptech.management_field.events.SearchableEntityListener;
 import jakarta.persistence.*;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.FetchType;
@@ -13,6 +14,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "tournaments")
+@EntityListeners(SearchableEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
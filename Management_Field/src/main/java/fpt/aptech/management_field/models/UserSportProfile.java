@@ -0,0 +1,42 @@
+package fpt.aptech.management_field.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One sport of a user's sport profiles as rows, so users can be filtered by sport,
+ * skill and tag in SQL. Derived from {@link User#getSportProfiles()}, which stays the
+ * source of truth, and rewritten whenever it changes.
+ */
+@Entity
+@Table(name = "user_sport_profiles",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "sport"}),
+       indexes = @Index(name = "idx_user_sport_profiles_sport_skill", columnList = "sport, skill"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSportProfile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "sport", nullable = false, length = 64)
+    private String sport;
+
+    @Column(name = "skill")
+    private Integer skill;
+
+    @ElementCollection
+    @CollectionTable(name = "user_sport_profile_tags", joinColumns = @JoinColumn(name = "profile_id"),
+                     indexes = @Index(name = "idx_user_sport_profile_tags_tag", columnList = "tag"))
+    @Column(name = "tag", nullable = false, columnDefinition = "nvarchar(255)")
+    private List<String> tags = new ArrayList<>();
+}
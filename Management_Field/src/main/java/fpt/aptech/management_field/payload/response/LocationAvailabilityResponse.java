@@ -0,0 +1,45 @@
+package fpt.aptech.management_field.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Field x time-slot availability grid for one location over a range of days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationAvailabilityResponse {
+    private Long locationId;
+    private Integer slotMinutes;
+    private List<DayAvailability> days;
+
+    public enum SlotStatus {
+        FREE, BOOKED, CLOSED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayAvailability {
+        private LocalDate date;
+        private List<LocalTime> slotStarts;
+        private List<FieldAvailability> fields;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldAvailability {
+        private Long fieldId;
+        private String fieldName;
+        private String typeName;
+        // One entry per slot start of the day
+        private List<SlotStatus> slots;
+    }
+}
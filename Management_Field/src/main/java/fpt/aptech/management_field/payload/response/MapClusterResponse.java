@@ -0,0 +1,25 @@
+package fpt.aptech.management_field.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One map marker: a cluster of locations, or a single location when count is 1.
+ * Location details are only filled in for single-location markers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClusterResponse {
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private Integer count;
+    private BigDecimal minPrice;
+    private BigDecimal averageRating;
+    private Long locationId;
+    private String name;
+    private String slug;
+}
@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,4 +19,8 @@ public class PayPalCaptureResponse {
     @JsonProperty("status")
     private String status;
 
+    // purchase_units[].payments.captures[] carry the capture ids needed to refund
+    @JsonProperty("purchase_units")
+    private List<Map<String, Object>> purchaseUnits;
+
 }
\ No newline at end of file
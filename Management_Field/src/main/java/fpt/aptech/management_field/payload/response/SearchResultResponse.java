@@ -0,0 +1,21 @@
+package fpt.aptech.management_field.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One hit of the unified search: a field, location, field type or tournament.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultResponse {
+    private String kind;
+    private Long id;
+    private String title;
+    private String subtitle;
+    private String slug;
+    private Long locationId;
+    private Double score;
+}
@@ -0,0 +1,25 @@
+package fpt.aptech.management_field.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A free slot offered in place of a requested one that is taken.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotSuggestionResponse {
+    private Long fieldId;
+    private String fieldName;
+    private Long locationId;
+    private String locationName;
+    private Instant fromTime;
+    private Instant toTime;
+    // SAME_FIELD, SAME_LOCATION or NEARBY
+    private String match;
+    private Double distanceKm;
+}
@@ -4,17 +4,21 @@ import fpt.aptech.management_field.models.Booking;
 import fpt.aptech.management_field.models.Field;
 import fpt.aptech.management_field.models.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.bookingUsers WHERE b.field.fieldId = :fieldId AND b.fromTime >= :startDate AND b.toTime <= :endDate AND b.status != 'cancelled'")
     List<Booking> findForFieldByDate(@Param("startDate") Instant startDate, @Param("endDate") Instant endDate, @Param("fieldId") Long fieldId);
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.field LEFT JOIN FETCH b.user LEFT JOIN FETCH b.bookingUsers WHERE b.field.fieldId IN :fieldIds AND b.fromTime >= :startDate AND b.toTime <= :endDate AND b.status != 'cancelled'")
+    List<Booking> findForFieldsByDate(@Param("startDate") Instant startDate, @Param("endDate") Instant endDate, @Param("fieldIds") Collection<Long> fieldIds);
     List<Booking> findByUserId(Long userId);
     
     List<Booking> findByUserIdAndCreatedAtBetween(Long userId, LocalDateTime startTime, LocalDateTime endTime);
@@ -29,6 +33,50 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("toTime") Instant toTime,
             @Param("fromTime") Instant fromTime);
 
+    @Query("SELECT COUNT(b) > 0 FROM Booking b WHERE b.field.fieldId = :fieldId " +
+            "AND b.status NOT IN ('cancelled', 'canceled') " +
+            "AND b.fromTime < :toTime AND b.toTime > :fromTime")
+    boolean existsActiveBookingForField(
+            @Param("fieldId") Long fieldId,
+            @Param("fromTime") Instant fromTime,
+            @Param("toTime") Instant toTime);
+
+    // Slot index warm-up: bookingId, fieldId, fromTime, toTime of every booking still holding its slot
+    @Query("SELECT b.bookingId, b.field.fieldId, b.fromTime, b.toTime FROM Booking b " +
+            "WHERE b.status NOT IN ('cancelled', 'canceled') AND b.toTime > :since")
+    List<Object[]> findActiveSlotsEndingAfter(@Param("since") Instant since);
+
+    // Batch conflict check: fieldId, fromTime, toTime of active bookings on the given fields within [fromTime, toTime)
+    @Query("SELECT b.field.fieldId, b.fromTime, b.toTime FROM Booking b " +
+            "WHERE b.field.fieldId IN :fieldIds AND b.status NOT IN ('cancelled', 'canceled') " +
+            "AND b.fromTime < :toTime AND b.toTime > :fromTime")
+    List<Object[]> findActiveSlotsForFields(@Param("fieldIds") Collection<Long> fieldIds,
+                                            @Param("fromTime") Instant fromTime,
+                                            @Param("toTime") Instant toTime);
+
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId AND b.status = 'confirmed' " +
+            "AND b.fromTime < :toTime AND b.toTime > :fromTime")
+    List<Booking> findConfirmedForUserOverlapping(@Param("userId") Long userId,
+                                                  @Param("fromTime") Instant fromTime,
+                                                  @Param("toTime") Instant toTime);
+
+    @Query("SELECT b.bookingId FROM Booking b WHERE b.bookingGroupId = :groupId AND b.status = 'pending'")
+    List<Long> findPendingIdsByGroup(@Param("groupId") String groupId);
+
+    @Query("SELECT b.bookingId FROM Booking b WHERE b.bookingId IN :bookingIds AND b.status = 'pending'")
+    List<Long> findPendingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'confirmed' WHERE b.bookingId IN :bookingIds AND b.status = 'pending'")
+    int confirmPendingBookings(@Param("bookingIds") Collection<Long> bookingIds);
+
+    List<Booking> findByBookingGroupIdAndStatusOrderByCreatedAtAsc(String bookingGroupId, String status);
+
+    // Releases expired slot holds in one statement; bookings already paid for are left alone
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'cancelled' WHERE b.bookingId IN :bookingIds AND b.status = 'pending'")
+    int cancelPendingBookings(@Param("bookingIds") Collection<Long> bookingIds);
+
     @Query("SELECT b FROM Booking b WHERE b.fromTime >= :now AND b.fromTime <= :twoHoursLater " +
             "AND b.status = 'confirmed' AND (b.reminderSent = false OR b.reminderSent IS NULL)")
     List<Booking> findUpcomingBookingsForReminder(
@@ -0,0 +1,20 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.ChatbotSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface ChatbotSessionRepository extends JpaRepository<ChatbotSession, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatbotSession s WHERE s.lastAccessedAt < :idleSince")
+    int deleteIdleSince(@Param("idleSince") Instant idleSince);
+}
@@ -0,0 +1,46 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.DraftMatchRankingState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DraftMatchRankingStateRepository extends JpaRepository<DraftMatchRankingState, Long> {
+
+    // Users of one shard who asked for ranked matches since activeSince
+    @Query("SELECT st FROM DraftMatchRankingState st WHERE st.lastRequestedAt >= :activeSince " +
+            "AND MOD(st.userId, :shardCount) = :shardIndex")
+    List<DraftMatchRankingState> findActiveInShard(@Param("activeSince") LocalDateTime activeSince,
+                                                   @Param("shardCount") int shardCount,
+                                                   @Param("shardIndex") int shardIndex);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DraftMatchRankingState st SET st.lastRequestedAt = :requestedAt WHERE st.userId = :userId")
+    int touch(@Param("userId") Long userId, @Param("requestedAt") LocalDateTime requestedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DraftMatchRankingState st SET st.computedAt = :computedAt WHERE st.userId = :userId")
+    int markComputed(@Param("userId") Long userId, @Param("computedAt") LocalDateTime computedAt);
+
+    // The next run rescores every active match for the user
+    @Modifying
+    @Transactional
+    @Query("UPDATE DraftMatchRankingState st SET st.computedAt = NULL WHERE st.userId = :userId")
+    int markStale(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DraftMatchRankingState st WHERE st.lastRequestedAt < :activeSince " +
+            "AND MOD(st.userId, :shardCount) = :shardIndex")
+    int deleteInactive(@Param("activeSince") LocalDateTime activeSince,
+                       @Param("shardCount") int shardCount, @Param("shardIndex") int shardIndex);
+}
@@ -20,6 +20,22 @@ import java.util.Optional;
  */
 @Repository
 public interface DraftMatchRepository extends JpaRepository<DraftMatch, Long> {
+
+    /**
+     * Draft matches the user created (with creatorStatus) or was approved into (with one of
+     * participantStatuses) whose estimated time overlaps [startTime, endTime)
+     */
+    @Query("SELECT dm FROM DraftMatch dm " +
+           "WHERE dm.estimatedStartTime < :endTime AND dm.estimatedEndTime > :startTime AND (" +
+           "(dm.creator.id = :userId AND dm.status = :creatorStatus) OR " +
+           "(dm.status IN :participantStatuses AND EXISTS (SELECT s FROM DraftMatchUserStatus s " +
+           "WHERE s.draftMatch = dm AND s.user.id = :userId AND s.status = 'APPROVED')))")
+    List<DraftMatch> findActiveForUserOverlapping(
+        @Param("userId") Long userId,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime,
+        @Param("creatorStatus") DraftMatchStatus creatorStatus,
+        @Param("participantStatuses") List<DraftMatchStatus> participantStatuses);
     
     /**
      * Find all draft matches by status, ordered by creation date descending
@@ -89,12 +105,12 @@ public interface DraftMatchRepository extends JpaRepository<DraftMatch, Long> {
     long countBySportTypeAndStatus(String sportType, DraftMatchStatus status);
     
     /**
-     * Find draft matches that need AI score updates (active matches)
+     * Find active draft matches that need AI score updates: created or changed after cutoffTime
+     * (rows written before updated_at existed count from their creation)
      */
-    @Query("SELECT dm FROM DraftMatch dm WHERE dm.status = :status")
-    List<DraftMatch> findDraftMatchesNeedingAiUpdate(
-        @Param("status") DraftMatchStatus status, 
-        @Param("cutoffTime") LocalDateTime cutoffTime);
+    @Query("SELECT dm FROM DraftMatch dm WHERE dm.status IN ('RECRUITING', 'FULL') " +
+           "AND COALESCE(dm.updatedAt, dm.createdAt) > :cutoffTime ORDER BY dm.createdAt DESC")
+    List<DraftMatch> findDraftMatchesNeedingAiUpdate(@Param("cutoffTime") LocalDateTime cutoffTime);
     
     /**
      * Find draft matches with AI scores for ranking
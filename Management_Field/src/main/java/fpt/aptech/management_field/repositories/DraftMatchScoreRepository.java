@@ -0,0 +1,34 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.DraftMatchScore;
+import fpt.aptech.management_field.models.DraftMatchScoreId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DraftMatchScoreRepository extends JpaRepository<DraftMatchScore, DraftMatchScoreId> {
+
+    List<DraftMatchScore> findByUserId(Long userId);
+
+    // Scores of matches that stopped recruiting, for the users of one shard
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DraftMatchScore s WHERE MOD(s.userId, :shardCount) = :shardIndex AND NOT EXISTS " +
+            "(SELECT dm.id FROM DraftMatch dm WHERE dm.id = s.draftMatchId AND dm.status IN ('RECRUITING', 'FULL'))")
+    int deleteForClosedMatches(@Param("shardCount") int shardCount, @Param("shardIndex") int shardIndex);
+
+    // Scores of the users of one shard who have not asked for ranked matches since activeSince
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DraftMatchScore s WHERE MOD(s.userId, :shardCount) = :shardIndex AND s.userId IN " +
+            "(SELECT st.userId FROM DraftMatchRankingState st WHERE st.lastRequestedAt < :activeSince)")
+    int deleteForInactiveUsers(@Param("activeSince") LocalDateTime activeSince,
+                               @Param("shardCount") int shardCount, @Param("shardIndex") int shardIndex);
+}
@@ -0,0 +1,19 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.FieldClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface FieldClosureRepository extends JpaRepository<FieldClosure, Long> {
+
+    @Query("SELECT c FROM FieldClosure c WHERE c.field.fieldId IN :fieldIds " +
+            "AND c.startDate < :toTime AND c.endDate > :fromTime")
+    List<FieldClosure> findOverlappingForFields(@Param("fieldIds") Collection<Long> fieldIds,
+                                                @Param("fromTime") LocalDateTime fromTime,
+                                                @Param("toTime") LocalDateTime toTime);
+}
@@ -2,13 +2,16 @@ package fpt.aptech.management_field.repositories;
 
 import fpt.aptech.management_field.models.Field;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // Thêm import này
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -34,6 +37,22 @@ public interface FieldRepository extends JpaRepository<Field, Long>, JpaSpecific
                                        @Param("northEastLat") BigDecimal northEastLat,
                                        @Param("northEastLng") BigDecimal northEastLng);
 
+    // Fields with the location and type text the search index reads
+    @Query("SELECT f FROM Field f JOIN FETCH f.location LEFT JOIN FETCH f.type")
+    List<Field> findAllForSearch();
+
+    @Query("SELECT f FROM Field f JOIN FETCH f.location LEFT JOIN FETCH f.type WHERE f.fieldId IN :fieldIds")
+    List<Field> findForSearch(@Param("fieldIds") Collection<Long> fieldIds);
+
+    // A location's fields with their location and type, for the detail page
+    @Query("SELECT f FROM Field f JOIN FETCH f.location JOIN FETCH f.type WHERE f.location.locationId = :locationId")
+    List<Field> findDetailByLocationId(@Param("locationId") Long locationId);
+
+    // Fields of the given locations, with everything the map response reads
+    @Query("SELECT f FROM Field f JOIN FETCH f.location l LEFT JOIN FETCH f.type LEFT JOIN FETCH f.category " +
+            "WHERE l.locationId IN :locationIds")
+    List<Field> findForMapByLocationIds(@Param("locationIds") Collection<Long> locationIds);
+
     // Find fields with filters (Query này có thể không cần thiết nữa nếu bạn dùng Specification hoàn toàn cho getFieldsByLocation)
     // Nếu vẫn muốn giữ, hãy đảm bảo nó không xung đột với logic Specification
     @Query("SELECT f FROM Field f WHERE " +
@@ -68,4 +87,14 @@ public interface FieldRepository extends JpaRepository<Field, Long>, JpaSpecific
                                     @Param("toTime") LocalDateTime toTime,
                                     @Param("locationId") Long locationId);
 
+    @Query("SELECT f FROM Field f JOIN FETCH f.type JOIN FETCH f.location " +
+            "WHERE f.location.locationId IN :locationIds AND f.isActive = true")
+    List<Field> findActiveWithTypeByLocationIds(@Param("locationIds") Collection<Long> locationIds);
+
+    // Row-level write lock on the fields being booked, taken in id order to avoid deadlocks.
+    // Serializes bookings per field across every app instance while other fields stay unblocked.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Field f WHERE f.fieldId IN :fieldIds ORDER BY f.fieldId")
+    List<Field> lockForBooking(@Param("fieldIds") Collection<Long> fieldIds);
+
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,20 @@ public interface FieldTypeRepository extends JpaRepository<FieldType, Long> {
     // Find all field types for a specific location
     List<FieldType> findByLocation_LocationId(Long locationId);
     
+    // Field types with their location, for the search index
+    @Query("SELECT ft FROM FieldType ft JOIN FETCH ft.location")
+    List<FieldType> findAllForSearch();
+    
+    @Query("SELECT ft FROM FieldType ft JOIN FETCH ft.location WHERE ft.typeId IN :typeIds")
+    List<FieldType> findForSearch(@Param("typeIds") Collection<Long> typeIds);
+    
+    @Query("SELECT ft FROM FieldType ft JOIN FETCH ft.location l WHERE l.locationId = :locationId")
+    List<FieldType> findForSearchByLocationId(@Param("locationId") Long locationId);
+    
+    // Distinct names, for the chatbot's fuzzy matcher
+    @Query("SELECT DISTINCT ft.name FROM FieldType ft WHERE ft.name IS NOT NULL")
+    List<String> findDistinctNames();
+    
     // Find field types by location and owner
     @Query("SELECT ft FROM FieldType ft WHERE ft.location.locationId = :locationId AND ft.location.owner.user.id = :ownerId")
     List<FieldType> findByLocationIdAndOwnerId(@Param("locationId") Long locationId, @Param("ownerId") Long ownerId);
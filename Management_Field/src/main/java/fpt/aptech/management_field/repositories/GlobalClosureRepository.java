@@ -0,0 +1,19 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.GlobalClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface GlobalClosureRepository extends JpaRepository<GlobalClosure, Long> {
+
+    // Closures without a location apply to every location
+    @Query("SELECT g FROM GlobalClosure g WHERE (g.location IS NULL OR g.location.locationId = :locationId) " +
+            "AND g.startDate < :toTime AND g.endDate > :fromTime")
+    List<GlobalClosure> findOverlappingForLocation(@Param("locationId") Long locationId,
+                                                   @Param("fromTime") LocalDateTime fromTime,
+                                                   @Param("toTime") LocalDateTime toTime);
+}
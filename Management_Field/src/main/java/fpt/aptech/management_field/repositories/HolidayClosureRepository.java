@@ -0,0 +1,19 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.HolidayClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayClosureRepository extends JpaRepository<HolidayClosure, Long> {
+
+    // Holidays without a location apply to every location
+    @Query("SELECT h FROM HolidayClosure h WHERE (h.location IS NULL OR h.location.locationId = :locationId) " +
+            "AND h.date >= :fromDate AND h.date <= :toDate")
+    List<HolidayClosure> findForLocationBetween(@Param("locationId") Long locationId,
+                                                @Param("fromDate") LocalDate fromDate,
+                                                @Param("toDate") LocalDate toDate);
+}
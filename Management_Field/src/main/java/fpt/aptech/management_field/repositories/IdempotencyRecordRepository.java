@@ -0,0 +1,26 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByEndpointAndIdempotencyKey(String endpoint, String idempotencyKey);
+
+    // Completed records past their retention, and claims abandoned by a crashed request
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :completedBefore " +
+            "OR (r.statusCode IS NULL AND r.createdAt < :pendingBefore)")
+    int deleteExpired(@Param("completedBefore") Instant completedBefore,
+                      @Param("pendingBefore") Instant pendingBefore);
+}
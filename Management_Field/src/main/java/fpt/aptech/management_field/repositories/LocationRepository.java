@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -41,6 +42,41 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
                                                        @Param("minHourlyRate") Integer minHourlyRate,
                                                        @Param("maxHourlyRate") Integer maxHourlyRate);
     
+    // Coordinates of every location, for the in-memory spatial index
+    @Query("SELECT l.locationId, l.latitude, l.longitude FROM Location l " +
+           "WHERE l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
+    List<Object[]> findAllCoordinates();
+    
+    // Locations among the given ids having at least one field that matches the filters
+    @Query("SELECT DISTINCT l FROM Location l JOIN Field f ON f.location = l " +
+           "WHERE l.locationId IN :locationIds " +
+           "AND (:typeId IS NULL OR f.type.typeId = :typeId) " +
+           "AND (:categoryId IS NULL OR f.category.categoryId = :categoryId) " +
+           "AND (:minHourlyRate IS NULL OR f.hourlyRate >= :minHourlyRate) " +
+           "AND (:maxHourlyRate IS NULL OR f.hourlyRate <= :maxHourlyRate)")
+    List<Location> findByIdsWithFieldFilters(@Param("locationIds") Collection<Long> locationIds,
+                                             @Param("typeId") Long typeId,
+                                             @Param("categoryId") Long categoryId,
+                                             @Param("minHourlyRate") Integer minHourlyRate,
+                                             @Param("maxHourlyRate") Integer maxHourlyRate);
+    
+    // Current slug of every location, for the slug lookup index
+    @Query("SELECT l.locationId, l.slug FROM Location l WHERE l.slug IS NOT NULL")
+    List<Object[]> findAllSlugs();
+
+    // Exact match on the unique slug column; slugs are stored lowercase
+    @Query("SELECT l.locationId FROM Location l WHERE l.slug = :slug")
+    Long findIdBySlug(@Param("slug") String slug);
+    
+    // Distinct names, for the chatbot's fuzzy matcher
+    @Query("SELECT DISTINCT l.name FROM Location l WHERE l.name IS NOT NULL")
+    List<String> findDistinctNames();
+    
+    // Scalar columns the map needs, without loading owners
+    @Query("SELECT l.locationId, l.name, l.slug, l.address, l.description, l.latitude, l.longitude, l.thumbnailUrl " +
+           "FROM Location l")
+    List<Object[]> findMapRows();
+    
     // Count fields for a location
     @Query("SELECT COUNT(f) FROM Field f WHERE f.location.locationId = :locationId")
     Integer countFieldsByLocationId(@Param("locationId") Long locationId);
@@ -0,0 +1,20 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.LocationSlugHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LocationSlugHistoryRepository extends JpaRepository<LocationSlugHistory, Long> {
+
+    Optional<LocationSlugHistory> findBySlug(String slug);
+
+    @Modifying
+    @Query("DELETE FROM LocationSlugHistory h WHERE h.locationId = :locationId")
+    int deleteByLocationId(@Param("locationId") Long locationId);
+}
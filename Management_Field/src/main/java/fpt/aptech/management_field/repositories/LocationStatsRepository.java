@@ -0,0 +1,55 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.LocationStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LocationStatsRepository extends JpaRepository<LocationStats, Long> {
+
+    @Query("SELECT l.locationId FROM Location l")
+    List<Long> findAllLocationIds();
+
+    @Query("SELECT l.locationId FROM Location l WHERE l.locationId IN :locationIds")
+    List<Long> findExistingLocationIds(@Param("locationIds") Collection<Long> locationIds);
+
+    // locationId, field count, lowest hourly rate
+    @Query("SELECT f.location.locationId, COUNT(f), MIN(f.hourlyRate) FROM Field f GROUP BY f.location.locationId")
+    List<Object[]> aggregateFields();
+
+    @Query("SELECT f.location.locationId, COUNT(f), MIN(f.hourlyRate) FROM Field f " +
+            "WHERE f.location.locationId IN :locationIds GROUP BY f.location.locationId")
+    List<Object[]> aggregateFields(@Param("locationIds") Collection<Long> locationIds);
+
+    // locationId, average rating
+    @Query("SELECT lr.location.locationId, AVG(lr.averageRating) FROM LocationReview lr GROUP BY lr.location.locationId")
+    List<Object[]> aggregateRatings();
+
+    @Query("SELECT lr.location.locationId, AVG(lr.averageRating) FROM LocationReview lr " +
+            "WHERE lr.location.locationId IN :locationIds GROUP BY lr.location.locationId")
+    List<Object[]> aggregateRatings(@Param("locationIds") Collection<Long> locationIds);
+
+    // locationId, bookings starting after the given instant
+    @Query("SELECT f.location.locationId, COUNT(b) FROM Booking b JOIN b.field f " +
+            "WHERE b.fromTime > :since GROUP BY f.location.locationId")
+    List<Object[]> countBookingsSince(@Param("since") Instant since);
+
+    @Query("SELECT f.location.locationId, COUNT(b) FROM Booking b JOIN b.field f " +
+            "WHERE b.fromTime > :since AND f.location.locationId IN :locationIds GROUP BY f.location.locationId")
+    List<Object[]> countBookingsSince(@Param("since") Instant since, @Param("locationIds") Collection<Long> locationIds);
+
+    // locationId, thumbnail of the location's lowest-id field
+    @Query("SELECT f.location.locationId, f.thumbnailUrl FROM Field f WHERE f.fieldId IN " +
+            "(SELECT MIN(f2.fieldId) FROM Field f2 GROUP BY f2.location.locationId)")
+    List<Object[]> findFirstFieldThumbnails();
+
+    @Query("SELECT f.location.locationId, f.thumbnailUrl FROM Field f WHERE f.fieldId IN " +
+            "(SELECT MIN(f2.fieldId) FROM Field f2 WHERE f2.location.locationId IN :locationIds GROUP BY f2.location.locationId)")
+    List<Object[]> findFirstFieldThumbnails(@Param("locationIds") Collection<Long> locationIds);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -22,4 +23,14 @@ public interface OpenMatchRepository extends JpaRepository<OpenMatch, Long> {
     
     @Query("SELECT om FROM OpenMatch om WHERE om.booking.bookingId = :bookingId")
     OpenMatch findByBookingId(@Param("bookingId") Long bookingId);
+
+    // Open matches the user created (still open) or joined (open or full) whose booking overlaps [startTime, endTime)
+    @Query("SELECT om FROM OpenMatch om JOIN FETCH om.booking b " +
+            "WHERE b.fromTime < :endTime AND b.toTime > :startTime AND (" +
+            "(om.creatorUser.id = :userId AND om.status = 'OPEN') OR " +
+            "(om.status IN ('OPEN', 'FULL') AND EXISTS (SELECT p FROM OpenMatchParticipant p " +
+            "WHERE p.openMatch = om AND p.user.id = :userId)))")
+    List<OpenMatch> findActiveForUserOverlapping(@Param("userId") Long userId,
+                                                 @Param("startTime") Instant startTime,
+                                                 @Param("endTime") Instant endTime);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.OperatingHour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OperatingHourRepository extends JpaRepository<OperatingHour, Long> {
+
+    @Query("SELECT h FROM OperatingHour h WHERE h.field.fieldId IN :fieldIds")
+    List<OperatingHour> findByFieldIds(@Param("fieldIds") Collection<Long> fieldIds);
+}
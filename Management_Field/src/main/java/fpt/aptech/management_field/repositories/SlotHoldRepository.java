@@ -0,0 +1,32 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.SlotHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SlotHoldRepository extends JpaRepository<SlotHold, Long> {
+
+    // Locks the expired rows so a concurrent payment confirmation either wins the row or sees it gone
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM SlotHold h WHERE h.expiresAt <= :now")
+    List<SlotHold> lockExpired(@Param("now") Instant now);
+
+    // Locks the holds of bookings about to be paid, so the sweeper cannot cancel them mid-payment
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM SlotHold h WHERE h.bookingId IN :bookingIds")
+    List<SlotHold> lockByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying
+    @Query("DELETE FROM SlotHold h WHERE h.bookingId IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+}
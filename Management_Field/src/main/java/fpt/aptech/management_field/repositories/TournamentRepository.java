@@ -7,15 +7,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TournamentRepository extends JpaRepository<Tournament, Long> {
     @Query("SELECT new fpt.aptech.management_field.payload.dtos.TournamentDto(t.tournamentId, t.name, t.slug, t.description, t.startDate, t.endDate, t.prize, t.entryFee, t.slots, t.status, t.location) FROM Tournament t WHERE t.slug = :slug")
     TournamentDto findBySlug(String slug);
     
-    // Find tournaments by name (fuzzy matching)chatb
-    @Query("SELECT new fpt.aptech.management_field.payload.dtos.TournamentDto(t.tournamentId, t.name, t.slug, t.description, t.startDate, t.endDate, t.prize, t.entryFee, t.slots, t.status, t.location) FROM Tournament t WHERE LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<TournamentDto> findByNameContainingIgnoreCase(@Param("name") String name);
+    // Tournaments with their location, for the search index
+    @Query("SELECT t FROM Tournament t LEFT JOIN FETCH t.location")
+    List<Tournament> findAllForSearch();
+    
+    @Query("SELECT t FROM Tournament t LEFT JOIN FETCH t.location WHERE t.tournamentId IN :tournamentIds")
+    List<Tournament> findForSearch(@Param("tournamentIds") Collection<Long> tournamentIds);
+    
+    @Query("SELECT t FROM Tournament t JOIN FETCH t.location l WHERE l.locationId = :locationId")
+    List<Tournament> findForSearchByLocationId(@Param("locationId") Long locationId);
     
     // Find tournaments by location
     @Query("SELECT new fpt.aptech.management_field.payload.dtos.TournamentDto(t.tournamentId, t.name, t.slug, t.description, t.startDate, t.endDate, t.prize, t.entryFee, t.slots, t.status, t.location) FROM Tournament t WHERE LOWER(t.location.name) LIKE LOWER(CONCAT('%', :locationName, '%')) OR LOWER(t.location.address) LIKE LOWER(CONCAT('%', :locationName, '%'))")
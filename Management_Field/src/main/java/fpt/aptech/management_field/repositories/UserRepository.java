@@ -40,23 +40,18 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     
     List<User> findByIsDiscoverableTrue();
     
-    @Query("SELECT u FROM User u JOIN u.roles r WHERE u.isDiscoverable = true AND r.name = 'ROLE_USER' AND u.id != :currentUserId")
-    List<User> findDiscoverableRegularUsersExcludingUser(@Param("currentUserId") Long currentUserId);
-    
-    
-    @Query("SELECT u FROM User u JOIN u.roles r WHERE " +
-           "u.isDiscoverable = true AND r.name = 'ROLE_USER' AND u.id != :excludeUserId AND " +
-           "(:sportType IS NULL OR u.sportProfiles LIKE CONCAT('%', :sportType, '%'))")
-    List<User> findPotentialTeammates(
-            @Param("sportType") String sportType,
-            @Param("skillLevel") String skillLevel,
-            @Param("location") String location,
-            @Param("maxDistance") Double maxDistance,
-            @Param("genderPreference") String genderPreference,
-            @Param("minAge") Integer minAge,
-            @Param("maxAge") Integer maxAge,
-            @Param("excludeUserId") Long excludeUserId
-    );
+    // Id, sport profiles JSON and address of discoverable regular users, for the teammate candidate index
+    @Query("SELECT u.id, u.sportProfiles, u.address FROM User u JOIN u.roles r " +
+           "WHERE u.isDiscoverable = true AND r.name = 'ROLE_USER'")
+    List<Object[]> findTeammateIndexRows();
+    
+    @Query("SELECT u.id, u.sportProfiles, u.address FROM User u JOIN u.roles r " +
+           "WHERE u.isDiscoverable = true AND r.name = 'ROLE_USER' AND u.id = :userId")
+    List<Object[]> findTeammateIndexRowsByUserId(@Param("userId") Long userId);
+    
+    // Id and sport profiles JSON of every user that has any
+    @Query("SELECT u.id, u.sportProfiles FROM User u WHERE u.sportProfiles IS NOT NULL")
+    List<Object[]> findSportProfileRows();
     @Query("SELECT COUNT(u) FROM User u WHERE u.joinDate >= :startDate AND u.joinDate <= :endDate")
     Long getNewUserCount(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 @Query("SELECT DATE(u.joinDate) as date, COUNT(u) as count " +
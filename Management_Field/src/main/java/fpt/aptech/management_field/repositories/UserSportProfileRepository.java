@@ -0,0 +1,26 @@
+package fpt.aptech.management_field.repositories;
+
+import fpt.aptech.management_field.models.UserSportProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserSportProfileRepository extends JpaRepository<UserSportProfile, Long> {
+
+    List<UserSportProfile> findByUserId(Long userId);
+
+    void deleteByUserId(Long userId);
+
+    // Users playing the sport at a skill in [minSkill, maxSkill], e.g. to pre-filter teammate candidates
+    @Query("SELECT p.userId FROM UserSportProfile p WHERE p.sport = :sport AND p.skill BETWEEN :minSkill AND :maxSkill")
+    List<Long> findUserIdsBySportAndSkillBetween(@Param("sport") String sport,
+                                                 @Param("minSkill") Integer minSkill,
+                                                 @Param("maxSkill") Integer maxSkill);
+
+    @Query("SELECT DISTINCT p.userId FROM UserSportProfile p JOIN p.tags t WHERE p.sport = :sport AND t = :tag")
+    List<Long> findUserIdsBySportAndTag(@Param("sport") String sport, @Param("tag") String tag);
+}
@@ -89,6 +89,7 @@ public class WebSecurityConfig {
                         .requestMatchers("/api/locations/**").permitAll()
                         .requestMatchers("/api/location-reviews/**").permitAll()
                         .requestMatchers("/api/sports/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/search").permitAll()
                         .requestMatchers("/api/chatbot/**").permitAll()
                         .requestMatchers("/uploads/**").permitAll() // Allow public access to uploaded files
                         .requestMatchers(HttpMethod.GET, "/api/open-matches").permitAll()
@@ -1,6 +1,5 @@
 package fpt.aptech.management_field.services;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import fpt.aptech.management_field.payload.dtos.DraftMatchDto;
 import fpt.aptech.management_field.payload.dtos.OpenMatchDto;
@@ -8,10 +7,9 @@ import fpt.aptech.management_field.payload.dtos.SportProfileDto;
 import fpt.aptech.management_field.models.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -29,6 +27,12 @@ public class AIRankingService {
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     
+    @Autowired
+    private AiServiceGuard aiServiceGuard;
+
+    @Autowired
+    private SportProfileService sportProfileService;
+    
     public AIRankingService(RestTemplate restTemplate, ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
@@ -37,7 +41,6 @@ public class AIRankingService {
     /**
      * Rank open matches using AI hybrid scoring
      */
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
     public List<OpenMatchDto> rankOpenMatches(User currentUser, List<OpenMatchDto> matches, String sportType) {
         try {
             if (matches == null || matches.isEmpty()) {
@@ -67,7 +70,12 @@ public class AIRankingService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestPayload, headers);
             
             String url = aiServiceBaseUrl + "/api/v1/rank/matches";
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
+            ResponseEntity<Map> response = aiServiceGuard.execute("rank_open_matches",
+                    () -> restTemplate.postForEntity(url, request, Map.class)).orElse(null);
+            if (response == null) {
+                logger.warn("[AI_RANKING] AI service unavailable, returning matches unranked");
+                return matches;
+            }
             
             // Log the response
             logger.info("[AI_RANKING] Received response from AI service:");
@@ -97,7 +105,6 @@ public class AIRankingService {
     /**
      * Rank draft matches using AI hybrid scoring
      */
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
     public List<DraftMatchDto> rankDraftMatches(User currentUser, List<DraftMatchDto> draftMatches, String sportType) {
         try {
             if (draftMatches == null || draftMatches.isEmpty()) {
@@ -127,7 +134,12 @@ public class AIRankingService {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestPayload, headers);
             
             String url = aiServiceBaseUrl + "/api/v1/rank/draft-matches";
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
+            ResponseEntity<Map> response = aiServiceGuard.execute("rank_draft_matches",
+                    () -> restTemplate.postForEntity(url, request, Map.class)).orElse(null);
+            if (response == null) {
+                logger.warn("[AI_RANKING] AI service unavailable, returning draft matches unranked");
+                return draftMatches;
+            }
             
             // Log the response
             logger.info("[AI_RANKING] Received response from AI service:");
@@ -232,10 +244,7 @@ public class AIRankingService {
                 return getDefaultExplicitTags(sportType);
             }
             
-            Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                user.getSportProfiles(), 
-                new TypeReference<Map<String, SportProfileDto>>() {}
-            );
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
             
             SportProfileDto profile = sportProfiles.get(sportType);
             if (profile != null && profile.getTags() != null) {
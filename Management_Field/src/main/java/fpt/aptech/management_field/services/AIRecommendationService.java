@@ -12,8 +12,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -35,6 +33,21 @@ public class AIRecommendationService {
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private AiServiceGuard aiServiceGuard;
+    
+    @Autowired
+    private RecommendationCacheService recommendationCacheService;
+
+    @Autowired
+    private AiScoringCoalescer aiScoringCoalescer;
+    
+    @Autowired
+    private TagRankingEngine tagRankingEngine;
+    
+    @Autowired
+    private SportProfileService sportProfileService;
+    
     public AIRecommendationService(RestTemplate restTemplate, ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
@@ -104,20 +117,9 @@ public class AIRecommendationService {
             List<String> userTags = extractUserTagsSimple(currentUser, sportType);
             logger.info("[FALLBACK_RANKING] User tags: {}", userTags);
             
-            // Calculate compatibility score for each match
-            for (OpenMatchDto match : matches) {
-                double compatibilityScore = calculateMatchCompatibilityScore(userTags, match);
-                match.setCompatibilityScore(compatibilityScore);
-                logger.info("[FALLBACK_RANKING] Match {} compatibility score: {}", match.getId(), compatibilityScore);
-            }
-            
-            // Sort matches by compatibility score (highest first)
-            List<OpenMatchDto> rankedMatches = matches.stream()
-                .sorted((m1, m2) -> Double.compare(
-                    m2.getCompatibilityScore() != null ? m2.getCompatibilityScore() : 0.0,
-                    m1.getCompatibilityScore() != null ? m1.getCompatibilityScore() : 0.0
-                ))
-                .collect(Collectors.toList());
+            // Score each match on tag overlap and sort by compatibility score (highest first)
+            List<OpenMatchDto> rankedMatches = tagRankingEngine.rank(userTags, matches, OpenMatchDto::getRequiredTags,
+                    TagRankingEngine.ScoreCurve.OPEN_MATCH, OpenMatchDto::setCompatibilityScore);
             
             logger.info("[FALLBACK_RANKING] Successfully ranked {} matches using fallback method", rankedMatches.size());
             return rankedMatches;
@@ -129,66 +131,6 @@ public class AIRecommendationService {
         }
     }
     
-    /**
-     * Calculate compatibility score between user tags and match requirements
-     */
-    private double calculateMatchCompatibilityScore(List<String> userTags, OpenMatchDto match) {
-        try {
-            List<String> matchTags = match.getRequiredTags();
-            if (matchTags == null || matchTags.isEmpty()) {
-                // If no specific requirements, give a moderate score
-                return 0.6;
-            }
-            
-            if (userTags == null || userTags.isEmpty()) {
-                // If user has no tags, give a low score
-                return 0.3;
-            }
-            
-            // Calculate tag overlap
-            Set<String> userTagsSet = userTags.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-            
-            Set<String> matchTagsSet = matchTags.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-            
-            // Find intersection
-            Set<String> intersection = new HashSet<>(userTagsSet);
-            intersection.retainAll(matchTagsSet);
-            
-            // Calculate compatibility score
-            double overlapRatio = (double) intersection.size() / Math.max(matchTagsSet.size(), 1);
-            
-            // Apply scoring logic:
-            // - High overlap (>= 0.7): 0.8-0.95
-            // - Medium overlap (0.3-0.7): 0.5-0.8
-            // - Low overlap (< 0.3): 0.2-0.5
-            double baseScore;
-            if (overlapRatio >= 0.7) {
-                baseScore = 0.8 + (overlapRatio - 0.7) * 0.5; // 0.8 to 0.95
-            } else if (overlapRatio >= 0.3) {
-                baseScore = 0.5 + (overlapRatio - 0.3) * 0.75; // 0.5 to 0.8
-            } else {
-                baseScore = 0.2 + overlapRatio * 1.0; // 0.2 to 0.5
-            }
-            
-            // Add some randomness to avoid identical scores
-            double randomFactor = 0.95 + (Math.random() * 0.1); // 0.95 to 1.05
-            double finalScore = Math.min(0.95, baseScore * randomFactor);
-            
-            logger.debug("[FALLBACK_RANKING] Match {} - User tags: {}, Match tags: {}, Overlap: {}/{}, Score: {}",
-                        match.getId(), userTagsSet, matchTagsSet, intersection.size(), matchTagsSet.size(), finalScore);
-            
-            return finalScore;
-            
-        } catch (Exception e) {
-            logger.error("[FALLBACK_RANKING] Error calculating compatibility for match {}: {}", match.getId(), e.getMessage());
-            return 0.5; // Default moderate score
-        }
-    }
-    
     /**
      * Convert single User to Map
      */
@@ -204,10 +146,7 @@ public class AIRecommendationService {
             
             // Parse sport profiles
             if (user.getSportProfiles() != null && !user.getSportProfiles().isEmpty()) {
-                Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                    user.getSportProfiles(), 
-                    new TypeReference<Map<String, SportProfileDto>>() {}
-                );
+                Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
                 userData.put("sportProfiles", sportProfiles);
             } else {
                 userData.put("sportProfiles", new HashMap<>());
@@ -223,7 +162,6 @@ public class AIRecommendationService {
     /**
      * Recommend teammates based on user's sport profile tags with retry logic
      */
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
     public List<Map<String, Object>> recommendTeammates(User user, List<User> potentialTeammates, String sportType) {
         try {
             // Validate input data
@@ -265,7 +203,12 @@ public class AIRecommendationService {
             
             String url = aiServiceBaseUrl + "/recommend-teammates";
             logger.info("[AI_AUDIT] Making HTTP POST request to: {}", url);
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
+            ResponseEntity<Map> response = aiServiceGuard.execute("recommend_teammates",
+                    () -> restTemplate.postForEntity(url, request, Map.class)).orElse(null);
+            if (response == null) {
+                logger.info("[AI_AUDIT] AI service unavailable, using fallback recommendation");
+                return fallbackRecommendation(potentialTeammates);
+            }
             
             // ===== AUDIT LOGGING: Log the response from AI service =====
             logger.info("[AI_AUDIT] Received response from AI service:");
@@ -314,10 +257,7 @@ public class AIRecommendationService {
                 return getDefaultTagsForSport(sportType);
             }
             
-            Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                user.getSportProfiles(), 
-                new TypeReference<Map<String, SportProfileDto>>() {}
-            );
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
             
             SportProfileDto profile = sportProfiles.get(sportType);
             if (profile != null && profile.getTags() != null && !profile.getTags().isEmpty()) {
@@ -518,10 +458,7 @@ public class AIRecommendationService {
             }
             
             // Parse sport profiles JSON
-            Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                user.getSportProfiles(), 
-                new TypeReference<Map<String, SportProfileDto>>() {}
-            );
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
             
             SportProfileDto profile = sportProfiles.get(sportType);
             if (profile != null && profile.getTags() != null) {
@@ -571,10 +508,7 @@ public class AIRecommendationService {
                 
                 if (user.getSportProfiles() != null && !user.getSportProfiles().isEmpty()) {
                     try {
-                        Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                            user.getSportProfiles(), 
-                            new TypeReference<Map<String, SportProfileDto>>() {}
-                        );
+                        Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
                         
                         // Collect tags from all sport profiles
                         for (SportProfileDto profile : sportProfiles.values()) {
@@ -616,35 +550,18 @@ public class AIRecommendationService {
             // Validate input data
             validateRecommendationData(user, potentialTeammates, sportType);
             
-            // Prepare hybrid format payload
-            Map<String, Object> requestPayload = createHybridPayload(user, potentialTeammates, sportType);
-            
-            // Log the hybrid payload
-            try {
-                String payloadJson = objectMapper.writeValueAsString(requestPayload);
-                logger.info("[HYBRID_AI_AUDIT] Sending hybrid teammate recommendation request:");
-                logger.info("[HYBRID_AI_AUDIT] User ID: {}, Sport: {}", user.getId(), sportType);
-                logger.info("[HYBRID_AI_AUDIT] Payload: {}", payloadJson);
-            } catch (Exception logEx) {
-                logger.error("[HYBRID_AI_AUDIT] Failed to serialize hybrid payload: {}", logEx.getMessage());
-            }
-            
-            // Call AI service
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestPayload, headers);
-            
-            String url = aiServiceBaseUrl + "/recommend-teammates";
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                List<Map<String, Object>> recommendedTeammates = (List<Map<String, Object>>) response.getBody().get("recommendedTeammates");
-                logger.info("[HYBRID_AI_AUDIT] Successfully received {} hybrid recommendations", recommendedTeammates != null ? recommendedTeammates.size() : 0);
-                return recommendedTeammates;
+            // Only teammates without a cached score for this profile are sent to the model
+            Map<String, Object> currentUser = createCurrentUserData(user, sportType);
+            List<Map<String, Object>> recommendedTeammates = recommendationCacheService.rank(
+                    RecommendationCacheService.Kind.TEAMMATE, user.getId(), sportType, currentUser,
+                    createHybridCandidates(potentialTeammates, sportType), "userId",
+                    candidates -> requestTeammateScores(user, sportType, currentUser, candidates));
+            if (recommendedTeammates == null) {
+                return fallbackRecommendation(potentialTeammates);
             }
             
-            logger.error("[HYBRID_AI_AUDIT] AI service returned non-OK status: {}", response.getStatusCode());
-            return fallbackRecommendation(potentialTeammates);
+            logger.info("[HYBRID_AI_AUDIT] Returning {} hybrid recommendations", recommendedTeammates.size());
+            return recommendedTeammates;
             
         } catch (Exception e) {
             logger.error("[HYBRID_AI_AUDIT] Exception in hybrid recommendation: {}", e.getMessage(), e);
@@ -658,16 +575,50 @@ public class AIRecommendationService {
 
     
     /**
-     * Create hybrid format payload for teammate recommendations
+     * Call the AI service for the given teammate candidates; null when the call fails
      */
-    private Map<String, Object> createHybridPayload(User user, List<User> potentialTeammates, String sportType) {
-        Map<String, Object> payload = new HashMap<>();
+    private List<Map<String, Object>> requestTeammateScores(User user, String sportType, Map<String, Object> currentUser,
+                                                            List<Map<String, Object>> candidates) {
+        Map<String, Object> requestPayload = new HashMap<>();
+        requestPayload.put("currentUser", currentUser);
+        requestPayload.put("candidates", candidates);
         
-        // Create current user data
-        Map<String, Object> currentUser = createCurrentUserData(user, sportType);
-        payload.put("currentUser", currentUser);
+        // Log the hybrid payload
+        try {
+            String payloadJson = objectMapper.writeValueAsString(requestPayload);
+            logger.info("[HYBRID_AI_AUDIT] Sending hybrid teammate recommendation request:");
+            logger.info("[HYBRID_AI_AUDIT] User ID: {}, Sport: {}", user.getId(), sportType);
+            logger.info("[HYBRID_AI_AUDIT] Payload: {}", payloadJson);
+        } catch (Exception logEx) {
+            logger.error("[HYBRID_AI_AUDIT] Failed to serialize hybrid payload: {}", logEx.getMessage());
+        }
+        
+        // Call AI service
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestPayload, headers);
+        
+        String url = aiServiceBaseUrl + "/recommend-teammates";
+        ResponseEntity<Map> response = aiServiceGuard.execute("recommend_teammates_hybrid",
+                () -> restTemplate.postForEntity(url, request, Map.class)).orElse(null);
+        if (response == null) {
+            return null;
+        }
         
-        // Create candidates data
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            List<Map<String, Object>> recommendedTeammates = (List<Map<String, Object>>) response.getBody().get("recommendedTeammates");
+            logger.info("[HYBRID_AI_AUDIT] Successfully received {} hybrid recommendations", recommendedTeammates != null ? recommendedTeammates.size() : 0);
+            return recommendedTeammates != null ? recommendedTeammates : new ArrayList<>();
+        }
+        
+        logger.error("[HYBRID_AI_AUDIT] AI service returned non-OK status: {}", response.getStatusCode());
+        return null;
+    }
+    
+    /**
+     * Create hybrid format candidates for teammate recommendations
+     */
+    private List<Map<String, Object>> createHybridCandidates(List<User> potentialTeammates, String sportType) {
         List<Map<String, Object>> candidates = new ArrayList<>();
         for (User teammate : potentialTeammates) {
             Map<String, Object> candidate = new HashMap<>();
@@ -684,9 +635,8 @@ public class AIRecommendationService {
             
             candidates.add(candidate);
         }
-        payload.put("candidates", candidates);
         
-        return payload;
+        return candidates;
     }
     
     /**
@@ -736,10 +686,7 @@ public class AIRecommendationService {
                 return getDefaultExplicitTags(sportType);
             }
             
-            Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                user.getSportProfiles(), 
-                new TypeReference<Map<String, SportProfileDto>>() {}
-            );
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
             
             SportProfileDto profile = sportProfiles.get(sportType);
             if (profile != null && profile.getTags() != null) {
@@ -773,10 +720,7 @@ public class AIRecommendationService {
                 return getDefaultImplicitTags(sportType);
             }
             
-            Map<String, SportProfileDto> sportProfiles = objectMapper.readValue(
-                user.getSportProfiles(), 
-                new TypeReference<Map<String, SportProfileDto>>() {}
-            );
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.getProfiles(user);
             
             SportProfileDto profile = sportProfiles.get(sportType);
             if (profile != null && profile.getTags() != null) {
@@ -849,7 +793,6 @@ public class AIRecommendationService {
     /**
      * Rank open matches using hybrid AI scoring
      */
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
     public List<OpenMatchDto> rankOpenMatchesHybrid(User user, List<OpenMatchDto> matches, String sportType) {
         try {
             logger.info("[HYBRID_RANKING] Ranking {} open matches for user {} with sport {}", 
@@ -859,34 +802,22 @@ public class AIRecommendationService {
                 return new ArrayList<>();
             }
             
-            // Create hybrid payload
-            Map<String, Object> payload = createHybridMatchPayload(user, matches, sportType);
-            
-            // Call AI service
-            String url = aiServiceBaseUrl + "/api/v1/rank/matches";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-            
-            ResponseEntity<List> response = restTemplate.postForEntity(url, request, List.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                List<Map<String, Object>> rankedMatches = (List<Map<String, Object>>) response.getBody();
-                List<OpenMatchDto> result = convertRankedOpenMatches(rankedMatches);
-                
-                // Only fallback if conversion completely fails (null), not if AI returns empty list or low scores
-                if (result != null) {
-                    logger.info("[HYBRID_RANKING] Successfully received {} ranked open matches from AI service", result.size());
-                    return result;
-                } else {
-                    logger.warn("[HYBRID_RANKING] AI service returned valid response but conversion failed for open matches");
-                    return fallbackRankOpenMatches(user, matches, sportType);
-                }
-            } else {
-                logger.warn("[HYBRID_RANKING] AI service returned invalid response (status: {}) for open matches", response.getStatusCode());
+            // Only matches without a cached score for this profile are sent to the model, batched with
+            // concurrent requests for the same user
+            Map<String, Object> currentUser = createCurrentUserData(user, sportType);
+            List<Map<String, Object>> rankedMatches = recommendationCacheService.rank(
+                    RecommendationCacheService.Kind.OPEN_MATCH, user.getId(), sportType, currentUser,
+                    createHybridMatchData(matches), "id",
+                    candidates -> aiScoringCoalescer.score("rank_open_matches_hybrid", currentUser, candidates, "id",
+                            batch -> requestMatchScores("/api/v1/rank/matches", "matches", "rank_open_matches_hybrid", currentUser, batch)));
+            if (rankedMatches == null) {
                 return fallbackRankOpenMatches(user, matches, sportType);
             }
             
+            List<OpenMatchDto> result = convertRankedOpenMatches(rankedMatches);
+            logger.info("[HYBRID_RANKING] Returning {} ranked open matches", result.size());
+            return result;
+            
         } catch (Exception e) {
             logger.error("[HYBRID_RANKING] Error ranking open matches: {}", e.getMessage(), e);
             return fallbackRankOpenMatches(user, matches, sportType);
@@ -896,7 +827,6 @@ public class AIRecommendationService {
     /**
      * Rank draft matches using hybrid AI scoring
      */
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000, multiplier = 2))
     public List<DraftMatchDto> rankDraftMatchesHybrid(User user, List<DraftMatchDto> matches, String sportType) {
         try {
             logger.info("[HYBRID_RANKING] Ranking {} draft matches for user {} with sport {}", 
@@ -906,34 +836,22 @@ public class AIRecommendationService {
                 return new ArrayList<>();
             }
             
-            // Create hybrid payload
-            Map<String, Object> payload = createHybridDraftMatchPayload(user, matches, sportType);
-            
-            // Call AI service
-            String url = aiServiceBaseUrl + "/api/v1/rank/draft-matches";
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-            
-            ResponseEntity<List> response = restTemplate.postForEntity(url, request, List.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                List<Map<String, Object>> rankedMatches = (List<Map<String, Object>>) response.getBody();
-                List<DraftMatchDto> result = convertRankedDraftMatches(rankedMatches);
-                
-                // Only fallback if conversion completely fails (null), not if AI returns empty list or low scores
-                if (result != null) {
-                    logger.info("[HYBRID_RANKING] Successfully received {} ranked draft matches from AI service", result.size());
-                    return result;
-                } else {
-                    logger.warn("[HYBRID_RANKING] AI service returned valid response but conversion failed for draft matches");
-                    return fallbackRankDraftMatches(user, matches, sportType);
-                }
-            } else {
-                logger.warn("[HYBRID_RANKING] AI service returned invalid response (status: {}) for draft matches", response.getStatusCode());
+            // Only matches without a cached score for this profile are sent to the model, batched with
+            // concurrent requests for the same user
+            Map<String, Object> currentUser = createCurrentUserData(user, sportType);
+            List<Map<String, Object>> rankedMatches = recommendationCacheService.rank(
+                    RecommendationCacheService.Kind.DRAFT_MATCH, user.getId(), sportType, currentUser,
+                    createHybridDraftMatchData(matches), "id",
+                    candidates -> aiScoringCoalescer.score("rank_draft_matches_hybrid", currentUser, candidates, "id",
+                            batch -> requestMatchScores("/api/v1/rank/draft-matches", "draft_matches", "rank_draft_matches_hybrid", currentUser, batch)));
+            if (rankedMatches == null) {
                 return fallbackRankDraftMatches(user, matches, sportType);
             }
             
+            List<DraftMatchDto> result = convertRankedDraftMatches(rankedMatches);
+            logger.info("[HYBRID_RANKING] Returning {} ranked draft matches", result.size());
+            return result;
+            
         } catch (Exception e) {
             logger.error("[HYBRID_RANKING] Error ranking draft matches: {}", e.getMessage(), e);
             return fallbackRankDraftMatches(user, matches, sportType);
@@ -944,25 +862,43 @@ public class AIRecommendationService {
      * Check if AI service is available
      */
     public boolean isAIServiceAvailable() {
-        try {
-            String url = aiServiceBaseUrl + "/health";
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            logger.warn("AI service health check failed: {}", e.getMessage());
-            return false;
-        }
+        return aiServiceGuard.isAvailable();
     }
     
     /**
-     * Create hybrid payload for open matches ranking
+     * Call the AI ranking endpoint for the given match candidates; null when the call fails
      */
-    private Map<String, Object> createHybridMatchPayload(User user, List<OpenMatchDto> matches, String sportType) {
+    private List<Map<String, Object>> requestMatchScores(String endpoint, String candidatesKey, String operation,
+                                                         Map<String, Object> currentUser, List<Map<String, Object>> candidates) {
         Map<String, Object> payload = new HashMap<>();
+        payload.put("currentUser", currentUser);
+        payload.put(candidatesKey, candidates);
         
-        // Add current user data
-        payload.put("currentUser", createCurrentUserData(user, sportType));
+        // Call AI service
+        String url = aiServiceBaseUrl + endpoint;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+        
+        ResponseEntity<List> response = aiServiceGuard.execute(operation,
+                () -> restTemplate.postForEntity(url, request, List.class)).orElse(null);
+        if (response == null) {
+            return null;
+        }
         
+        // Only fallback if the call fails, not if AI returns empty list or low scores
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            logger.info("[HYBRID_RANKING] Successfully received {} scores for {} from AI service", response.getBody().size(), candidatesKey);
+            return (List<Map<String, Object>>) response.getBody();
+        }
+        logger.warn("[HYBRID_RANKING] AI service returned invalid response (status: {}) for {}", response.getStatusCode(), candidatesKey);
+        return null;
+    }
+    
+    /**
+     * Create hybrid data for open matches ranking
+     */
+    private List<Map<String, Object>> createHybridMatchData(List<OpenMatchDto> matches) {
         // Convert matches to the format expected by AI service
         List<Map<String, Object>> matchesData = new ArrayList<>();
         for (OpenMatchDto match : matches) {
@@ -975,21 +911,15 @@ public class AIRecommendationService {
             matchData.put("implicitTags", new ArrayList<>()); // Can be enhanced later
             matchesData.add(matchData);
         }
-        payload.put("matches", matchesData);
         
         logger.info("[HYBRID_RANKING] Created payload for {} open matches", matches.size());
-        return payload;
+        return matchesData;
     }
     
     /**
-     * Create hybrid payload for draft matches ranking
+     * Create hybrid data for draft matches ranking
      */
-    private Map<String, Object> createHybridDraftMatchPayload(User user, List<DraftMatchDto> matches, String sportType) {
-        Map<String, Object> payload = new HashMap<>();
-        
-        // Add current user data
-        payload.put("currentUser", createCurrentUserData(user, sportType));
-        
+    private List<Map<String, Object>> createHybridDraftMatchData(List<DraftMatchDto> matches) {
         // Convert draft matches to the format expected by AI service
         List<Map<String, Object>> matchesData = new ArrayList<>();
         for (DraftMatchDto match : matches) {
@@ -1002,10 +932,9 @@ public class AIRecommendationService {
             matchData.put("implicitTags", new ArrayList<>()); // Can be enhanced later
             matchesData.add(matchData);
         }
-        payload.put("draft_matches", matchesData);
         
         logger.info("[HYBRID_RANKING] Created payload for {} draft matches", matches.size());
-        return payload;
+        return matchesData;
     }
     
     /**
@@ -1205,20 +1134,11 @@ public class AIRecommendationService {
             List<String> userTags = extractUserTagsSimple(currentUser, sportType);
             logger.info("[FALLBACK_RANKING] User tags: {}", userTags);
             
-            // Calculate compatibility score for each draft match
-            for (DraftMatchDto match : matches) {
-                double compatibilityScore = calculateDraftMatchCompatibilityScore(userTags, match);
-                match.setCompatibilityScore(compatibilityScore);
-                logger.info("[FALLBACK_RANKING] Draft Match {} compatibility score: {}", match.getId(), compatibilityScore);
-            }
-            
-            // Sort matches by compatibility score (highest first)
-            List<DraftMatchDto> rankedMatches = matches.stream()
-                .sorted((m1, m2) -> Double.compare(
-                    m2.getCompatibilityScore() != null ? m2.getCompatibilityScore() : 0.0,
-                    m1.getCompatibilityScore() != null ? m1.getCompatibilityScore() : 0.0
-                ))
-                .collect(Collectors.toList());
+            // Score each draft match on tag overlap and sort by compatibility score (highest first)
+            List<DraftMatchDto> rankedMatches = tagRankingEngine.rank(userTags, matches, DraftMatchDto::getRequiredTags,
+                    TagRankingEngine.ScoreCurve.DRAFT_MATCH, DraftMatchDto::setCompatibilityScore);
+            // Tells callers these are tag scores, not model scores
+            rankedMatches.forEach(match -> match.setAiScoreUsed(false));
             
             logger.info("[FALLBACK_RANKING] Successfully ranked {} draft matches using fallback method", rankedMatches.size());
             return rankedMatches;
@@ -1226,68 +1146,9 @@ public class AIRecommendationService {
         } catch (Exception e) {
             logger.error("[FALLBACK_RANKING] Error in fallback ranking for draft matches: {}", e.getMessage(), e);
             // Return original matches without scores if fallback fails
+            matches.forEach(match -> match.setAiScoreUsed(false));
             return matches;
         }
     }
     
-    /**
-     * Calculate compatibility score between user tags and draft match requirements
-     */
-    private double calculateDraftMatchCompatibilityScore(List<String> userTags, DraftMatchDto match) {
-        try {
-            List<String> matchTags = match.getRequiredTags();
-            if (matchTags == null || matchTags.isEmpty()) {
-                // If no specific requirements, give a moderate score
-                return 0.65;
-            }
-            
-            if (userTags == null || userTags.isEmpty()) {
-                // If user has no tags, give a low score
-                return 0.35;
-            }
-            
-            // Calculate tag overlap
-            Set<String> userTagsSet = userTags.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-            
-            Set<String> matchTagsSet = matchTags.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-            
-            // Find intersection
-            Set<String> intersection = new HashSet<>(userTagsSet);
-            intersection.retainAll(matchTagsSet);
-            
-            // Calculate compatibility score
-            double overlapRatio = (double) intersection.size() / Math.max(matchTagsSet.size(), 1);
-            
-            // Apply scoring logic for draft matches (slightly different from open matches):
-            // - High overlap (>= 0.7): 0.75-0.9
-            // - Medium overlap (0.3-0.7): 0.45-0.75
-            // - Low overlap (< 0.3): 0.25-0.45
-            double baseScore;
-            if (overlapRatio >= 0.7) {
-                baseScore = 0.75 + (overlapRatio - 0.7) * 0.5; // 0.75 to 0.9
-            } else if (overlapRatio >= 0.3) {
-                baseScore = 0.45 + (overlapRatio - 0.3) * 0.75; // 0.45 to 0.75
-            } else {
-                baseScore = 0.25 + overlapRatio * 0.67; // 0.25 to 0.45
-            }
-            
-            // Add some randomness to avoid identical scores
-            double randomFactor = 0.95 + (Math.random() * 0.1); // 0.95 to 1.05
-            double finalScore = Math.min(0.9, baseScore * randomFactor);
-            
-            logger.debug("[FALLBACK_RANKING] Draft Match {} - User tags: {}, Match tags: {}, Overlap: {}/{}, Score: {}",
-                        match.getId(), userTagsSet, matchTagsSet, intersection.size(), matchTagsSet.size(), finalScore);
-            
-            return finalScore;
-            
-        } catch (Exception e) {
-            logger.error("[FALLBACK_RANKING] Error calculating compatibility for draft match {}: {}", match.getId(), e.getMessage());
-            return 0.5; // Default moderate score
-        }
-    }
-    
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package fpt.aptech.management_field.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Micro-batching of concurrent AI scoring calls.
+ * <p>
+ * Scoring requests of the same operation for the same user data arriving within
+ * {@code ai.service.batch.max-wait-ms} of each other are sent as one call, with every
+ * distinct candidate once, and each caller gets back the results for its own
+ * candidates. A batch leaves early once it holds {@code max-requests} requests or
+ * {@code max-candidates} candidates, or when a request carries a different payload for
+ * a candidate id already in it. The ranking endpoints score one user per call, so
+ * requests of different users are never merged; what collapses is the burst of
+ * overlapping requests one user's feeds and cache misses produce at once. With more
+ * than {@code max-queue-depth} requests waiting, requests call the model directly.
+ */
+@Service
+public class AiScoringCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(AiScoringCoalescer.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maxWaitMs;
+    private final int maxRequests;
+    private final int maxCandidates;
+    private final int maxQueueDepth;
+    // Longest a caller waits for its batch: the batching window plus the AI call budget, with some slack
+    private final long resultTimeoutMs;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Batches still collecting requests, by operation and user data
+    private final Map<BatchKey, Batch> open = new HashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Timer waitTimer;
+
+    public AiScoringCoalescer(MeterRegistry meterRegistry,
+                              @Value("${ai.service.batch.enabled:true}") boolean enabled,
+                              @Value("${ai.service.batch.max-wait-ms:2}") long maxWaitMs,
+                              @Value("${ai.service.batch.max-requests:16}") int maxRequests,
+                              @Value("${ai.service.batch.max-candidates:500}") int maxCandidates,
+                              @Value("${ai.service.batch.max-queue-depth:1000}") int maxQueueDepth,
+                              @Value("${ai.service.call-budget-ms:2000}") long callBudgetMs) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxWaitMs = maxWaitMs;
+        this.maxRequests = maxRequests;
+        this.maxCandidates = maxCandidates;
+        this.maxQueueDepth = maxQueueDepth;
+        this.resultTimeoutMs = maxWaitMs + callBudgetMs + 1000;
+        this.waitTimer = meterRegistry.timer("ai.service.batch.wait");
+        meterRegistry.gauge("ai.service.batch.queue.depth", queued);
+    }
+
+    /**
+     * Model results for the candidates, as {@code model} would return them for the
+     * candidates alone, or null when the call fails or takes too long.
+     *
+     * @param operation   the AI operation; with {@code currentUser} it decides which requests share a call
+     * @param currentUser the user data sent to the model
+     * @param candidates  the candidate data sent to the model, each carrying its id under {@code idKey}
+     * @param model       calls the model for a list of candidates; null on failure
+     */
+    public List<Map<String, Object>> score(String operation, Map<String, Object> currentUser,
+                                           List<Map<String, Object>> candidates, String idKey,
+                                           Function<List<Map<String, Object>>, List<Map<String, Object>>> model) {
+        if (!enabled || candidates.isEmpty() || candidates.stream().anyMatch(candidate -> candidate.get(idKey) == null)) {
+            return model.apply(candidates);
+        }
+        if (queued.get() >= maxQueueDepth) {
+            meterRegistry.counter("ai.service.batch.bypassed", "operation", operation).increment();
+            return model.apply(candidates);
+        }
+
+        BatchKey key = new BatchKey(operation, currentUser);
+        Pending pending = new Pending(candidates, System.nanoTime(), new CompletableFuture<>());
+        queued.incrementAndGet();
+        List<Batch> ready = new ArrayList<>(2);
+        synchronized (open) {
+            Batch batch = open.get(key);
+            if (batch != null && batch.conflicts(candidates)) {
+                open.remove(key);
+                ready.add(batch.closed("conflict"));
+                batch = null;
+            }
+            if (batch == null) {
+                Batch created = new Batch(key, idKey, model);
+                open.put(key, created);
+                timer.schedule(() -> flushIfOpen(created), maxWaitMs, TimeUnit.MILLISECONDS);
+                batch = created;
+            }
+            batch.add(pending);
+            if (batch.pending.size() >= maxRequests || batch.candidates.size() >= maxCandidates) {
+                open.remove(key);
+                ready.add(batch.closed("full"));
+            }
+        }
+        ready.forEach(this::dispatch);
+
+        try {
+            return pending.result().get(resultTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("AI scoring batch for {} did not answer within {} ms", operation, resultTimeoutMs);
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("AI scoring batch for {} failed: {}", operation, e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void flushIfOpen(Batch batch) {
+        synchronized (open) {
+            if (!open.remove(batch.key, batch)) {
+                return;
+            }
+            batch.closed("timer");
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        dispatcher.execute(() -> {
+            String operation = batch.key.operation();
+            long now = System.nanoTime();
+            queued.addAndGet(-batch.pending.size());
+            for (Pending pending : batch.pending) {
+                waitTimer.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            }
+            DistributionSummary.builder("ai.service.batch.requests").tag("operation", operation)
+                    .register(meterRegistry).record(batch.pending.size());
+            DistributionSummary.builder("ai.service.batch.candidates").tag("operation", operation)
+                    .register(meterRegistry).record(batch.candidates.size());
+            meterRegistry.counter("ai.service.batch.flushes", "operation", operation, "cause", batch.flushCause)
+                    .increment();
+            if (batch.deduplicated > 0) {
+                meterRegistry.counter("ai.service.batch.candidates.deduplicated", "operation", operation)
+                        .increment(batch.deduplicated);
+            }
+
+            List<Map<String, Object>> results;
+            try {
+                results = batch.model.apply(new ArrayList<>(batch.candidates.values()));
+            } catch (RuntimeException e) {
+                logger.warn("AI scoring batch for {} failed: {}", operation, e.getMessage());
+                results = null;
+            }
+            for (Pending pending : batch.pending) {
+                pending.result().complete(results == null ? null : resultsFor(pending, results, batch.idKey));
+            }
+        });
+    }
+
+    /**
+     * The results of the pending request's own candidates, in model order. Each caller
+     * gets its own maps, as callers annotate them.
+     */
+    private static List<Map<String, Object>> resultsFor(Pending pending, List<Map<String, Object>> results, String idKey) {
+        Set<String> ids = new HashSet<>();
+        for (Map<String, Object> candidate : pending.candidates()) {
+            ids.add(candidate.get(idKey).toString());
+        }
+        List<Map<String, Object>> own = new ArrayList<>();
+        for (Map<String, Object> result : results) {
+            Object id = result.get(idKey);
+            if (id != null && ids.contains(id.toString())) {
+                own.add(new HashMap<>(result));
+            }
+        }
+        return own;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Operation and user data of a batch. The user data is hashed once, when the request
+     * arrives, not on every lookup under the lock.
+     */
+    private static final class BatchKey {
+        private final String operation;
+        private final Map<String, Object> currentUser;
+        private final int hash;
+
+        BatchKey(String operation, Map<String, Object> currentUser) {
+            this.operation = operation;
+            this.currentUser = currentUser;
+            this.hash = Objects.hash(operation, currentUser);
+        }
+
+        String operation() {
+            return operation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            return other instanceof BatchKey key && hash == key.hash && operation.equals(key.operation)
+                    && Objects.equals(currentUser, key.currentUser);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private record Pending(List<Map<String, Object>> candidates, long enqueuedAt,
+                           CompletableFuture<List<Map<String, Object>>> result) {
+    }
+
+    /**
+     * Requests collected for one call. Guarded by the open batches map until closed.
+     */
+    private static final class Batch {
+        private final BatchKey key;
+        private final String idKey;
+        private final Function<List<Map<String, Object>>, List<Map<String, Object>>> model;
+        private final List<Pending> pending = new ArrayList<>();
+        // Candidate id (as text) -> candidate data, each sent once
+        private final Map<String, Map<String, Object>> candidates = new LinkedHashMap<>();
+        private int deduplicated;
+        private String flushCause;
+
+        Batch(BatchKey key, String idKey, Function<List<Map<String, Object>>, List<Map<String, Object>>> model) {
+            this.key = key;
+            this.idKey = idKey;
+            this.model = model;
+        }
+
+        /**
+         * Whether the candidates give a different payload for an id already in the batch,
+         * whose single result could not answer both.
+         */
+        boolean conflicts(List<Map<String, Object>> additional) {
+            for (Map<String, Object> candidate : additional) {
+                Map<String, Object> existing = candidates.get(candidate.get(idKey).toString());
+                if (existing != null && !existing.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(Pending request) {
+            pending.add(request);
+            for (Map<String, Object> candidate : request.candidates()) {
+                if (candidates.putIfAbsent(candidate.get(idKey).toString(), candidate) != null) {
+                    deduplicated++;
+                }
+            }
+        }
+
+        Batch closed(String cause) {
+            flushCause = cause;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package fpt.aptech.management_field.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker, bulkhead and time budget for calls to the AI ranking service.
+ * <p>
+ * After {@code ai.service.breaker.failure-threshold} consecutive failures the circuit
+ * opens and every call is answered empty at once, so callers go straight to their
+ * local ranking. While open, the health endpoint is probed every few seconds once the
+ * open period has passed; a healthy probe half-opens the circuit, which lets a single
+ * trial call through and closes again if it succeeds. At most
+ * {@code ai.service.bulkhead.max-concurrent} calls are in flight, and each is abandoned
+ * after {@code ai.service.call-budget-ms}.
+ */
+@Service
+public class AiServiceGuard {
+    private static final Logger logger = LoggerFactory.getLogger(AiServiceGuard.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String healthUrl;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration callBudget;
+    private final Semaphore bulkhead;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile State state = State.CLOSED;
+    private volatile Instant openedAt = Instant.EPOCH;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // Only one trial call while half-open
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    public AiServiceGuard(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                          @Value("${ai.service.url:http://localhost:5002}") String aiServiceUrl,
+                          @Value("${ai.service.health.endpoint:/health}") String healthEndpoint,
+                          @Value("${ai.service.breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${ai.service.breaker.open-seconds:30}") long openSeconds,
+                          @Value("${ai.service.bulkhead.max-concurrent:10}") int maxConcurrent,
+                          @Value("${ai.service.call-budget-ms:2000}") long callBudgetMs) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.healthUrl = aiServiceUrl + healthEndpoint;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofSeconds(openSeconds);
+        this.callBudget = Duration.ofMillis(callBudgetMs);
+        this.bulkhead = new Semaphore(maxConcurrent);
+        meterRegistry.gauge("ai.service.circuit.state", this, guard -> guard.state.ordinal());
+        meterRegistry.gauge("ai.service.bulkhead.available", bulkhead, Semaphore::availablePermits);
+    }
+
+    /**
+     * Result of the call, or empty when the circuit is open, the bulkhead is full, the
+     * time budget ran out or the call failed. Callers fall back on empty.
+     */
+    public <T> Optional<T> execute(String operation, Callable<T> call) {
+        State current = state;
+        boolean trial = false;
+        if (current == State.OPEN) {
+            count(operation, "short_circuited");
+            return Optional.empty();
+        }
+        if (current == State.HALF_OPEN) {
+            if (!trialInFlight.compareAndSet(false, true)) {
+                count(operation, "short_circuited");
+                return Optional.empty();
+            }
+            trial = true;
+        }
+        if (!bulkhead.tryAcquire()) {
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            count(operation, "rejected");
+            return Optional.empty();
+        }
+
+        Future<T> future = executor.submit(call);
+        try {
+            T result = future.get(callBudget.toMillis(), TimeUnit.MILLISECONDS);
+            onSuccess();
+            count(operation, "success");
+            return Optional.ofNullable(result);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("AI service call {} exceeded its {} ms budget", operation, callBudget.toMillis());
+            onFailure();
+            count(operation, "timeout");
+        } catch (ExecutionException e) {
+            logger.warn("AI service call {} failed: {}", operation, e.getCause().getMessage());
+            onFailure();
+            count(operation, "failure");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            count(operation, "interrupted");
+        } finally {
+            bulkhead.release();
+            if (trial) {
+                trialInFlight.set(false);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the AI service answers its health check within the call budget.
+     */
+    public boolean isAvailable() {
+        Future<Boolean> future = executor.submit(() -> {
+            ResponseEntity<Map> response = restTemplate.getForEntity(healthUrl, Map.class);
+            return response.getStatusCode().is2xxSuccessful();
+        });
+        try {
+            return future.get(callBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return false;
+        } catch (ExecutionException e) {
+            logger.warn("AI service health check failed: {}", e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    @Scheduled(fixedDelay = 5000) // 5 seconds
+    public void probe() {
+        if (state != State.OPEN || openedAt.plus(openDuration).isAfter(Instant.now())) {
+            return;
+        }
+        if (isAvailable()) {
+            transition(State.HALF_OPEN);
+        } else {
+            // Stay open for another full period
+            openedAt = Instant.now();
+        }
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    private void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            openedAt = Instant.now();
+            transition(State.OPEN);
+        }
+    }
+
+    private synchronized void transition(State next) {
+        if (state == next) {
+            return;
+        }
+        logger.info("AI service circuit {} -> {}", state, next);
+        state = next;
+        meterRegistry.counter("ai.service.circuit.transitions", "to", next.name().toLowerCase()).increment();
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("ai.service.calls", "operation", operation, "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -5,6 +5,7 @@ import fpt.aptech.management_field.payload.dtos.OpenMatchDto;
 import fpt.aptech.management_field.payload.dtos.DraftMatchDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -25,6 +26,9 @@ public class BaseCompatibilityCalculator {
     private static final double LOCATION_WEIGHT = 0.2;
     private static final double SKILL_LEVEL_WEIGHT = 0.1;
     
+    @Autowired
+    private TagRankingEngine tagRankingEngine;
+    
     /**
      * Calculate unified base compatibility score that ensures consistency
      * across all recommendation types
@@ -77,15 +81,7 @@ public class BaseCompatibilityCalculator {
             }
             
             // Calculate Jaccard similarity
-            Set<String> userTagsSet = new HashSet<>(userTags);
-            Set<String> targetTagsSet = new HashSet<>(targetTags);
-            Set<String> intersection = new HashSet<>(userTagsSet);
-            intersection.retainAll(targetTagsSet);
-            
-            Set<String> union = new HashSet<>(userTagsSet);
-            union.addAll(targetTagsSet);
-            
-            double similarity = union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
+            double similarity = tagRankingEngine.tagSet(userTags).jaccard(tagRankingEngine.tagSet(targetTags));
             
             logger.debug("[EXPLICIT_TAGS] User tags: {}, Target tags: {}, Similarity: {}", 
                         userTags, targetTags, similarity);
@@ -110,18 +106,12 @@ public class BaseCompatibilityCalculator {
                 return 0.5; // Neutral score when no implicit tags available
             }
             
-            // Calculate semantic similarity for implicit tags
-            double totalSimilarity = 0.0;
-            int comparisons = 0;
-            
-            for (String userTag : userImplicitTags) {
-                for (String targetTag : targetImplicitTags) {
-                    totalSimilarity += calculateSemanticSimilarity(userTag, targetTag);
-                    comparisons++;
-                }
-            }
-            
-            double avgSimilarity = comparisons > 0 ? totalSimilarity / comparisons : 0.5;
+            // Average similarity over all tag pairs; only equal tags are similar, so the
+            // sum over pairs is the number of shared tags
+            TagRankingEngine.TagSet userSet = tagRankingEngine.tagSet(userImplicitTags);
+            TagRankingEngine.TagSet targetSet = tagRankingEngine.tagSet(targetImplicitTags);
+            double avgSimilarity = userSet.isEmpty() || targetSet.isEmpty() ? 0.5
+                    : (double) userSet.intersectionSize(targetSet) / (userSet.size() * targetSet.size());
             
             logger.debug("[IMPLICIT_TAGS] User implicit: {}, Target implicit: {}, Avg similarity: {}", 
                         userImplicitTags, targetImplicitTags, avgSimilarity);
@@ -245,11 +235,6 @@ public class BaseCompatibilityCalculator {
         return null; // Placeholder
     }
     
-    private double calculateSemanticSimilarity(String tag1, String tag2) {
-        // Simple implementation - in production, this could use NLP models
-        return tag1.equalsIgnoreCase(tag2) ? 1.0 : 0.0;
-    }
-    
     private double calculateLocationSimilarity(String loc1, String loc2) {
         // Simple implementation - in production, this could use geolocation
         return loc1.equalsIgnoreCase(loc2) ? 1.0 : 0.5;
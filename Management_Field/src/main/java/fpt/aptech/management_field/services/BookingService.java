@@ -1,5 +1,8 @@
 package fpt.aptech.management_field.services;
 
+import fpt.aptech.management_field.events.BookingChangedEvent;
+import fpt.aptech.management_field.exception.PayPalPaymentException;
+import fpt.aptech.management_field.exception.SlotHoldExpiredException;
 import fpt.aptech.management_field.events.BookingConfirmedEvent;
 import fpt.aptech.management_field.mappers.BookingMapper;
 import fpt.aptech.management_field.models.*;
@@ -15,33 +18,45 @@ import fpt.aptech.management_field.payload.dtos.BookingDTO;
 import fpt.aptech.management_field.payload.dtos.BookingHistoryDto;
 import fpt.aptech.management_field.payload.request.BookingRequest;
 import fpt.aptech.management_field.payload.request.BatchBookingRequest;
+import fpt.aptech.management_field.payload.response.PayPalCaptureResponse;
 
 import fpt.aptech.management_field.repositories.AdminRevenueRepository;
 import fpt.aptech.management_field.repositories.BookingRepository;
 import fpt.aptech.management_field.repositories.BookingUserRepository;
 import fpt.aptech.management_field.repositories.DraftMatchRepository;
+import fpt.aptech.management_field.repositories.FieldClosureRepository;
 import fpt.aptech.management_field.repositories.FieldRepository;
 import fpt.aptech.management_field.repositories.PaymentRepository;
 import fpt.aptech.management_field.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.ArrayList;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -105,11 +120,49 @@ public class BookingService {
     @Autowired
     private AdminRevenueRepository adminRevenueRepository;
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public synchronized Map<String, Object> createBooking(Long userId, BookingRequest bookingRequest, String clientType) {
+    @Autowired
+    private BookingSlotIndex bookingSlotIndex;
+
+    @Autowired
+    private FieldClosureRepository fieldClosureRepository;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Bookings of several fields in one query, grouped by field id. Fields without bookings map to an empty list.
+     */
+    public Map<Long, List<BookingDTO>> getBookingsByDateForFields(Instant startDate, Instant endDate, Collection<Long> fieldIds) {
+        Map<Long, List<Booking>> byField = new HashMap<>();
+        for (Long fieldId : fieldIds) {
+            byField.put(fieldId, new ArrayList<>());
+        }
+        if (!fieldIds.isEmpty()) {
+            for (Booking booking : bookingRepository.findForFieldsByDate(startDate, endDate, fieldIds)) {
+                byField.get(booking.getField().getFieldId()).add(booking);
+            }
+        }
+        Map<Long, List<BookingDTO>> result = new HashMap<>();
+        byField.forEach((fieldId, bookings) -> result.put(fieldId, bookingMapper.listToDTO(bookings)));
+        return result;
+    }
+
+    /**
+     * Bookings on different fields run in parallel; bookings on the same field are
+     * serialized by a row lock on that field, which holds across app instances.
+     */
+    @Transactional
+    public Map<String, Object> createBooking(Long userId, BookingRequest bookingRequest, String clientType) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        Field field = fieldRepository.findById(bookingRequest.getFieldId())
+        if (!bookingSlotIndex.isAvailable(bookingRequest.getFieldId(), bookingRequest.getFromTime(), bookingRequest.getToTime())) {
+            throw new RuntimeException("Field is already booked for this time slot");
+        }
+        Field field = fieldRepository.lockForBooking(List.of(bookingRequest.getFieldId())).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Field not found"));
 
         // Convert Instant to LocalDateTime for comparison with FieldClosure dates
@@ -143,11 +196,11 @@ public class BookingService {
             }
         }
 
-        // // Kiểm tra conflict với lock
-        // if (bookingRepository.existsByFieldAndFromTimeLessThanEqualAndToTimeGreaterThanEqual(
-        //         field, bookingRequest.getToTime(), bookingRequest.getFromTime())) {
-        //     throw new RuntimeException("Field is already booked for this time slot");
-        // }
+        // Kiểm tra conflict với lock: the field row is locked, so the database answer is authoritative
+        if (bookingRepository.existsActiveBookingForField(
+                field.getFieldId(), bookingRequest.getFromTime(), bookingRequest.getToTime())) {
+            throw new RuntimeException("Field is already booked for this time slot");
+        }
         
         Booking booking = new Booking();
         booking.setUser(user);
@@ -156,8 +209,11 @@ public class BookingService {
         booking.setToTime(bookingRequest.getToTime());
         booking.setSlots(bookingRequest.getSlots());
         booking.setStatus("pending");
+        booking.setBookingGroupId(UUID.randomUUID().toString());
 
         booking = bookingRepository.save(booking);
+        Instant holdExpiresAt = slotHoldService.place(List.of(booking));
+        eventPublisher.publishEvent(new BookingChangedEvent(this, booking));
 
         if (bookingRequest.isFindTeammates() && bookingRequest.getAdditionalPlayers() != null) {
             for (BookingRequest.AdditionalPlayer player : bookingRequest.getAdditionalPlayers()) {
@@ -184,32 +240,65 @@ long hours = Duration.between(bookingRequest.getFromTime(), bookingRequest.getTo
         int discountPercent = userService.getDiscountPercent(memberLevel != null ? memberLevel : 0);
         float discountAmount = basePrice * discountPercent / 100;
         float finalPrice = basePrice - discountAmount;
-String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPayable.BOOKING, (int) finalPrice, clientType);
+String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPayable.BOOKING, (int) finalPrice, clientType, booking.getBookingGroupId());
 
 
         Map<String, Object> response = new HashMap<>();
         response.put("bookingId", booking.getBookingId());
         response.put("payUrl", payUrl);
+        response.put("holdExpiresAt", holdExpiresAt);
         return response;
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public synchronized Map<String, Object> createBatchBooking(Long userId, BatchBookingRequest batchRequest, String clientType) {
+    /**
+     * Books several slots under one payment as a set-based pipeline:
+     * lock all fields in one query, load closures and existing bookings for every
+     * requested slot in one query each, validate in memory, then write all rows
+     * with Hibernate JDBC batching.
+     */
+    @Transactional
+    public Map<String, Object> createBatchBooking(Long userId, BatchBookingRequest batchRequest, String clientType) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        List<BookingRequest> requests = batchRequest.getBookingRequests();
         
-        List<Booking> createdBookings = new ArrayList<>();
-        float totalAmount = 0;
+        // Cheap early reject from the in-memory index before taking any locks
+        for (BookingRequest bookingRequest : requests) {
+            if (!bookingSlotIndex.isAvailable(bookingRequest.getFieldId(), bookingRequest.getFromTime(), bookingRequest.getToTime())) {
+                throw new RuntimeException("Field is already booked for this time slot");
+            }
+        }
+        
+        // 1. Load and lock every field of the batch in one query, in id order so two batches sharing fields cannot deadlock
+        Set<Long> fieldIds = requests.stream()
+                .map(BookingRequest::getFieldId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Field> lockedFields = fieldRepository.lockForBooking(fieldIds).stream()
+                .collect(Collectors.toMap(Field::getFieldId, f -> f));
         
-        // Create all bookings first
-        for (BookingRequest bookingRequest : batchRequest.getBookingRequests()) {
-            Field field = fieldRepository.findById(bookingRequest.getFieldId())
-                    .orElseThrow(() -> new RuntimeException("Field not found"));
+        // 2. Load closures and existing bookings covering the whole batch window, one query each.
+        // The index may lag bookings made on other instances; under the field lock the database is authoritative.
+        Instant windowStart = requests.stream().map(BookingRequest::getFromTime).min(Instant::compareTo).orElseThrow();
+        Instant windowEnd = requests.stream().map(BookingRequest::getToTime).max(Instant::compareTo).orElseThrow();
+        Map<Long, List<FieldClosure>> closuresByField = fieldClosureRepository.findOverlappingForFields(fieldIds,
+                        LocalDateTime.ofInstant(windowStart, ZoneId.systemDefault()),
+                        LocalDateTime.ofInstant(windowEnd, ZoneId.systemDefault())).stream()
+                .collect(Collectors.groupingBy(c -> c.getField().getFieldId()));
+        Map<Long, List<Instant[]>> takenByField = new HashMap<>();
+        for (Object[] row : bookingRepository.findActiveSlotsForFields(fieldIds, windowStart, windowEnd)) {
+            takenByField.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new Instant[]{(Instant) row[1], (Instant) row[2]});
+        }
+        
+        // 3. Validate in memory; accepted slots join the taken list so later entries of the batch see them
+        LocalDateTime nowLocal = LocalDateTime.now(ZoneId.systemDefault());
+        for (BookingRequest bookingRequest : requests) {
+            Field field = lockedFields.get(bookingRequest.getFieldId());
+            if (field == null) {
+                throw new RuntimeException("Field not found");
+            }
             
-            // Validate booking time and field availability (same as single booking)
             LocalDateTime fromTimeLocal = LocalDateTime.ofInstant(bookingRequest.getFromTime(), ZoneId.systemDefault());
             LocalDateTime toTimeLocal = LocalDateTime.ofInstant(bookingRequest.getToTime(), ZoneId.systemDefault());
-            LocalDateTime nowLocal = LocalDateTime.now(ZoneId.systemDefault());
             
             if (fromTimeLocal.isBefore(nowLocal.minusHours(1))) {
                 throw new RuntimeException("Cannot book for past time slots");
@@ -223,25 +312,29 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
                 throw new RuntimeException("Field is not available");
             }
             
-            // Check field closures
-            List<FieldClosure> fieldClosures = field.getFieldClosures();
-            if (fieldClosures != null) {
-                for (FieldClosure closure : fieldClosures) {
-                    if (fromTimeLocal.isBefore(closure.getEndDate()) && toTimeLocal.isAfter(closure.getStartDate())) {
-                        throw new RuntimeException("Field is not available during closure period");
-                    }
+            for (FieldClosure closure : closuresByField.getOrDefault(field.getFieldId(), List.of())) {
+                if (fromTimeLocal.isBefore(closure.getEndDate()) && toTimeLocal.isAfter(closure.getStartDate())) {
+                    throw new RuntimeException("Field is not available during closure period");
                 }
             }
             
-
-            
-            // Check for overlapping bookings
-            if (bookingRepository.existsByFieldAndFromTimeLessThanEqualAndToTimeGreaterThanEqual(
-                    field, bookingRequest.getToTime(), bookingRequest.getFromTime())) {
-                throw new RuntimeException("Field is already booked for this time slot");
+            List<Instant[]> taken = takenByField.computeIfAbsent(field.getFieldId(), id -> new ArrayList<>());
+            for (Instant[] slot : taken) {
+                if (slot[0].isBefore(bookingRequest.getToTime()) && slot[1].isAfter(bookingRequest.getFromTime())) {
+                    throw new RuntimeException("Field is already booked for this time slot");
+                }
             }
-            
-            // Create booking
+            taken.add(new Instant[]{bookingRequest.getFromTime(), bookingRequest.getToTime()});
+        }
+        
+        // 4. Write all rows; Hibernate batches the booking_users inserts (bookings use IDENTITY keys, see application.properties)
+        Integer memberLevel = user.getMemberLevel();
+        int discountPercent = userService.getDiscountPercent(memberLevel != null ? memberLevel : 0);
+        float totalAmount = 0;
+        String groupId = UUID.randomUUID().toString();
+        List<Booking> newBookings = new ArrayList<>();
+        for (BookingRequest bookingRequest : requests) {
+            Field field = lockedFields.get(bookingRequest.getFieldId());
             Booking booking = new Booking();
             booking.setUser(user);
             booking.setField(field);
@@ -249,21 +342,22 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
             booking.setToTime(bookingRequest.getToTime());
             booking.setSlots(1);
             booking.setStatus("pending");
+            booking.setBookingGroupId(groupId);
             booking.setCreatedAt(LocalDateTime.now());
-            
-            booking = bookingRepository.save(booking);
-            createdBookings.add(booking);
+            newBookings.add(booking);
             
             // Calculate price for this booking
             long hours = Duration.between(bookingRequest.getFromTime(), bookingRequest.getToTime()).toHours();
             float basePrice = field.getHourlyRate() * hours;
-            Integer memberLevel = user.getMemberLevel();
-            int discountPercent = userService.getDiscountPercent(memberLevel != null ? memberLevel : 0);
             float discountAmount = basePrice * discountPercent / 100;
-            float finalPrice = basePrice - discountAmount;
-            totalAmount += finalPrice;
-            
-            // Create booking user entry for the main user
+            totalAmount += basePrice - discountAmount;
+        }
+        List<Booking> createdBookings = bookingRepository.saveAll(newBookings);
+        Instant holdExpiresAt = slotHoldService.place(createdBookings);
+        
+        // Create booking user entry for the main user
+        List<BookingUser> bookingUsers = new ArrayList<>();
+        for (Booking booking : createdBookings) {
             BookingUser bookingUser = new BookingUser();
             bookingUser.setBookingId(booking.getBookingId());
             bookingUser.setUserId(user.getId());
@@ -271,13 +365,15 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
             bookingUser.setPosition("Goalkeeper"); // Default position
             bookingUser.setBooking(booking);
             bookingUser.setUser(user);
-            bookingUserRepository.save(bookingUser);
+            bookingUsers.add(bookingUser);
+            eventPublisher.publishEvent(new BookingChangedEvent(this, booking));
         }
+        bookingUserRepository.saveAll(bookingUsers);
         
         // Create a single payment for all bookings
         // Use the first booking ID as the primary booking for payment tracking
         Long primaryBookingId = createdBookings.get(0).getBookingId();
-        String payUrl = paymentService.initiatePayPal(primaryBookingId, PaymentPayable.BOOKING, (int) totalAmount, clientType);
+        String payUrl = paymentService.initiatePayPal(primaryBookingId, PaymentPayable.BOOKING, (int) totalAmount, clientType, groupId);
         
         // Store all booking IDs for later confirmation
         List<Long> bookingIds = createdBookings.stream()
@@ -286,62 +382,119 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
         
         Map<String, Object> response = new HashMap<>();
         response.put("primaryBookingId", primaryBookingId);
+        response.put("bookingGroupId", groupId);
         response.put("bookingIds", bookingIds);
         response.put("totalAmount", totalAmount);
         response.put("payUrl", payUrl);
+        response.put("holdExpiresAt", holdExpiresAt);
         return response;
     }
 
+    /**
+     * Captures the PayPal payment of a booking or booking group and confirms the bookings
+     * it pays for, in one transaction. The slot holds are locked and the bookings checked
+     * to be still pending before anything is charged, so a hold the sweeper expired is
+     * never captured and one that is live cannot expire until the bookings are confirmed.
+     * A capture whose confirmation does not commit is refunded.
+     *
+     * @throws SlotHoldExpiredException if the bookings were already cancelled; nothing was captured
+     */
+    @Transactional
+    public List<Booking> confirmPayPalBookingPayment(Payment payment) {
+        Long primaryBookingId = payment.getPayableId();
+        Booking primaryBooking = bookingRepository.findById(primaryBookingId)
+                .orElseThrow(() -> new RuntimeException("Primary booking not found"));
+        String groupId = primaryBooking.getBookingGroupId();
+        List<Long> candidateIds = groupId != null
+                ? bookingRepository.findPendingIdsByGroup(groupId)
+                : List.of(primaryBookingId);
+        slotHoldService.lock(candidateIds);
+        // A sweep that committed before the lock was taken has cancelled them
+        if (candidateIds.isEmpty() || bookingRepository.findPendingIds(candidateIds).isEmpty()) {
+            throw new SlotHoldExpiredException("Slot hold expired before payment of booking " + primaryBookingId);
+        }
+
+        PayPalCaptureResponse capture = paymentService.capturePayPal(payment);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    refundCapture(payment, capture);
+                }
+            }
+        });
+
+        List<Booking> confirmedBookings = confirmBatchPayment(primaryBookingId);
+        if (confirmedBookings.isEmpty()) {
+            throw new PayPalPaymentException("No pending booking left to confirm for payment " + payment.getPaymentId());
+        }
+        return confirmedBookings;
+    }
+
+    private void refundCapture(Payment payment, PayPalCaptureResponse capture) {
+        try {
+            payPalPaymentService.refundCapture(capture);
+            meterRegistry.counter("payment.paypal.refunds", "outcome", "refunded").increment();
+            logger.warn("Refunded payment {} after its bookings could not be confirmed", payment.getPaymentId());
+        } catch (Exception e) {
+            // Money was taken for bookings that do not exist; alert on this counter
+            meterRegistry.counter("payment.paypal.refunds", "outcome", "failed").increment();
+            logger.error("Failed to refund payment {} (order {}) after its bookings could not be confirmed; refund it by hand",
+                    payment.getPaymentId(), capture.getOrderId(), e);
+        }
+    }
+
+    /**
+     * Confirms every booking paid by the primary booking's payment. Siblings are found
+     * through the booking group id, so the cost depends on the size of the group only,
+     * not on the user's booking history. Statuses change with one bulk update; payments
+     * and revenue rows of the siblings are written with saveAll.
+     */
     @Transactional
     public List<Booking> confirmBatchPayment(Long primaryBookingId) {
         System.out.println("=== CONFIRM BATCH PAYMENT DEBUG START ===");
         System.out.println("Primary Booking ID: " + primaryBookingId);
         
-        // Find all bookings that were created in the same batch
         Booking primaryBooking = bookingRepository.findById(primaryBookingId)
                 .orElseThrow(() -> new RuntimeException("Primary booking not found"));
+        String groupId = primaryBooking.getBookingGroupId();
         
-        System.out.println("Primary booking found - User: " + primaryBooking.getUser().getFullName());
-        
-        // Find all pending bookings for the same user
-        List<Booking> userBookings = bookingRepository.findByUserId(primaryBooking.getUser().getId());
-        
-        // Filter for pending bookings created around the same time (within 5 minutes)
-        LocalDateTime cutoffTime = primaryBooking.getCreatedAt().minusMinutes(5);
-        List<Booking> batchBookings = userBookings.stream()
-                .filter(booking -> "pending".equals(booking.getStatus()))
-                .filter(booking -> booking.getCreatedAt().isAfter(cutoffTime))
-                .collect(Collectors.toList());
+        // Bookings made before groups existed are confirmed on their own
+        List<Long> pendingIds = groupId != null
+                ? bookingRepository.findPendingIdsByGroup(groupId)
+                : ("pending".equals(primaryBooking.getStatus()) ? List.of(primaryBookingId) : List.of());
+        System.out.println("Found " + pendingIds.size() + " bookings in batch " + groupId);
+        if (pendingIds.isEmpty()) {
+            return List.of();
+        }
         
-        System.out.println("Found " + batchBookings.size() + " bookings in batch");
+        // Convert the holds before flipping statuses, see SlotHoldService.convert
+        slotHoldService.convert(pendingIds);
+        bookingRepository.confirmPendingBookings(pendingIds);
+        List<Booking> confirmedBookings = bookingRepository.findAllById(pendingIds);
         
-        // Get the primary payment to calculate individual booking amounts
+        // Get the primary payment to derive the sibling payment records
         List<Payment> primaryPayments = paymentRepository.findByPayableIdAndPayableType(primaryBookingId, PaymentPayable.BOOKING);
         Payment primaryPayment = primaryPayments.isEmpty() ? null : primaryPayments.get(0);
         
-        // Confirm all bookings in the batch
-        List<Booking> confirmedBookings = new ArrayList<>();
-        for (int i = 0; i < batchBookings.size(); i++) {
-            Booking booking = batchBookings.get(i);
-            booking.setStatus("confirmed");
-            Booking savedBooking = bookingRepository.save(booking);
-            confirmedBookings.add(savedBooking);
-            
-            System.out.println("Confirmed booking ID: " + savedBooking.getBookingId() + " for field: " + savedBooking.getField().getName());
-            
-            // Create individual payment record for each booking (except primary which already has one)
-            if (!booking.getBookingId().equals(primaryBookingId) && primaryPayment != null) {
-                // Calculate individual booking amount
+        User user = primaryBooking.getUser();
+        Integer memberLevel = user.getMemberLevel();
+        int discountPercent = userService.getDiscountPercent(memberLevel != null ? memberLevel : 0);
+        
+        // Individual payment record for each sibling (the primary already has one)
+        List<Booking> siblings = new ArrayList<>();
+        List<Payment> siblingPayments = new ArrayList<>();
+        if (primaryPayment != null) {
+            for (Booking booking : confirmedBookings) {
+                if (booking.getBookingId().equals(primaryBookingId)) {
+                    continue;
+                }
                 long hours = Duration.between(booking.getFromTime(), booking.getToTime()).toHours();
                 float basePrice = booking.getField().getHourlyRate() * hours;
-                Integer memberLevel = booking.getUser().getMemberLevel();
-                int discountPercent = userService.getDiscountPercent(memberLevel != null ? memberLevel : 0);
                 float discountAmount = basePrice * discountPercent / 100;
-                int individualAmount = (int) (basePrice - discountAmount);
                 
-                // Create payment record for this booking
                 Payment individualPayment = new Payment();
-                individualPayment.setTotal(individualAmount);
+                individualPayment.setTotal((int) (basePrice - discountAmount));
                 individualPayment.setMethod(primaryPayment.getMethod());
                 individualPayment.setStatus(PaymentStatus.SUCCESS);
                 individualPayment.setCreatedAt(LocalDateTime.now());
@@ -349,42 +502,57 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
                 individualPayment.setTransactionId(primaryPayment.getTransactionId() + "_" + booking.getBookingId());
                 individualPayment.setPayableId(booking.getBookingId());
                 individualPayment.setPayableType(PaymentPayable.BOOKING);
+                individualPayment.setBookingGroupId(groupId);
                 individualPayment.calculateCommission();
-                
-                paymentRepository.save(individualPayment);
-                
-                // Create admin revenue record for this payment
-                try {
-                    AdminRevenue revenue = new AdminRevenue();
-                    revenue.setPaymentId(individualPayment.getPaymentId());
-                    revenue.setBookingId(booking.getBookingId());
-                    revenue.setFieldId(booking.getField().getFieldId());
-                    revenue.setOwnerId(booking.getField().getLocation().getOwner().getOwnerId());
-                    revenue.setCommissionAmount(individualPayment.getAdminCommission());
-                    revenue.setBookingAmount(individualPayment.getTotal());
-                    revenue.setOwnerAmount(individualPayment.getOwnerAmount());
-                    revenue.setCommissionRate(individualPayment.getCommissionRate());
-                    revenue.setCreatedAt(LocalDateTime.now());
-                    revenue.setBookingDate(LocalDateTime.ofInstant(booking.getFromTime(), java.time.ZoneId.systemDefault()));
-                    revenue.setFieldName(booking.getField().getName());
-                    revenue.setLocationName(booking.getField().getLocation().getName());
-                    
-                    adminRevenueRepository.save(revenue);
-                    System.out.println("Created payment and admin revenue record for booking: " + booking.getBookingId());
-                } catch (Exception e) {
-                    System.err.println("Failed to create admin revenue record for booking " + booking.getBookingId() + ": " + e.getMessage());
-                }
+                siblings.add(booking);
+                siblingPayments.add(individualPayment);
+            }
+        }
+        siblingPayments = paymentRepository.saveAll(siblingPayments);
+        
+        // Admin revenue record for each sibling payment
+        List<AdminRevenue> revenues = new ArrayList<>();
+        for (int i = 0; i < siblings.size(); i++) {
+            Booking booking = siblings.get(i);
+            Payment individualPayment = siblingPayments.get(i);
+            try {
+                AdminRevenue revenue = new AdminRevenue();
+                revenue.setPaymentId(individualPayment.getPaymentId());
+                revenue.setBookingId(booking.getBookingId());
+                revenue.setFieldId(booking.getField().getFieldId());
+                revenue.setOwnerId(booking.getField().getLocation().getOwner().getOwnerId());
+                revenue.setCommissionAmount(individualPayment.getAdminCommission());
+                revenue.setBookingAmount(individualPayment.getTotal());
+                revenue.setOwnerAmount(individualPayment.getOwnerAmount());
+                revenue.setCommissionRate(individualPayment.getCommissionRate());
+                revenue.setCreatedAt(LocalDateTime.now());
+                revenue.setBookingDate(LocalDateTime.ofInstant(booking.getFromTime(), ZoneId.systemDefault()));
+                revenue.setFieldName(booking.getField().getName());
+                revenue.setLocationName(booking.getField().getLocation().getName());
+                revenues.add(revenue);
+            } catch (Exception e) {
+                System.err.println("Failed to create admin revenue record for booking " + booking.getBookingId() + ": " + e.getMessage());
             }
+        }
+        adminRevenueRepository.saveAll(revenues);
+        
+        // Update user booking count and member level once for the whole batch
+        int updatedBookingCount = user.getBookingCount() + confirmedBookings.size();
+        user.setBookingCount(updatedBookingCount);
+        int newLevel = userService.calculateLevel(updatedBookingCount);
+        user.setMemberLevel(newLevel);
+        userRepository.save(user);
+        System.out.println("Updated user booking count to: " + updatedBookingCount + ", level: " + newLevel);
+        
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        for (Booking savedBooking : confirmedBookings) {
+            eventPublisher.publishEvent(new BookingChangedEvent(this, savedBooking));
             
             // Create notification for field owner
             try {
                 User fieldOwner = savedBooking.getField().getLocation().getOwner().getUser();
-                System.out.println("[confirmBatchPayment] Field owner: " + fieldOwner.getFullName());
-                
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
                 String bookingTime = savedBooking.getFromTime().atZone(ZoneId.systemDefault()).format(formatter) + 
                                    " - " + savedBooking.getToTime().atZone(ZoneId.systemDefault()).format(formatter);
-                System.out.println("[confirmBatchPayment] Booking time: " + bookingTime);
                 
                 notificationService.createBookingNotificationForOwner(
                     fieldOwner,
@@ -393,26 +561,13 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
                     bookingTime,
                     savedBooking.getBookingId()
                 );
-                System.out.println("[confirmBatchPayment] Notification created successfully for booking: " + savedBooking.getBookingId());
             } catch (Exception e) {
                 System.err.println("[confirmBatchPayment] Failed to send booking notification to owner for booking " + savedBooking.getBookingId() + ": " + e.getMessage());
                 e.printStackTrace();
             }
             
-            // Update user booking count and member level for the first booking only
-            if (booking.getBookingId().equals(primaryBookingId)) {
-                User user = booking.getUser();
-                int updatedBookingCount = user.getBookingCount() + batchBookings.size();
-                user.setBookingCount(updatedBookingCount);
-                int newLevel = userService.calculateLevel(updatedBookingCount);
-                user.setMemberLevel(newLevel);
-                userRepository.save(user);
-                System.out.println("Updated user booking count to: " + updatedBookingCount + ", level: " + newLevel);
-            }
-            
             // Publish booking confirmed event
-            BookingConfirmedEvent event = new BookingConfirmedEvent(this, savedBooking);
-            eventPublisher.publishEvent(event);
+            eventPublisher.publishEvent(new BookingConfirmedEvent(this, savedBooking));
         }
         
         System.out.println("=== CONFIRM BATCH PAYMENT DEBUG END ===");
@@ -426,6 +581,8 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
         System.out.println("Token: " + token);
         System.out.println("Payer ID: " + payerId);
         
+        // Convert the hold before reading the booking, see SlotHoldService.convert
+        slotHoldService.convert(List.of(bookingId));
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
         if (!"pending".equals(booking.getStatus())) {
@@ -449,6 +606,7 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
         // Save user first to update booking count and level
         userRepository.save(user);
         Booking savedBooking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(this, savedBooking));
         System.out.println("Booking saved with status: " + savedBooking.getStatus());
 
         // Send notification to field owner
@@ -550,6 +708,8 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
         booking.setStatus("canceled");
         bookingRepository.save(booking);
         bookingUserRepository.deleteByBookingId(bookingId);
+        slotHoldService.release(List.of(bookingId));
+        eventPublisher.publishEvent(new BookingChangedEvent(this, booking));
         return booking;
     }
 
@@ -572,16 +732,18 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
                 throw new RuntimeException("Booking ID not provided in callback");
             }
 
-            // Capture the payment through PayPal
-            payPalPaymentService.capturePayment(token);
-
-            // Update booking status
+            // Convert the hold before reading the booking, see SlotHoldService.convert
+            slotHoldService.convert(List.of(bookingId));
             Booking booking = bookingRepository.findById(bookingId)
                     .orElseThrow(() -> new RuntimeException("Booking not found"));
 
+            // Checked before capturing so an expired hold is never charged
             if (!"pending".equals(booking.getStatus())) {
                 throw new RuntimeException("Booking is not in pending state");
             }
+
+            // Capture the payment through PayPal
+            payPalPaymentService.capturePayment(token);
             User user = booking.getUser();
             int updatedBookingCount = user.getBookingCount() + 1;
             user.setBookingCount(updatedBookingCount);
@@ -594,6 +756,7 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
              userRepository.save(user);
 
             Booking savedBooking = bookingRepository.save(booking);
+            eventPublisher.publishEvent(new BookingChangedEvent(this, savedBooking));
 
             // Send notification to field owner
             try {
@@ -745,8 +908,14 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
         }
         
         booking.setStatus(status);
+        if (!"pending".equals(status)) {
+            // Resolved by the owner, so the booking no longer expires with its hold
+            slotHoldService.release(List.of(bookingId));
+        }
         
-        return bookingRepository.save(booking);
+        Booking savedBooking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(this, savedBooking));
+        return savedBooking;
     }
 
     public List<Booking> getRelatedBatchBookings(Long bookingId) {
@@ -755,20 +924,11 @@ String payUrl = paymentService.initiatePayPal(booking.getBookingId(), PaymentPay
             return List.of();
         }
         
-        // Find all bookings by the same user created within 1 minute of this booking
-        // This is more precise for batch bookings created together
-        LocalDateTime createdTime = booking.getCreatedAt();
-        LocalDateTime startWindow = createdTime.minusMinutes(1); // 1 minute before
-        LocalDateTime endWindow = createdTime.plusMinutes(1);   // 1 minute after
-        
-        List<Booking> relatedBookings = bookingRepository.findByUserIdAndCreatedAtBetween(
-            booking.getUser().getId(), startWindow, endWindow);
-        
-        // Filter to only confirmed bookings and sort by creation time
-        return relatedBookings.stream()
-            .filter(b -> "confirmed".equals(b.getStatus()))
-            .sorted((b1, b2) -> b1.getCreatedAt().compareTo(b2.getCreatedAt()))
-            .collect(Collectors.toList());
+        // Bookings made before groups existed have no siblings
+        if (booking.getBookingGroupId() == null) {
+            return "confirmed".equals(booking.getStatus()) ? List.of(booking) : List.of();
+        }
+        return bookingRepository.findByBookingGroupIdAndStatusOrderByCreatedAtAsc(booking.getBookingGroupId(), "confirmed");
     }
 
 }
\ No newline at end of file
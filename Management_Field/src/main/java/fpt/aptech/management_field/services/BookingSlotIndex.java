@@ -0,0 +1,166 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.BookingChangedEvent;
+import fpt.aptech.management_field.models.Booking;
+import fpt.aptech.management_field.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of booked time ranges, kept per field and per day.
+ * <p>
+ * Availability checks are answered from memory instead of querying the bookings
+ * table once per field. The index is warmed at startup and kept current from
+ * {@link BookingChangedEvent}s once the surrounding transaction has committed.
+ * Ranges that start before the loaded horizon fall back to the database.
+ */
+@Service
+public class BookingSlotIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookingSlotIndex.class);
+
+    // Past days kept in memory before the nightly trim drops them
+    private static final int RETENTION_DAYS = 1;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    // fieldId -> day -> booked slots touching that day; each day map is guarded by its own monitor
+    private final Map<Long, TreeMap<LocalDate, List<BookedSlot>>> slotsByField = new ConcurrentHashMap<>();
+    private final Map<Long, BookedSlot> slotsByBooking = new ConcurrentHashMap<>();
+
+    // Earliest instant the index is authoritative for; Instant.MAX until warm-up completes
+    private volatile Instant horizon = Instant.MAX;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant since = LocalDate.now(ZoneId.systemDefault()).minusDays(RETENTION_DAYS)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+        List<Object[]> rows = bookingRepository.findActiveSlotsEndingAfter(since);
+        for (Object[] row : rows) {
+            put(new BookedSlot((Long) row[0], (Long) row[1], (Instant) row[2], (Instant) row[3]));
+        }
+        horizon = since;
+        logger.info("Booking slot index loaded {} slots across {} fields", rows.size(), slotsByField.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.getBooking();
+        if (booking.getBookingId() == null) {
+            return;
+        }
+        remove(booking.getBookingId());
+        if (holdsSlot(booking.getStatus()) && booking.getField() != null
+                && booking.getFromTime() != null && booking.getToTime() != null) {
+            put(new BookedSlot(booking.getBookingId(), booking.getField().getFieldId(),
+                    booking.getFromTime(), booking.getToTime()));
+        }
+    }
+
+    /**
+     * True when no active booking on the field overlaps [fromTime, toTime).
+     */
+    public boolean isAvailable(Long fieldId, Instant fromTime, Instant toTime) {
+        if (fromTime.isBefore(horizon)) {
+            return !bookingRepository.existsActiveBookingForField(fieldId, fromTime, toTime);
+        }
+        TreeMap<LocalDate, List<BookedSlot>> days = slotsByField.get(fieldId);
+        if (days == null) {
+            return true;
+        }
+        synchronized (days) {
+            for (List<BookedSlot> slots : days.subMap(dayOf(fromTime), true, lastDayOf(fromTime, toTime), true).values()) {
+                for (BookedSlot slot : slots) {
+                    if (slot.overlaps(fromTime, toTime)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    public static boolean holdsSlot(String status) {
+        return !"cancelled".equals(status) && !"canceled".equals(status);
+    }
+
+    @Scheduled(cron = "0 5 0 * * ?") // Shortly after midnight
+    public void trimPastDays() {
+        LocalDate cutoff = LocalDate.now(ZoneId.systemDefault()).minusDays(RETENTION_DAYS);
+        for (TreeMap<LocalDate, List<BookedSlot>> days : slotsByField.values()) {
+            synchronized (days) {
+                days.headMap(cutoff).clear();
+            }
+        }
+        slotsByBooking.values().removeIf(slot -> dayOf(slot.toTime()).isBefore(cutoff));
+        if (horizon != Instant.MAX) {
+            horizon = cutoff.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+    }
+
+    private void put(BookedSlot slot) {
+        if (!slot.toTime().isAfter(slot.fromTime())) {
+            return;
+        }
+        slotsByBooking.put(slot.bookingId(), slot);
+        TreeMap<LocalDate, List<BookedSlot>> days = slotsByField.computeIfAbsent(slot.fieldId(), id -> new TreeMap<>());
+        synchronized (days) {
+            for (LocalDate day = dayOf(slot.fromTime()); !day.isAfter(lastDayOf(slot.fromTime(), slot.toTime())); day = day.plusDays(1)) {
+                days.computeIfAbsent(day, d -> new ArrayList<>()).add(slot);
+            }
+        }
+    }
+
+    private void remove(Long bookingId) {
+        BookedSlot slot = slotsByBooking.remove(bookingId);
+        if (slot == null) {
+            return;
+        }
+        TreeMap<LocalDate, List<BookedSlot>> days = slotsByField.get(slot.fieldId());
+        if (days == null) {
+            return;
+        }
+        synchronized (days) {
+            Iterator<List<BookedSlot>> it = days.subMap(dayOf(slot.fromTime()), true, lastDayOf(slot.fromTime(), slot.toTime()), true)
+                    .values().iterator();
+            while (it.hasNext()) {
+                List<BookedSlot> slots = it.next();
+                slots.removeIf(s -> s.bookingId().equals(bookingId));
+                if (slots.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static LocalDate dayOf(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    // Ranges are half-open, so a booking ending exactly at midnight does not touch the next day
+    private static LocalDate lastDayOf(Instant fromTime, Instant toTime) {
+        return toTime.isAfter(fromTime) ? dayOf(toTime.minusNanos(1)) : dayOf(fromTime);
+    }
+
+    public record BookedSlot(Long bookingId, Long fieldId, Instant fromTime, Instant toTime) {
+        boolean overlaps(Instant from, Instant to) {
+            return fromTime.isBefore(to) && toTime.isAfter(from);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.payload.dtos.AiRequestV2DTO;
+import fpt.aptech.management_field.payload.dtos.AiResponseV2DTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls the intent model behind the chatbot without holding a request thread.
+ * <p>
+ * Each call runs on its own virtual thread and completes with null once
+ * {@code chatbot.ai.deadline-ms} has passed, so the caller can answer from its local
+ * fallback instead of waiting. The HTTP read timeout sits just past the deadline, which
+ * bounds how long an abandoned call keeps its connection.
+ */
+@Service
+public class ChatbotAiClient {
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration deadline;
+    private final String predictUrl;
+
+    public ChatbotAiClient(RestTemplateBuilder builder,
+                           @Value("${ai.service.url:http://localhost:5002}") String aiServiceUrl,
+                           @Value("${ai.service.predict.endpoint:/predict}") String predictEndpoint,
+                           @Value("${chatbot.ai.deadline-ms:3000}") long deadlineMs) {
+        this.deadline = Duration.ofMillis(deadlineMs);
+        this.predictUrl = aiServiceUrl + predictEndpoint;
+        this.restTemplate = builder
+                .connectTimeout(Duration.ofMillis(Math.min(deadlineMs, 2000)))
+                .readTimeout(deadline.plusSeconds(1))
+                .build();
+    }
+
+    /**
+     * Intent and entities for the message, or null when the model did not answer in time.
+     * Fails exceptionally when the call itself fails before the deadline.
+     */
+    public CompletableFuture<AiResponseV2DTO> predict(AiRequestV2DTO request) {
+        return CompletableFuture
+                .supplyAsync(() -> restTemplate.postForObject(predictUrl, request, AiResponseV2DTO.class), executor)
+                .completeOnTimeout(null, deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Virtual-thread executor for work that follows a prediction, so it never runs on
+     * the timer thread that enforces the deadline.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,327 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.events.SearchableEntityChangedEvent;
+import fpt.aptech.management_field.models.FieldType;
+import fpt.aptech.management_field.repositories.FieldTypeRepository;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the field type and location names the chatbot extracts from a message
+ * against the names that actually exist.
+ * <p>
+ * Each vocabulary is held in a BK-tree keyed by Levenshtein distance, so a lookup only
+ * compares the query with the few names whose distance can fall within the similarity
+ * threshold. Distances are computed with a banded, early-exiting Levenshtein over a
+ * per-thread scratch buffer. A lookup scores every matching name once; callers then
+ * score their candidates with map lookups instead of recomputing distances.
+ * <p>
+ * Vocabularies are rebuilt off the request path: shortly after a local write, and
+ * periodically to pick up writes made through other instances.
+ */
+@Service
+public class ChatbotEntityMatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotEntityMatcher.class);
+
+    public static final double FIELD_TYPE_THRESHOLD = 0.6;
+    public static final double LOCATION_THRESHOLD = 0.7;
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[64]);
+
+    @Autowired
+    private FieldTypeRepository fieldTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private volatile Vocabulary fieldTypes = new Vocabulary(List.of());
+    private volatile Vocabulary locations = new Vocabulary(List.of());
+    private volatile boolean fieldTypesDirty;
+    private volatile boolean locationsDirty;
+    private volatile Instant builtAt = Instant.EPOCH;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        builtAt = Instant.now();
+        rebuildFieldTypes();
+        rebuildLocations();
+    }
+
+    @Scheduled(fixedDelay = 5000) // 5 seconds
+    public void refresh() {
+        if (builtAt.plus(REFRESH_INTERVAL).isBefore(Instant.now())) {
+            rebuild();
+            return;
+        }
+        if (fieldTypesDirty) {
+            rebuildFieldTypes();
+        }
+        if (locationsDirty) {
+            rebuildLocations();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSearchableEntityChanged(SearchableEntityChangedEvent event) {
+        if (event.getEntityType() == FieldType.class) {
+            fieldTypesDirty = true;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        locationsDirty = true;
+    }
+
+    /**
+     * Field type names similar to the query, or a match-all result when the query is null.
+     */
+    public Matches matchFieldTypes(String query) {
+        return fieldTypes.match(query, FIELD_TYPE_THRESHOLD);
+    }
+
+    /**
+     * Location names similar to the query, or a match-all result when the query is null.
+     */
+    public Matches matchLocations(String query) {
+        return locations.match(query, LOCATION_THRESHOLD);
+    }
+
+    private synchronized void rebuildFieldTypes() {
+        fieldTypesDirty = false;
+        fieldTypes = new Vocabulary(fieldTypeRepository.findDistinctNames());
+        logger.info("Indexed {} field type names for the chatbot", fieldTypes.size());
+    }
+
+    private synchronized void rebuildLocations() {
+        locationsDirty = false;
+        locations = new Vocabulary(locationRepository.findDistinctNames());
+        logger.info("Indexed {} location names for the chatbot", locations.size());
+    }
+
+    /**
+     * Levenshtein distance between the two strings, or {@code max + 1} as soon as it is
+     * known to exceed {@code max}. Only the diagonal band of width {@code 2 * max + 1} is
+     * computed, in two rows of a reused buffer.
+     */
+    static int boundedDistance(String s1, String s2, int max) {
+        String shorter = s1.length() <= s2.length() ? s1 : s2;
+        String longer = shorter == s1 ? s2 : s1;
+        int n = shorter.length();
+        int m = longer.length();
+        if (m - n > max) {
+            return max + 1;
+        }
+        if (n == 0) {
+            return m;
+        }
+
+        int[] buffer = SCRATCH.get();
+        if (buffer.length < 2 * (n + 1)) {
+            buffer = new int[2 * (n + 1)];
+            SCRATCH.set(buffer);
+        }
+        int previous = 0;
+        int current = n + 1;
+        for (int j = 0; j <= n; j++) {
+            buffer[previous + j] = j;
+        }
+        int outside = max + 1;
+        for (int i = 1; i <= m; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(n, i + max);
+            buffer[current + from - 1] = from == 1 ? i : outside;
+            int rowMin = buffer[current + from - 1];
+            char c = longer.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = shorter.charAt(j - 1) == c ? 0 : 1;
+                int value = Math.min(buffer[previous + j - 1] + cost,
+                        Math.min(buffer[previous + j], buffer[current + j - 1]) + 1);
+                buffer[current + j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            // The next row reads one cell past this row's band
+            if (to < n) {
+                buffer[current + to + 1] = outside;
+            }
+            if (rowMin > max) {
+                return outside;
+            }
+            int swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(buffer[previous + n], outside);
+    }
+
+    static double similarity(String s1, String s2, int distance) {
+        int maxLength = Math.max(s1.length(), s2.length());
+        return maxLength == 0 ? 1.0 : 1.0 - (double) distance / maxLength;
+    }
+
+    /**
+     * Names matching one query, with their similarity to it.
+     */
+    public static final class Matches {
+        private final Map<String, Double> similarities;
+
+        private Matches(Map<String, Double> similarities) {
+            this.similarities = similarities;
+        }
+
+        public boolean matchesAll() {
+            return similarities == null;
+        }
+
+        public boolean matches(String name) {
+            return similarities == null || similarities.containsKey(SearchIndexService.fold(name));
+        }
+
+        /**
+         * Similarity of the name to the query, 0 when it does not match.
+         */
+        public double similarity(String name) {
+            if (similarities == null) {
+                return 0.0;
+            }
+            return similarities.getOrDefault(SearchIndexService.fold(name), 0.0);
+        }
+
+        public Set<String> names() {
+            return similarities == null ? Set.of() : similarities.keySet();
+        }
+    }
+
+    /**
+     * Folded names of one kind of entity, in a BK-tree, with the names containing each word.
+     */
+    private static final class Vocabulary {
+        private final Node root;
+        private final List<String> terms;
+        // word -> names containing it, for containment matches
+        private final Map<String, Set<String>> termsByWord = new HashMap<>();
+
+        Vocabulary(Collection<String> names) {
+            Set<String> folded = new LinkedHashSet<>();
+            for (String name : names) {
+                String term = SearchIndexService.fold(name);
+                if (!term.isEmpty()) {
+                    folded.add(term);
+                }
+            }
+            this.terms = List.copyOf(folded);
+            for (String term : terms) {
+                for (String word : term.split(" ")) {
+                    termsByWord.computeIfAbsent(word, w -> new LinkedHashSet<>()).add(term);
+                }
+            }
+            Node tree = null;
+            for (String term : terms) {
+                if (tree == null) {
+                    tree = new Node(term);
+                } else {
+                    tree.insert(term);
+                }
+            }
+            this.root = tree;
+        }
+
+        int size() {
+            return terms.size();
+        }
+
+        Matches match(String query, double threshold) {
+            if (query == null) {
+                return new Matches(null);
+            }
+            String search = SearchIndexService.fold(query);
+            Map<String, Double> result = new HashMap<>();
+            if (search.isEmpty() || root == null) {
+                return new Matches(result);
+            }
+
+            // similarity > threshold means d < (1 - threshold) * max(|q|, |t|), and |t| <= |q| + d
+            int radius = (int) Math.ceil((1 - threshold) * search.length() / threshold) - 1;
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                // Past maxChild + radius no child can be within reach, so the exact value is not needed
+                int distance = boundedDistance(search, node.term, Math.max(radius, node.maxChild + radius));
+                if (distance <= radius && similarity(search, node.term, distance) > threshold) {
+                    result.put(node.term, similarity(search, node.term, distance));
+                }
+                if (node.children != null) {
+                    for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                        if (Math.abs(child.getKey() - distance) <= radius) {
+                            pending.push(child.getValue());
+                        }
+                    }
+                }
+            }
+
+            // Containment matches regardless of edit distance ("bong da" in "san bong da mini"),
+            // among the names sharing a word with the query
+            for (String word : search.split(" ")) {
+                for (String term : termsByWord.getOrDefault(word, Set.of())) {
+                    if (!result.containsKey(term) && (term.contains(search) || search.contains(term))) {
+                        // One contains the other, so the distance is the length difference
+                        result.put(term, similarity(search, term, Math.abs(term.length() - search.length())));
+                    }
+                }
+            }
+            return new Matches(result);
+        }
+    }
+
+    private static final class Node {
+        private final String term;
+        private Map<Integer, Node> children;
+        private int maxChild;
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        void insert(String term) {
+            Node node = this;
+            while (true) {
+                int distance = boundedDistance(term, node.term, Math.max(term.length(), node.term.length()));
+                if (distance == 0) {
+                    return;
+                }
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    node.children.put(distance, new Node(term));
+                    node.maxChild = Math.max(node.maxChild, distance);
+                    return;
+                }
+                node = child;
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.events.SearchableEntityChangedEvent;
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.payload.dtos.TournamentDto;
+import fpt.aptech.management_field.repositories.FieldRepository;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import fpt.aptech.management_field.repositories.TournamentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything the chatbot answers from: fields with their type, location and price,
+ * price statistics per type and per location, locations and tournaments.
+ * <p>
+ * Held as one immutable {@link Snapshot} that is rebuilt off the request path and
+ * swapped in whole, so a conversation turn reads a consistent view without touching
+ * the database. Field, field type, tournament and location writes mark the snapshot
+ * stale; it is rebuilt a few seconds later, and periodically to pick up writes made
+ * by other instances.
+ */
+@Service
+public class ChatbotKnowledgeService {
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotKnowledgeService.class);
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of(), List.of(), Instant.EPOCH);
+    private volatile boolean dirty = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<FieldEntry> fields = new ArrayList<>();
+        for (Field field : fieldRepository.findAllForSearch()) {
+            // Fields without a type cannot be quoted by type and are left out
+            if (field.getType() == null || field.getHourlyRate() == null) {
+                continue;
+            }
+            fields.add(new FieldEntry(field.getFieldId(), field.getType().getName(), field.getType().getMaxCapacity(),
+                    field.getLocation().getLocationId(), field.getLocation().getName(), field.getLocation().getAddress(),
+                    field.getHourlyRate()));
+        }
+        List<LocationEntry> locations = new ArrayList<>();
+        for (Object[] row : locationRepository.findMapRows()) {
+            locations.add(new LocationEntry((Long) row[0], (String) row[1], (String) row[3]));
+        }
+        List<TournamentDto> tournaments = tournamentRepository.findAllOrderByStartDate();
+
+        snapshot = new Snapshot(fields, locations, tournaments, Instant.now());
+        logger.info("Built chatbot knowledge snapshot: {} fields, {} locations, {} tournaments",
+                fields.size(), locations.size(), tournaments.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSearchableEntityChanged(SearchableEntityChangedEvent event) {
+        dirty = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelay = 5000) // 5 seconds
+    public void refresh() {
+        if (dirty || snapshot.builtAt().plus(REFRESH_INTERVAL).isBefore(Instant.now())) {
+            dirty = false;
+            rebuild();
+        }
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * A field as the chatbot quotes it.
+     */
+    public record FieldEntry(Long fieldId, String typeName, Integer maxCapacity, Long locationId,
+                             String locationName, String address, double hourlyRate) {
+    }
+
+    public record LocationEntry(Long locationId, String name, String address) {
+    }
+
+    /**
+     * Hourly rate statistics of a group of fields.
+     */
+    public record PriceStats(int count, double min, double max, double sum) {
+        static PriceStats of(double price) {
+            return new PriceStats(1, price, price, price);
+        }
+
+        public PriceStats merge(PriceStats other) {
+            return new PriceStats(count + other.count, Math.min(min, other.min), Math.max(max, other.max), sum + other.sum);
+        }
+
+        public double average() {
+            return sum / count;
+        }
+    }
+
+    /**
+     * Immutable view of the catalogue at one point in time. Tournament DTOs are shared
+     * between callers and must not be modified.
+     */
+    public static final class Snapshot {
+        private final List<FieldEntry> fields;
+        private final Map<Long, FieldEntry> fieldsById;
+        // Folded type name -> fields, and folded location name -> fields
+        private final Map<String, List<FieldEntry>> fieldsByType;
+        private final Map<String, List<FieldEntry>> fieldsByLocation;
+        // Type name -> prices, cheapest average first
+        private final Map<String, PriceStats> pricesByType;
+        // Location id -> type name -> prices
+        private final Map<Long, Map<String, PriceStats>> pricesByLocation;
+        private final List<LocationEntry> locations;
+        private final List<TournamentDto> tournaments;
+        private final Map<Long, TournamentDto> tournamentsById;
+        private final Instant builtAt;
+
+        Snapshot(List<FieldEntry> fields, List<LocationEntry> locations, List<TournamentDto> tournaments, Instant builtAt) {
+            this.fields = List.copyOf(fields);
+            this.locations = List.copyOf(locations);
+            this.tournaments = List.copyOf(tournaments);
+            this.builtAt = builtAt;
+
+            Map<Long, FieldEntry> byId = new HashMap<>();
+            Map<String, List<FieldEntry>> byType = new HashMap<>();
+            Map<String, List<FieldEntry>> byLocation = new HashMap<>();
+            Map<String, PriceStats> typePrices = new HashMap<>();
+            Map<Long, Map<String, PriceStats>> locationPrices = new HashMap<>();
+            for (FieldEntry field : fields) {
+                byId.put(field.fieldId(), field);
+                byType.computeIfAbsent(SearchIndexService.fold(field.typeName()), k -> new ArrayList<>()).add(field);
+                byLocation.computeIfAbsent(SearchIndexService.fold(field.locationName()), k -> new ArrayList<>()).add(field);
+                typePrices.merge(field.typeName(), PriceStats.of(field.hourlyRate()), PriceStats::merge);
+                locationPrices.computeIfAbsent(field.locationId(), k -> new HashMap<>())
+                        .merge(field.typeName(), PriceStats.of(field.hourlyRate()), PriceStats::merge);
+            }
+            Map<String, PriceStats> sortedTypePrices = new LinkedHashMap<>();
+            typePrices.entrySet().stream()
+                    .sorted(Comparator.comparingDouble(entry -> entry.getValue().average()))
+                    .forEachOrdered(entry -> sortedTypePrices.put(entry.getKey(), entry.getValue()));
+            Map<Long, TournamentDto> tournamentIndex = new HashMap<>();
+            for (TournamentDto tournament : tournaments) {
+                tournamentIndex.put(tournament.getTournamentId(), tournament);
+            }
+
+            this.fieldsById = byId;
+            this.fieldsByType = byType;
+            this.fieldsByLocation = byLocation;
+            this.pricesByType = sortedTypePrices;
+            this.pricesByLocation = locationPrices;
+            this.tournamentsById = tournamentIndex;
+        }
+
+        public List<FieldEntry> fields() {
+            return fields;
+        }
+
+        public FieldEntry field(Long fieldId) {
+            return fieldsById.get(fieldId);
+        }
+
+        /**
+         * Fields whose folded type name is one of the given names.
+         */
+        public List<FieldEntry> fieldsWithType(Collection<String> foldedTypeNames) {
+            return group(fieldsByType, foldedTypeNames);
+        }
+
+        /**
+         * Fields whose folded location name is one of the given names.
+         */
+        public List<FieldEntry> fieldsAtLocation(Collection<String> foldedLocationNames) {
+            return group(fieldsByLocation, foldedLocationNames);
+        }
+
+        public Map<String, PriceStats> pricesByType() {
+            return pricesByType;
+        }
+
+        /**
+         * Prices per type name over the given locations together.
+         */
+        public Map<String, PriceStats> pricesAtLocations(Collection<Long> locationIds) {
+            Map<String, PriceStats> result = new LinkedHashMap<>();
+            for (Long locationId : locationIds) {
+                pricesByLocation.getOrDefault(locationId, Map.of())
+                        .forEach((type, stats) -> result.merge(type, stats, PriceStats::merge));
+            }
+            return result;
+        }
+
+        public List<LocationEntry> locations() {
+            return locations;
+        }
+
+        /**
+         * Every tournament, earliest start first.
+         */
+        public List<TournamentDto> tournaments() {
+            return tournaments;
+        }
+
+        public TournamentDto tournament(Long tournamentId) {
+            return tournamentsById.get(tournamentId);
+        }
+
+        /**
+         * Active or upcoming tournaments that have not started yet, earliest first.
+         */
+        public List<TournamentDto> upcomingTournaments(LocalDateTime now) {
+            return tournaments.stream()
+                    .filter(t -> t.getStartDate() != null && t.getStartDate().isAfter(now))
+                    .filter(t -> "ACTIVE".equals(t.getStatus()) || "UPCOMING".equals(t.getStatus()))
+                    .toList();
+        }
+
+        /**
+         * Tournaments whose location name or address contains the text, ignoring case.
+         */
+        public List<TournamentDto> tournamentsAt(String location) {
+            String search = location.toLowerCase(Locale.ROOT);
+            return tournaments.stream()
+                    .filter(t -> t.getLocation() != null)
+                    .filter(t -> contains(t.getLocation().getName(), search) || contains(t.getLocation().getAddress(), search))
+                    .toList();
+        }
+
+        Instant builtAt() {
+            return builtAt;
+        }
+
+        private static List<FieldEntry> group(Map<String, List<FieldEntry>> groups, Collection<String> keys) {
+            List<FieldEntry> result = new ArrayList<>();
+            for (String key : Set.copyOf(keys)) {
+                result.addAll(groups.getOrDefault(key, List.of()));
+            }
+            return result;
+        }
+
+        private static boolean contains(String text, String search) {
+            return text != null && text.toLowerCase(Locale.ROOT).contains(search);
+        }
+    }
+}
@@ -1,18 +1,13 @@
 package fpt.aptech.management_field.services;
 
 import fpt.aptech.management_field.models.ConversationContext;
-import fpt.aptech.management_field.models.Field;
-import fpt.aptech.management_field.models.Location;
 import fpt.aptech.management_field.payload.dtos.*;
-import fpt.aptech.management_field.repositories.FieldRepository;
-import fpt.aptech.management_field.repositories.LocationRepository;
-import fpt.aptech.management_field.repositories.TournamentRepository;
+import fpt.aptech.management_field.services.ChatbotKnowledgeService.FieldEntry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.function.Function;
 
@@ -20,13 +15,10 @@ import java.util.function.Function;
 public class ChatbotService {
 
     @Autowired
-    private RestTemplate restTemplate;
-
-    @Autowired
-    private FieldRepository fieldRepository;
-
+    private ChatbotAiClient aiClient;
+    
     @Autowired
-    private LocationRepository locationRepository;
+    private LocalIntentClassifier localIntentClassifier;
     
     @Autowired
     private ConversationContextService contextService;
@@ -41,18 +33,24 @@ public class ChatbotService {
     private FieldService fieldService;
     
     @Autowired
-    private TournamentRepository tournamentRepository;
-
-    @Value("${ai.service.url:http://localhost:5002}")
-    private String aiServiceUrl;
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private ChatbotEntityMatcher entityMatcher;
+    
+    @Autowired
+    private ChatbotKnowledgeService knowledgeService;
+    
+    private static final int MAX_TOURNAMENT_RESULTS = 20;
 
-    public ChatbotResponseDTO processMessage(ChatbotRequestDTO request) {
+    /**
+     * Answers the message without blocking the calling thread. When the intent model
+     * misses its deadline or fails, the intent is guessed locally instead.
+     */
+    public CompletableFuture<ChatbotResponseDTO> processMessage(ChatbotRequestDTO request) {
+        String sessionId = request.getSessionId() != null && !request.getSessionId().isEmpty()
+                ? request.getSessionId() : contextService.generateSessionId();
         try {
-            String sessionId = request.getSessionId();
-            if (sessionId == null || sessionId.isEmpty()) {
-                sessionId = contextService.generateSessionId();
-            }
-            
             // Lấy context hiện tại
             ConversationContext context = contextService.getContext(sessionId);
             
@@ -61,23 +59,25 @@ public class ChatbotService {
             aiRequest.setMessage(request.getMessage());
             aiRequest.setContext(context.getEntities());
             
-            String url = aiServiceUrl + "/predict";
-            AiResponseV2DTO aiResponse = restTemplate.postForObject(url, aiRequest, AiResponseV2DTO.class);
-            
-            if (aiResponse == null) {
-                return createErrorResponse(sessionId, messageService.getMessage("error.ai_service"));
-            }
-            
-            // Cập nhật context với intent và entities mới
-            context = contextService.updateContext(sessionId, aiResponse.getIntent(), 
-                    aiResponse.getEntities(), request.getMessage());
-            
-            // Xử lý logic nghiệp vụ dựa trên intent và context
-            return processIntentWithContext(aiResponse, context);
+            return aiClient.predict(aiRequest)
+                    .handleAsync((aiResponse, error) -> {
+                        if (error != null || aiResponse == null || aiResponse.getIntent() == null) {
+                            // AI quá hạn hoặc lỗi: nhận diện intent cục bộ để vẫn trả lời ngay
+                            aiResponse = localIntentClassifier.classify(request.getMessage());
+                        }
+                        
+                        // Cập nhật context với intent và entities mới
+                        ConversationContext updated = contextService.updateContext(sessionId, aiResponse.getIntent(),
+                                aiResponse.getEntities(), request.getMessage());
+                        
+                        // Xử lý logic nghiệp vụ dựa trên intent và context
+                        return processIntentWithContext(aiResponse, updated);
+                    }, aiClient.executor())
+                    .exceptionally(e -> createErrorResponse(sessionId, messageService.getMessage("error.general")));
             
         } catch (Exception e) {
-            String sessionId = request.getSessionId() != null ? request.getSessionId() : contextService.generateSessionId();
-            return createErrorResponse(sessionId, messageService.getMessage("error.general"));
+            return CompletableFuture.completedFuture(
+                    createErrorResponse(sessionId, messageService.getMessage("error.general")));
         }
     }
 
@@ -177,7 +177,7 @@ public class ChatbotService {
     }
 
     private ChatbotResponseDTO handleSpecificPriceInquiry(String sessionId, String fieldType, String location, Map<String, Object> entities) {
-        List<Field> fields = findFields(fieldType, location);
+        List<FieldEntry> fields = findFields(fieldType, location);
         
         if (fields.isEmpty()) {
             // Không tìm thấy sân phù hợp
@@ -190,17 +190,17 @@ public class ChatbotService {
         
         if (fields.size() == 1) {
             // Tìm thấy đúng 1 sân
-            Field field = fields.get(0);
+            FieldEntry field = fields.get(0);
             String message = String.format(
                 "Dạ, sân %s tại %s có giá %,.0f VNĐ/giờ.\n" +
                 "📍 Địa chỉ: %s\n" +
                 "⚽ Sức chứa: %d người\n" +
                 "Bạn có muốn đặt sân này không?",
-                field.getType().getName(),
-                field.getLocation().getName(),
-                field.getHourlyRate(),
-                field.getLocation().getAddress(),
-                field.getType().getMaxCapacity()
+                field.typeName(),
+                field.locationName(),
+                field.hourlyRate(),
+                field.address(),
+                field.maxCapacity()
             );
             
             // Thêm action buttons
@@ -212,7 +212,7 @@ public class ChatbotService {
             bookAction.setType("action");
             Map<String, Object> bookPayload = new HashMap<>();
             bookPayload.put("action", "book_field");
-            bookPayload.put("fieldId", field.getFieldId().toString());
+            bookPayload.put("fieldId", field.fieldId().toString());
             bookAction.setPayload(bookPayload);
             actions.add(bookAction);
             
@@ -221,7 +221,7 @@ public class ChatbotService {
             detailAction.setType("action");
             Map<String, Object> detailPayload = new HashMap<>();
             detailPayload.put("action", "view_details");
-            detailPayload.put("fieldId", field.getFieldId().toString());
+            detailPayload.put("fieldId", field.fieldId().toString());
             detailAction.setPayload(detailPayload);
             actions.add(detailAction);
             
@@ -234,7 +234,7 @@ public class ChatbotService {
     }
 
     private ChatbotResponseDTO handleFieldTypePriceInquiry(String sessionId, String fieldType, Map<String, Object> entities) {
-        List<Field> fields = findFields(fieldType, null);
+        List<FieldEntry> fields = findFields(fieldType, null);
         
         if (fields.isEmpty()) {
             return createSimpleResponse(sessionId, 
@@ -243,8 +243,8 @@ public class ChatbotService {
         }
         
         // Group by location để hiển thị giá theo từng địa điểm
-        Map<String, List<Field>> fieldsByLocation = fields.stream()
-            .collect(Collectors.groupingBy(field -> field.getLocation().getName()));
+        Map<String, List<FieldEntry>> fieldsByLocation = fields.stream()
+            .collect(Collectors.groupingBy(FieldEntry::locationName));
         
         StringBuilder message = new StringBuilder();
         message.append(String.format("Giá sân %s tại các địa điểm:\n\n", fieldType));
@@ -253,7 +253,7 @@ public class ChatbotService {
             message.append(String.format("📍 %s:\n", locationName));
             locationFields.forEach(field -> {
                 message.append(String.format("   • %s: %,.0f VNĐ/giờ\n", 
-                    field.getType().getName(), field.getHourlyRate()));
+                    field.typeName(), field.hourlyRate()));
             });
             message.append("\n");
         });
@@ -264,7 +264,7 @@ public class ChatbotService {
     }
 
     private ChatbotResponseDTO handleLocationPriceInquiry(String sessionId, String location, Map<String, Object> entities) {
-        List<Field> fields = findFields(null, location);
+        List<FieldEntry> fields = findFields(null, location);
         
         if (fields.isEmpty()) {
             return createSimpleResponse(sessionId, 
@@ -272,20 +272,15 @@ public class ChatbotService {
                 entities);
         }
         
-        // Group by field type
-        Map<String, List<Field>> fieldsByType = fields.stream()
-            .collect(Collectors.groupingBy(field -> field.getType().getName()));
+        // Giá trung bình theo loại sân, gộp từ thống kê đã tính sẵn của các địa điểm khớp
+        Set<Long> locationIds = fields.stream().map(FieldEntry::locationId).collect(Collectors.toSet());
+        Map<String, ChatbotKnowledgeService.PriceStats> pricesByType = knowledgeService.snapshot().pricesAtLocations(locationIds);
         
         StringBuilder message = new StringBuilder();
         message.append(String.format("Bảng giá các sân tại %s:\n\n", location));
         
-        fieldsByType.forEach((typeName, typeFields) -> {
-            double avgPrice = typeFields.stream()
-                .mapToDouble(Field::getHourlyRate)
-                .average()
-                .orElse(0);
-            
-            message.append(String.format("⚽ %s: %,.0f VNĐ/giờ\n", typeName, avgPrice));
+        pricesByType.forEach((typeName, prices) -> {
+            message.append(String.format("⚽ %s: %,.0f VNĐ/giờ\n", typeName, prices.average()));
         });
         
         message.append("\nBạn muốn đặt loại sân nào?");
@@ -294,30 +289,22 @@ public class ChatbotService {
     }
 
     private ChatbotResponseDTO handleGeneralPriceInquiry(String sessionId, Map<String, Object> entities) {
-        List<Field> allFields = fieldRepository.findAll();
+        Map<String, ChatbotKnowledgeService.PriceStats> pricesByType = knowledgeService.snapshot().pricesByType();
         
-        if (allFields.isEmpty()) {
+        if (pricesByType.isEmpty()) {
             return createSimpleResponse(sessionId, 
                 "Hiện tại hệ thống chưa có thông tin sân. Vui lòng liên hệ trực tiếp.", 
                 entities);
         }
         
-        // Group by field type và tính giá trung bình
-        Map<String, Double> avgPricesByType = allFields.stream()
-            .collect(Collectors.groupingBy(
-                field -> field.getType().getName(),
-                Collectors.averagingDouble(Field::getHourlyRate)
-            ));
-        
         StringBuilder message = new StringBuilder();
         message.append("📋 Bảng giá sân của chúng tôi:\n\n");
         
-        avgPricesByType.entrySet().stream()
-            .sorted(Map.Entry.comparingByValue())
-            .forEach(entry -> {
-                message.append(String.format("⚽ %s: từ %,.0f VNĐ/giờ\n", 
-                    entry.getKey(), entry.getValue()));
-            });
+        // Đã sắp xếp theo giá trung bình tăng dần
+        pricesByType.forEach((typeName, prices) -> {
+            message.append(String.format("⚽ %s: từ %,.0f VNĐ/giờ\n", 
+                typeName, prices.average()));
+        });
         
         message.append("\n💡 Giá có thể khác nhau tùy theo địa điểm và thời gian.\n");
         message.append("Bạn muốn xem giá cụ thể cho loại sân nào?");
@@ -329,31 +316,27 @@ public class ChatbotService {
         List<String> suggestions = new ArrayList<>();
         
         // Tìm field types tương tự
-        List<Field> similarFields = fieldRepository.findAll().stream()
-            .filter(field -> field.getType().getName().toLowerCase().contains(fieldType.toLowerCase().substring(0, Math.min(3, fieldType.length()))))
-            .limit(3)
-            .collect(Collectors.toList());
+        List<FieldEntry> similarFields = loadFieldsInOrder(
+            searchIndexService.searchIds(fieldType, SearchIndexService.Kind.FIELD, 3, false));
         
         similarFields.forEach(field -> {
             suggestions.add(String.format("%s tại %s", 
-                field.getType().getName(), field.getLocation().getName()));
+                field.typeName(), field.locationName()));
         });
         
         // Tìm locations tương tự
-        List<Field> nearbyFields = fieldRepository.findAll().stream()
-            .filter(field -> field.getLocation().getName().toLowerCase().contains(location.toLowerCase().substring(0, Math.min(3, location.length()))))
-            .limit(2)
-            .collect(Collectors.toList());
+        List<FieldEntry> nearbyFields = loadFieldsInOrder(
+            searchIndexService.searchIds(location, SearchIndexService.Kind.FIELD, 2, false));
         
         nearbyFields.forEach(field -> {
             suggestions.add(String.format("%s tại %s", 
-                field.getType().getName(), field.getLocation().getName()));
+                field.typeName(), field.locationName()));
         });
         
         return suggestions.stream().distinct().limit(5).collect(Collectors.toList());
     }
 
-    private ChatbotResponseDTO createMultipleFieldsResponse(String sessionId, List<Field> fields, 
+    private ChatbotResponseDTO createMultipleFieldsResponse(String sessionId, List<FieldEntry> fields, 
             String fieldType, String location, Map<String, Object> entities) {
         
         StringBuilder message = new StringBuilder();
@@ -361,10 +344,10 @@ public class ChatbotService {
             fields.size(), fieldType, location));
         
         fields.stream().limit(5).forEach(field -> {
-            message.append(String.format("🏟️ %s\n", field.getType().getName()));
-            message.append(String.format("   💰 Giá: %,.0f VNĐ/giờ\n", field.getHourlyRate()));
-            message.append(String.format("   📍 %s\n", field.getLocation().getAddress()));
-            message.append(String.format("   👥 Sức chứa: %d người\n\n", field.getType().getMaxCapacity()));
+            message.append(String.format("🏟️ %s\n", field.typeName()));
+            message.append(String.format("   💰 Giá: %,.0f VNĐ/giờ\n", field.hourlyRate()));
+            message.append(String.format("   📍 %s\n", field.address()));
+            message.append(String.format("   👥 Sức chứa: %d người\n\n", field.maxCapacity()));
         });
         
         if (fields.size() > 5) {
@@ -379,11 +362,11 @@ public class ChatbotService {
         List<ChatbotResponseDTO.ActionDTO> actions = new ArrayList<>();
         fields.stream().limit(3).forEach(field -> {
             ChatbotResponseDTO.ActionDTO action = new ChatbotResponseDTO.ActionDTO();
-            action.setLabel(String.format("Đặt %s", field.getType().getName()));
+            action.setLabel(String.format("Đặt %s", field.typeName()));
             action.setType("action");
             Map<String, Object> payload = new HashMap<>();
             payload.put("action", "book_field");
-            payload.put("fieldId", field.getFieldId().toString());
+            payload.put("fieldId", field.fieldId().toString());
             action.setPayload(payload);
             actions.add(action);
         });
@@ -405,14 +388,14 @@ public class ChatbotService {
         Map<String, Object> entities = context.getEntities();
         
         try {
-            List<Location> locations = locationRepository.findAll();
+            List<ChatbotKnowledgeService.LocationEntry> locations = knowledgeService.snapshot().locations();
             
             if (!locations.isEmpty()) {
                 StringBuilder locationList = new StringBuilder("Danh sách địa chỉ các sân của chúng tôi:\n");
                 locations.stream()
                    // Giới hạn 5 địa điểm đầu tiên
                     .forEach(location -> locationList.append(String.format("📍 %s - %s\n", 
-                        location.getName(), location.getAddress())));
+                        location.name(), location.address())));
                 locationList.append("Bạn muốn xem chi tiết về địa điểm nào?");
                 return createSimpleResponse(sessionId, locationList.toString(), entities);
             }
@@ -495,133 +478,65 @@ public class ChatbotService {
         return createSimpleResponse(sessionId, message, entities);
     }
 
-    private String extractFieldType(String message) {
-        String lowerMessage = message.toLowerCase();
-        
-        // Patterns để nhận diện loại sân
-        if (lowerMessage.contains("sân 5") || lowerMessage.contains("5 người")) {
-            return "Sân 5 người";
-        }
-        if (lowerMessage.contains("sân 7") || lowerMessage.contains("7 người")) {
-            return "Sân 7 người";
-        }
-        if (lowerMessage.contains("sân 11") || lowerMessage.contains("11 người")) {
-            return "Sân 11 người";
-        }
-        if (lowerMessage.contains("cầu lông") || lowerMessage.contains("badminton")) {
-            return "Cầu lông";
-        }
-        if (lowerMessage.contains("tennis")) {
-            return "Tennis";
-        }
-        if (lowerMessage.contains("bóng rổ") || lowerMessage.contains("basketball")) {
-            return "Bóng rổ";
+    private List<FieldEntry> findFields(String fieldType, String location) {
+        ChatbotKnowledgeService.Snapshot knowledge = knowledgeService.snapshot();
+        
+        // Độ tương đồng được tính một lần cho mỗi tên, không phải cho mỗi lần so sánh
+        ChatbotEntityMatcher.Matches typeMatches = entityMatcher.matchFieldTypes(fieldType);
+        ChatbotEntityMatcher.Matches locationMatches = entityMatcher.matchLocations(location);
+        
+        // Ứng viên lấy từ các nhóm sân theo loại/địa điểm đã dựng sẵn, không truy vấn DB
+        List<FieldEntry> candidates;
+        if (!typeMatches.matchesAll()) {
+            candidates = knowledge.fieldsWithType(typeMatches.names());
+        } else if (!locationMatches.matchesAll()) {
+            candidates = knowledge.fieldsAtLocation(locationMatches.names());
+        } else {
+            candidates = knowledge.fields();
         }
         
-        return null;
-    }
-    
-    private List<Field> findFields(String fieldType, String location) {
-        List<Field> allFields = fieldRepository.findAll();
-        
-        return allFields.stream()
-                .filter(field -> fieldType == null || isFieldTypeMatch(field.getType().getName(), fieldType))
-                .filter(field -> location == null || isLocationMatch(field.getLocation().getName(), location))
+        return candidates.stream()
+                .filter(field -> typeMatches.matches(field.typeName())
+                        && locationMatches.matches(field.locationName()))
+                .map(field -> new ScoredField(field, calculateFieldScore(field, typeMatches, locationMatches)))
                 .sorted((f1, f2) -> {
                     // Sắp xếp theo độ tương đồng và giá
-                    double score1 = calculateFieldScore(f1, fieldType, location);
-                    double score2 = calculateFieldScore(f2, fieldType, location);
-                    int scoreCompare = Double.compare(score2, score1); // Điểm cao hơn trước
+                    int scoreCompare = Double.compare(f2.score(), f1.score()); // Điểm cao hơn trước
                     if (scoreCompare != 0) return scoreCompare;
-                    return Double.compare(f1.getHourlyRate(), f2.getHourlyRate()); // Giá thấp hơn trước
+                    return Double.compare(f1.field().hourlyRate(), f2.field().hourlyRate()); // Giá thấp hơn trước
                 })
+                .map(ScoredField::field)
                 .collect(Collectors.toList());
     }
     
-    private boolean isFieldTypeMatch(String actualType, String searchType) {
-        if (searchType == null) return true;
-        
-        String actual = actualType.toLowerCase().trim();
-        String search = searchType.toLowerCase().trim();
-        
-        // Exact match
-        if (actual.equals(search)) return true;
-        
-        // Contains match
-        if (actual.contains(search) || search.contains(actual)) return true;
-        
-        // Fuzzy matching cho các từ phổ biến
-        return calculateSimilarity(actual, search) > 0.6;
+    private record ScoredField(FieldEntry field, double score) {
     }
     
-    private boolean isLocationMatch(String actualLocation, String searchLocation) {
-        if (searchLocation == null) return true;
-        
-        String actual = actualLocation.toLowerCase().trim();
-        String search = searchLocation.toLowerCase().trim();
-        
-        // Exact match
-        if (actual.equals(search)) return true;
-        
-        // Contains match
-        if (actual.contains(search) || search.contains(actual)) return true;
-        
-        // Fuzzy matching
-        return calculateSimilarity(actual, search) > 0.7;
+    // Các sân theo đúng thứ tự xếp hạng của search index
+    private List<FieldEntry> loadFieldsInOrder(List<Long> fieldIds) {
+        ChatbotKnowledgeService.Snapshot knowledge = knowledgeService.snapshot();
+        return fieldIds.stream().map(knowledge::field).filter(Objects::nonNull).collect(Collectors.toList());
     }
     
-    private double calculateFieldScore(Field field, String fieldType, String location) {
+    private List<TournamentDto> findTournamentsByName(String tournamentName) {
+        ChatbotKnowledgeService.Snapshot knowledge = knowledgeService.snapshot();
+        return searchIndexService.searchIds(tournamentName, SearchIndexService.Kind.TOURNAMENT, MAX_TOURNAMENT_RESULTS, true)
+                .stream().map(knowledge::tournament).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+    
+    private double calculateFieldScore(FieldEntry field, ChatbotEntityMatcher.Matches typeMatches,
+            ChatbotEntityMatcher.Matches locationMatches) {
         double score = 0.0;
         
         // Điểm cho field type match
-        if (fieldType != null) {
-            score += calculateSimilarity(field.getType().getName().toLowerCase(), fieldType.toLowerCase()) * 0.6;
-        }
+        score += typeMatches.similarity(field.typeName()) * 0.6;
         
         // Điểm cho location match
-        if (location != null) {
-            score += calculateSimilarity(field.getLocation().getName().toLowerCase(), location.toLowerCase()) * 0.4;
-        }
+        score += locationMatches.similarity(field.locationName()) * 0.4;
         
         return score;
     }
     
-    private double calculateSimilarity(String s1, String s2) {
-        if (s1 == null || s2 == null) return 0.0;
-        if (s1.equals(s2)) return 1.0;
-        
-        // Levenshtein distance based similarity
-        int maxLen = Math.max(s1.length(), s2.length());
-        if (maxLen == 0) return 1.0;
-        
-        int distance = levenshteinDistance(s1, s2);
-        return 1.0 - (double) distance / maxLen;
-    }
-    
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
-                }
-            }
-        }
-        
-        return dp[s1.length()][s2.length()];
-    }
-    
     private ChatbotResponseDTO createClarificationResponse(String sessionId, String message, 
             List<String> options, String entityType, Map<String, Object> entities) {
         ChatbotResponseDTO response = new ChatbotResponseDTO();
@@ -685,7 +600,7 @@ public class ChatbotService {
     
     private ChatbotResponseDTO handleSpecificTournamentInquiry(String sessionId, String tournamentName, Map<String, Object> entities) {
         try {
-            List<TournamentDto> tournaments = tournamentRepository.findByNameContainingIgnoreCase(tournamentName);
+            List<TournamentDto> tournaments = findTournamentsByName(tournamentName);
             
             if (tournaments.isEmpty()) {
                 String response = "Xin lỗi, tôi không tìm thấy giải đấu nào có tên \"" + tournamentName + "\".\n" +
@@ -708,7 +623,7 @@ public class ChatbotService {
     
     private ChatbotResponseDTO handleTournamentByTypeAndLocation(String sessionId, String tournamentType, String location, Map<String, Object> entities) {
         try {
-            List<TournamentDto> tournaments = tournamentRepository.findByLocationNameContainingIgnoreCase(location);
+            List<TournamentDto> tournaments = knowledgeService.snapshot().tournamentsAt(location);
             
             // Filter by tournament type if needed (based on description or name)
             tournaments = tournaments.stream()
@@ -737,7 +652,7 @@ public class ChatbotService {
     
     private ChatbotResponseDTO handleTournamentByType(String sessionId, String tournamentType, Map<String, Object> entities) {
         try {
-            List<TournamentDto> allTournaments = tournamentRepository.findAllOrderByStartDate();
+            List<TournamentDto> allTournaments = knowledgeService.snapshot().tournaments();
             
             // Filter by tournament type
             List<TournamentDto> tournaments = allTournaments.stream()
@@ -765,7 +680,7 @@ public class ChatbotService {
     
     private ChatbotResponseDTO handleTournamentByLocation(String sessionId, String location, Map<String, Object> entities) {
         try {
-            List<TournamentDto> tournaments = tournamentRepository.findByLocationNameContainingIgnoreCase(location);
+            List<TournamentDto> tournaments = knowledgeService.snapshot().tournamentsAt(location);
             
             if (tournaments.isEmpty()) {
                 String response = "Hiện tại không có giải đấu nào tại " + location + ".\n" +
@@ -788,7 +703,7 @@ public class ChatbotService {
     
     private ChatbotResponseDTO handleGeneralTournamentInquiry(String sessionId, Map<String, Object> entities) {
         try {
-            List<TournamentDto> upcomingTournaments = tournamentRepository.findUpcomingTournaments(java.time.LocalDateTime.now());
+            List<TournamentDto> upcomingTournaments = knowledgeService.snapshot().upcomingTournaments(java.time.LocalDateTime.now());
             
             if (upcomingTournaments.isEmpty()) {
                 String response = "Hiện tại chưa có giải đấu nào sắp diễn ra.\n" +
@@ -816,7 +731,7 @@ public class ChatbotService {
         String tournamentName = (String) entities.get("tournament_name");
         
         if (tournamentName != null && !tournamentName.isEmpty()) {
-            List<TournamentDto> tournaments = tournamentRepository.findByNameContainingIgnoreCase(tournamentName);
+            List<TournamentDto> tournaments = findTournamentsByName(tournamentName);
             
             if (!tournaments.isEmpty()) {
                 TournamentDto tournament = tournaments.get(0);
@@ -863,7 +778,7 @@ public class ChatbotService {
         String tournamentType = (String) entities.get("tournament_type");
         
         if (tournamentName != null && !tournamentName.isEmpty()) {
-            List<TournamentDto> tournaments = tournamentRepository.findByNameContainingIgnoreCase(tournamentName);
+            List<TournamentDto> tournaments = findTournamentsByName(tournamentName);
             
             if (!tournaments.isEmpty()) {
                 TournamentDto tournament = tournaments.get(0);
@@ -881,7 +796,7 @@ public class ChatbotService {
         
         // General fee inquiry
         try {
-            List<TournamentDto> allTournaments = tournamentRepository.findAllOrderByStartDate();
+            List<TournamentDto> allTournaments = knowledgeService.snapshot().tournaments();
             
             if (tournamentType != null) {
                 allTournaments = allTournaments.stream()
@@ -907,7 +822,7 @@ public class ChatbotService {
         String tournamentName = (String) entities.get("tournament_name");
         
         if (tournamentName != null && !tournamentName.isEmpty()) {
-            List<TournamentDto> tournaments = tournamentRepository.findByNameContainingIgnoreCase(tournamentName);
+            List<TournamentDto> tournaments = findTournamentsByName(tournamentName);
             
             if (!tournaments.isEmpty()) {
                 TournamentDto tournament = tournaments.get(0);
@@ -925,7 +840,7 @@ public class ChatbotService {
         
         // General prize inquiry
         try {
-            List<TournamentDto> allTournaments = tournamentRepository.findAllOrderByStartDate();
+            List<TournamentDto> allTournaments = knowledgeService.snapshot().tournaments();
             
             if (allTournaments.isEmpty()) {
                 return createErrorResponse(sessionId, "Hiện tại không có thông tin giải thưởng.");
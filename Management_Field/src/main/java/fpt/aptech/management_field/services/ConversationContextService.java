@@ -1,37 +1,112 @@
 package fpt.aptech.management_field.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.aptech.management_field.models.ChatbotSession;
 import fpt.aptech.management_field.models.ConversationContext;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import fpt.aptech.management_field.repositories.ChatbotSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Session store for chatbot conversation contexts.
+ * <p>
+ * In the default memory mode, contexts live in an LRU map bounded by
+ * {@code chatbot.context.max-sessions} and expire 30 minutes after their last access.
+ * With {@code chatbot.context.store=jdbc} they are kept in the chatbot_sessions table
+ * instead, so every instance behind the load balancer sees the same conversation.
+ */
 @Service
 public class ConversationContextService {
-    
+    private static final Logger logger = LoggerFactory.getLogger(ConversationContextService.class);
+
     private static final int CONTEXT_TIMEOUT_MINUTES = 30;
-    
-    @Cacheable(value = "conversationContext", key = "#sessionId")
+    private static final Duration CONTEXT_TIMEOUT = Duration.ofMinutes(CONTEXT_TIMEOUT_MINUTES);
+    public static final int MAX_SESSION_ID_LENGTH = 64;
+
+    @Autowired
+    private ChatbotSessionRepository chatbotSessionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final boolean jdbcStore;
+    private final int maxSessions;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiryEvictionCounter;
+
+    // sessionId -> context, least recently accessed first
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(256, 0.75f, true);
+
+    public ConversationContextService(MeterRegistry meterRegistry,
+                                      @Value("${chatbot.context.store:memory}") String store,
+                                      @Value("${chatbot.context.max-sessions:10000}") int maxSessions) {
+        if (!"memory".equals(store) && !"jdbc".equals(store)) {
+            throw new IllegalArgumentException("chatbot.context.store must be memory or jdbc, was " + store);
+        }
+        this.jdbcStore = "jdbc".equals(store);
+        this.maxSessions = maxSessions;
+        this.hitCounter = meterRegistry.counter("chatbot.context.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("chatbot.context.requests", "result", "miss");
+        this.sizeEvictionCounter = meterRegistry.counter("chatbot.context.evictions", "cause", "size");
+        this.expiryEvictionCounter = meterRegistry.counter("chatbot.context.evictions", "cause", "expired");
+        meterRegistry.gauge("chatbot.context.sessions", this, ConversationContextService::localSize);
+    }
+
+    /**
+     * Context of the session, or a fresh one when it is unknown or has expired.
+     */
     public ConversationContext getContext(String sessionId) {
-        // If not in cache, create new context
-        return new ConversationContext(sessionId);
+        checkSessionId(sessionId);
+        ConversationContext context = jdbcStore ? load(sessionId) : lookup(sessionId);
+        if (context == null) {
+            missCounter.increment();
+            return new ConversationContext(sessionId);
+        }
+        hitCounter.increment();
+        return context;
     }
-    
-    @CachePut(value = "conversationContext", key = "#context.sessionId")
+
     public ConversationContext saveContext(ConversationContext context) {
+        checkSessionId(context.getSessionId());
         context.setLastUpdated(LocalDateTime.now());
+        if (jdbcStore) {
+            store(context);
+        } else {
+            synchronized (sessions) {
+                sessions.put(context.getSessionId(), new Entry(context, Instant.now()));
+                evictOverflow();
+            }
+        }
         return context;
     }
-    
-    @CacheEvict(value = "conversationContext", key = "#sessionId")
+
     public void clearContext(String sessionId) {
-        // Context will be removed from cache
+        if (jdbcStore) {
+            chatbotSessionRepository.deleteById(sessionId);
+        } else {
+            synchronized (sessions) {
+                sessions.remove(sessionId);
+            }
+        }
     }
-    
+
     public ConversationContext updateContext(String sessionId, String intent, Map<String, Object> entities, String message) {
         ConversationContext context = getContext(sessionId);
         context.setCurrentIntent(intent);
@@ -39,23 +114,23 @@ public class ConversationContextService {
         context.mergeEntities(entities);
         return saveContext(context);
     }
-    
+
     public String generateSessionId() {
         return UUID.randomUUID().toString();
     }
-    
+
     public boolean isContextExpired(ConversationContext context) {
         if (context == null || context.getLastUpdated() == null) {
             return true;
         }
         return context.getLastUpdated().isBefore(LocalDateTime.now().minusMinutes(CONTEXT_TIMEOUT_MINUTES));
     }
-    
+
     public boolean hasRequiredEntities(ConversationContext context, String... requiredKeys) {
         if (context == null || context.getEntities() == null) {
             return false;
         }
-        
+
         for (String key : requiredKeys) {
             if (!context.hasEntity(key) || context.getEntity(key) == null) {
                 return false;
@@ -63,4 +138,92 @@ public class ConversationContextService {
         }
         return true;
     }
-}
\ No newline at end of file
+
+    @Scheduled(fixedRate = 60000) // 1 minute
+    public void purgeExpired() {
+        Instant idleSince = Instant.now().minus(CONTEXT_TIMEOUT);
+        if (jdbcStore) {
+            int removed = chatbotSessionRepository.deleteIdleSince(idleSince);
+            expiryEvictionCounter.increment(removed);
+            return;
+        }
+        int removed = 0;
+        synchronized (sessions) {
+            // Access order: the idle sessions are at the head
+            var iterator = sessions.values().iterator();
+            while (iterator.hasNext() && iterator.next().lastAccessedAt().isBefore(idleSince)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        expiryEvictionCounter.increment(removed);
+    }
+
+    private ConversationContext lookup(String sessionId) {
+        synchronized (sessions) {
+            Entry entry = sessions.get(sessionId);
+            if (entry == null) {
+                return null;
+            }
+            Instant now = Instant.now();
+            if (entry.lastAccessedAt().plus(CONTEXT_TIMEOUT).isBefore(now)) {
+                sessions.remove(sessionId);
+                expiryEvictionCounter.increment();
+                return null;
+            }
+            sessions.put(sessionId, new Entry(entry.context(), now));
+            return entry.context();
+        }
+    }
+
+    private void evictOverflow() {
+        var iterator = sessions.values().iterator();
+        while (sessions.size() > maxSessions && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            sizeEvictionCounter.increment();
+        }
+    }
+
+    private ConversationContext load(String sessionId) {
+        ChatbotSession session = chatbotSessionRepository.findById(sessionId).orElse(null);
+        if (session == null) {
+            return null;
+        }
+        if (session.getLastAccessedAt().plus(CONTEXT_TIMEOUT).isBefore(Instant.now())) {
+            chatbotSessionRepository.delete(session);
+            expiryEvictionCounter.increment();
+            return null;
+        }
+        try {
+            return objectMapper.readValue(session.getContextJson(), ConversationContext.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Discarding unreadable context of chatbot session {}: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(ConversationContext context) {
+        try {
+            chatbotSessionRepository.save(new ChatbotSession(context.getSessionId(),
+                    objectMapper.writeValueAsString(context), Instant.now()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not store chatbot context: " + e.getMessage(), e);
+        }
+    }
+
+    private static void checkSessionId(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty() || sessionId.length() > MAX_SESSION_ID_LENGTH) {
+            throw new IllegalArgumentException("Session id must be 1 to " + MAX_SESSION_ID_LENGTH + " characters");
+        }
+    }
+
+    private int localSize() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    private record Entry(ConversationContext context, Instant lastAccessedAt) {
+    }
+}
@@ -0,0 +1,369 @@
+package fpt.aptech.management_field.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
+import fpt.aptech.management_field.models.DraftMatch;
+import fpt.aptech.management_field.models.DraftMatchRankingState;
+import fpt.aptech.management_field.models.DraftMatchScore;
+import fpt.aptech.management_field.models.User;
+import fpt.aptech.management_field.payload.dtos.DraftMatchDto;
+import fpt.aptech.management_field.repositories.DraftMatchRankingStateRepository;
+import fpt.aptech.management_field.repositories.DraftMatchRepository;
+import fpt.aptech.management_field.repositories.DraftMatchScoreRepository;
+import fpt.aptech.management_field.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked draft matches served from precomputed scores in the draft_match_scores table.
+ * <p>
+ * Every few minutes each instance scores, for the users of its shard
+ * ({@code userId % shard-count == shard-index}) who asked for ranked draft matches in
+ * the last {@code recommendation.materialize.active-days} days, only the active matches
+ * created or changed since that user's scores were computed. A user whose sport
+ * profiles changed is rescored against every active match. A run scores at most
+ * {@code max-users-per-run} users, so it stays short. Scores of closed matches and
+ * of users who stopped asking are deleted, so the table stays the size of the active
+ * users times the open matches.
+ * <p>
+ * Users without materialized scores are cold: the listing ranks them on demand as
+ * before, and they are picked up by the next run.
+ */
+@Service
+public class DraftMatchRecommendationMaterializer {
+    private static final Logger logger = LoggerFactory.getLogger(DraftMatchRecommendationMaterializer.class);
+
+    // Requests refresh a user's activity at most this often
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+
+    @Autowired
+    private DraftMatchRepository draftMatchRepository;
+
+    @Autowired
+    private DraftMatchScoreRepository draftMatchScoreRepository;
+
+    @Autowired
+    private DraftMatchRankingStateRepository draftMatchRankingStateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UnifiedCompatibilityService unifiedCompatibilityService;
+
+    @Autowired
+    private AiServiceGuard aiServiceGuard;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int activeDays;
+    private final int shardCount;
+    private final int shardIndex;
+    private final int maxUsersPerRun;
+
+    public DraftMatchRecommendationMaterializer(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                                @Value("${recommendation.materialize.enabled:true}") boolean enabled,
+                                                @Value("${recommendation.materialize.active-days:7}") int activeDays,
+                                                @Value("${recommendation.materialize.shard-count:1}") int shardCount,
+                                                @Value("${recommendation.materialize.shard-index:0}") int shardIndex,
+                                                @Value("${recommendation.materialize.max-users-per-run:200}") int maxUsersPerRun) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("recommendation.materialize.shard-index must be in [0, shard-count)");
+        }
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.activeDays = activeDays;
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+        this.maxUsersPerRun = maxUsersPerRun;
+    }
+
+    /**
+     * The matches ranked for the user from their materialized scores, highest first, or
+     * null when the user has none yet and must be ranked on demand. {@code dtos} are the
+     * listing entries of {@code matches}, in the same order; they get the scores.
+     * <p>
+     * Matches created or changed after the user's last run are scored on demand. Matches
+     * the last run scored and the model left out are left out, as in on-demand ranking.
+     */
+    public List<DraftMatchDto> rank(User user, List<DraftMatch> matches, List<DraftMatchDto> dtos) {
+        DraftMatchRankingState state = touch(user.getId());
+        if (state == null || state.getComputedAt() == null) {
+            count("cold");
+            return null;
+        }
+
+        Map<Long, DraftMatchScore> scores = draftMatchScoreRepository.findByUserId(user.getId()).stream()
+                .collect(Collectors.toMap(DraftMatchScore::getDraftMatchId, Function.identity()));
+        List<DraftMatchDto> ranked = new ArrayList<>(dtos.size());
+        List<DraftMatchDto> unscored = new ArrayList<>();
+        for (int i = 0; i < matches.size(); i++) {
+            DraftMatchDto dto = dtos.get(i);
+            DraftMatchScore score = scores.get(dto.getId());
+            if (score != null) {
+                // Only model scores are stored
+                apply(dto, score.getCompatibilityScore(), score.getExplicitScore(), score.getImplicitScore(), true);
+                ranked.add(dto);
+            } else if (changedAt(matches.get(i)).isAfter(state.getComputedAt())) {
+                unscored.add(dto);
+            }
+        }
+
+        if (!unscored.isEmpty()) {
+            // Scored for each match's own sport, like the stored rows
+            Map<String, List<DraftMatchDto>> bySport = new LinkedHashMap<>();
+            for (DraftMatchDto dto : unscored) {
+                bySport.computeIfAbsent(dto.getSportType(), sport -> new ArrayList<>()).add(dto);
+            }
+            Map<Long, DraftMatchDto> fresh = new HashMap<>();
+            for (Map.Entry<String, List<DraftMatchDto>> entry : bySport.entrySet()) {
+                for (DraftMatchDto result : unifiedCompatibilityService.calculateDraftMatchCompatibility(
+                        user, entry.getValue(), entry.getKey())) {
+                    fresh.put(result.getId(), result);
+                }
+            }
+            for (DraftMatchDto dto : unscored) {
+                DraftMatchDto result = fresh.get(dto.getId());
+                if (result != null && result.getCompatibilityScore() != null) {
+                    apply(dto, result.getCompatibilityScore(), result.getExplicitScore(), result.getImplicitScore(),
+                            Boolean.TRUE.equals(result.getAiScoreUsed()));
+                    ranked.add(dto);
+                }
+            }
+        }
+        count(unscored.isEmpty() ? "hit" : "partial");
+
+        ranked.sort(Comparator.comparing(DraftMatchDto::getCompatibilityScore).reversed());
+        return ranked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSportProfileChanged(SportProfileChangedEvent event) {
+        draftMatchRankingStateRepository.markStale(event.getUserId());
+    }
+
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000) // 5 minutes
+    public void materialize() {
+        if (!enabled) {
+            return;
+        }
+        // Fallback scores are not worth keeping; the next run catches up once the model is back
+        if (aiServiceGuard.getState() == AiServiceGuard.State.OPEN) {
+            logger.info("Skipping draft match score materialization while the AI service circuit is open");
+            return;
+        }
+        // Matches changed while this run is in progress are picked up by the next one
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        LocalDateTime activeSince = runStartedAt.minusDays(activeDays);
+
+        int removed = draftMatchScoreRepository.deleteForClosedMatches(shardCount, shardIndex)
+                + draftMatchScoreRepository.deleteForInactiveUsers(activeSince, shardCount, shardIndex);
+        draftMatchRankingStateRepository.deleteInactive(activeSince, shardCount, shardIndex);
+
+        // Users never computed go first, then the stalest, as the run stops after max-users-per-run users
+        List<DraftMatchRankingState> states = draftMatchRankingStateRepository.findActiveInShard(activeSince, shardCount, shardIndex)
+                .stream()
+                .sorted(Comparator.comparing(DraftMatchRankingState::getComputedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        if (states.isEmpty()) {
+            return;
+        }
+        LocalDateTime since = null;
+        boolean full = false;
+        for (DraftMatchRankingState state : states) {
+            if (state.getComputedAt() == null) {
+                full = true;
+            } else if (since == null || state.getComputedAt().isBefore(since)) {
+                since = state.getComputedAt();
+            }
+        }
+        List<DraftMatch> changed = full
+                ? draftMatchRepository.findAllActiveDraftMatches()
+                : draftMatchRepository.findDraftMatchesNeedingAiUpdate(since);
+
+        Map<Long, User> users = userRepository.findAllById(
+                states.stream().map(DraftMatchRankingState::getUserId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        int fullUsers = 0;
+        int incrementalUsers = 0;
+        int skippedUsers = 0;
+        for (DraftMatchRankingState state : states) {
+            // Each user costs an AI call per sport; the rest wait for the next run
+            if (fullUsers + incrementalUsers + skippedUsers >= maxUsersPerRun) {
+                break;
+            }
+            User user = users.get(state.getUserId());
+            if (user == null) {
+                continue;
+            }
+            LocalDateTime computedAt = state.getComputedAt();
+            List<DraftMatch> toScore = computedAt == null ? changed
+                    : changed.stream().filter(match -> changedAt(match).isAfter(computedAt)).toList();
+            if (computedAt != null && toScore.isEmpty()) {
+                continue;
+            }
+            if (!materializeUser(user, toScore, computedAt == null, runStartedAt)) {
+                if (aiServiceGuard.getState() == AiServiceGuard.State.OPEN) {
+                    logger.warn("AI service circuit opened during draft match score materialization; stopping this run");
+                    break;
+                }
+                // Left as it was; the next run retries this user
+                skippedUsers++;
+                continue;
+            }
+            if (computedAt == null) {
+                fullUsers++;
+            } else {
+                incrementalUsers++;
+            }
+        }
+        meterRegistry.counter("recommendation.materialize.users", "mode", "full").increment(fullUsers);
+        meterRegistry.counter("recommendation.materialize.users", "mode", "incremental").increment(incrementalUsers);
+        meterRegistry.counter("recommendation.materialize.users", "mode", "skipped").increment(skippedUsers);
+        logger.info("Materialized draft match scores of {} users ({} full, {} incremental, {} skipped on AI failure) in shard {}/{}, {} matches changed, {} stale scores removed",
+                fullUsers + incrementalUsers, fullUsers, incrementalUsers, skippedUsers, shardIndex, shardCount, changed.size(), removed);
+    }
+
+    /**
+     * Scores the matches for the user and stores the result; with {@code full}, the
+     * user's scores of other matches are dropped. False, storing nothing, when any of the
+     * scores came from the fallback ranking instead of the model.
+     */
+    private boolean materializeUser(User user, List<DraftMatch> matches, boolean full, LocalDateTime runStartedAt) {
+        // Each match is scored for its own sport, so one row serves listings with or without a sport filter
+        Map<String, List<DraftMatchDto>> bySport = new LinkedHashMap<>();
+        for (DraftMatch match : matches) {
+            bySport.computeIfAbsent(match.getSportType(), sport -> new ArrayList<>()).add(toPayload(match));
+        }
+        Map<Long, DraftMatchDto> results = new HashMap<>();
+        for (Map.Entry<String, List<DraftMatchDto>> entry : bySport.entrySet()) {
+            for (DraftMatchDto result : unifiedCompatibilityService.calculateDraftMatchCompatibility(
+                    user, entry.getValue(), entry.getKey())) {
+                if (!Boolean.TRUE.equals(result.getAiScoreUsed())) {
+                    return false;
+                }
+                if (result.getId() != null && result.getCompatibilityScore() != null) {
+                    results.put(result.getId(), result);
+                }
+            }
+        }
+
+        Map<Long, DraftMatchScore> existing = draftMatchScoreRepository.findByUserId(user.getId()).stream()
+                .collect(Collectors.toMap(DraftMatchScore::getDraftMatchId, Function.identity()));
+        Set<Long> scoredIds = new HashSet<>();
+        List<DraftMatchScore> saved = new ArrayList<>();
+        List<DraftMatchScore> deleted = new ArrayList<>();
+        for (DraftMatch match : matches) {
+            scoredIds.add(match.getId());
+            DraftMatchDto result = results.get(match.getId());
+            DraftMatchScore row = existing.get(match.getId());
+            if (result == null) {
+                if (row != null) {
+                    deleted.add(row);
+                }
+                continue;
+            }
+            if (row == null) {
+                row = new DraftMatchScore();
+                row.setUserId(user.getId());
+                row.setDraftMatchId(match.getId());
+            }
+            row.setCompatibilityScore(result.getCompatibilityScore());
+            row.setExplicitScore(result.getExplicitScore());
+            row.setImplicitScore(result.getImplicitScore());
+            saved.add(row);
+        }
+        if (full) {
+            existing.values().stream().filter(row -> !scoredIds.contains(row.getDraftMatchId())).forEach(deleted::add);
+        }
+        // Rows are updated in place, so concurrent listings never see a match without its score
+        draftMatchScoreRepository.saveAll(saved);
+        if (!deleted.isEmpty()) {
+            draftMatchScoreRepository.deleteAllInBatch(deleted);
+        }
+        draftMatchRankingStateRepository.markComputed(user.getId(), runStartedAt);
+        return true;
+    }
+
+    /**
+     * The user's ranking state, after recording that they asked for ranked matches now.
+     * Null for a user asking for the first time.
+     */
+    private DraftMatchRankingState touch(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        DraftMatchRankingState state = draftMatchRankingStateRepository.findById(userId).orElse(null);
+        if (state == null) {
+            try {
+                draftMatchRankingStateRepository.save(new DraftMatchRankingState(userId, now, null));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request of the same user created it
+            }
+        } else if (state.getLastRequestedAt().isBefore(now.minus(TOUCH_INTERVAL))) {
+            draftMatchRankingStateRepository.touch(userId, now);
+        }
+        return state;
+    }
+
+    private DraftMatchDto toPayload(DraftMatch match) {
+        DraftMatchDto dto = new DraftMatchDto();
+        dto.setId(match.getId());
+        dto.setSportType(match.getSportType());
+        dto.setLocationDescription(match.getLocationDescription());
+        dto.setSkillLevel(match.getSkillLevel());
+        try {
+            List<String> tags = match.getRequiredTags() != null
+                    ? objectMapper.readValue(match.getRequiredTags(), new TypeReference<List<String>>() {})
+                    : null;
+            dto.setRequiredTags(tags != null ? tags : new ArrayList<>());
+        } catch (JsonProcessingException e) {
+            dto.setRequiredTags(new ArrayList<>());
+        }
+        return dto;
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("recommendation.materialized.requests", "result", result).increment();
+    }
+
+    private static void apply(DraftMatchDto dto, Double compatibilityScore, Double explicitScore, Double implicitScore,
+                              boolean aiScoreUsed) {
+        dto.setCompatibilityScore(compatibilityScore);
+        dto.setExplicitScore(explicitScore);
+        dto.setImplicitScore(implicitScore);
+        dto.setAiScoreUsed(aiScoreUsed);
+    }
+
+    private static LocalDateTime changedAt(DraftMatch match) {
+        return Objects.requireNonNullElse(match.getUpdatedAt(),
+                Objects.requireNonNullElse(match.getCreatedAt(), LocalDateTime.MIN));
+    }
+}
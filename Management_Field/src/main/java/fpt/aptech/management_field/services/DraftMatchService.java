@@ -59,6 +59,12 @@ public class DraftMatchService {
     @Autowired
     private UnifiedCompatibilityService unifiedCompatibilityService;
     
+    @Autowired
+    private TeammateCandidateIndex teammateCandidateIndex;
+    
+    @Autowired
+    private DraftMatchRecommendationMaterializer draftMatchRecommendationMaterializer;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Transactional
@@ -637,7 +643,14 @@ public class DraftMatchService {
             
             log.info("[RECOMMENDATION_RANKING] Found {} draft matches before recommendation ranking", matchDtos.size());
             
-            // Use unified compatibility service for draft matches ranking
+            // Users active recently have precomputed scores
+            List<DraftMatchDto> materializedMatches = draftMatchRecommendationMaterializer.rank(user, draftMatches, matchDtos);
+            if (materializedMatches != null) {
+                log.info("[RECOMMENDATION_RANKING] Ranked {} draft matches from materialized scores", materializedMatches.size());
+                return materializedMatches;
+            }
+            
+            // Cold user: use unified compatibility service for draft matches ranking
             List<DraftMatchDto> rankedMatches = unifiedCompatibilityService.calculateDraftMatchCompatibility(user, matchDtos, sportType);
             
             log.info("[RECOMMENDATION_RANKING] Successfully ranked {} draft matches using recommendation service", rankedMatches.size());
@@ -1427,17 +1440,8 @@ public class DraftMatchService {
         
         User currentUser = userOpt.get();
         
-        // Get potential teammates based on criteria
-        List<User> potentialTeammates = userRepository.findPotentialTeammates(
-                request.getSportType(),
-                request.getSkillLevel(),
-                request.getLocation(),
-                request.getMaxDistance() != null ? request.getMaxDistance() : 50.0,
-                request.getGenderPreference(),
-                18, // Default min age
-                65, // Default max age
-                userId
-        );
+        // Get potential teammates from the candidate index (by sport, skill band, area and time of day)
+        List<User> potentialTeammates = teammateCandidateIndex.candidates(currentUser, request.getSportType());
         
         log.info("[DRAFT_MATCH_RECOMMEND_TEAMMATES] Found {} potential teammates for user {}", 
                 potentialTeammates.size(), userId);
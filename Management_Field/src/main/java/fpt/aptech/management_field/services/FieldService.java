@@ -40,12 +40,18 @@ public class FieldService {
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private BookingSlotIndex bookingSlotIndex;
+    
+    @Autowired
+    private LocationSpatialIndex locationSpatialIndex;
+    
     public List<FieldMapResponse> searchFieldsForMap(
             BigDecimal latitude, BigDecimal longitude, Double radiusKm,
             String bounds, Long typeId, Long categoryId, 
             Integer minHourlyRate, Integer maxHourlyRate) {
         
-        List<Field> fields;
+        List<Long> locationIds;
         
         if (bounds != null && !bounds.isEmpty()) {
             // Parse bounds: "southWestLat,southWestLng,northEastLat,northEastLng"
@@ -56,15 +62,16 @@ public class FieldService {
                 BigDecimal northEastLat = new BigDecimal(boundsArray[2]);
                 BigDecimal northEastLng = new BigDecimal(boundsArray[3]);
                 
-                fields = fieldRepository.findFieldsWithinBounds(
+                locationIds = locationSpatialIndex.withinBounds(
                     southWestLat, southWestLng, northEastLat, northEastLng
                 );
             } else {
-                fields = fieldRepository.findFieldsWithinRadius(latitude, longitude, radiusKm);
+                locationIds = locationSpatialIndex.withinRadius(latitude, longitude, radiusKm);
             }
         } else {
-            fields = fieldRepository.findFieldsWithinRadius(latitude, longitude, radiusKm);
+            locationIds = locationSpatialIndex.withinRadius(latitude, longitude, radiusKm);
         }
+        List<Field> fields = LocationSpatialIndex.hydrate(locationIds, fieldRepository::findForMapByLocationIds);
         
         // Apply additional filters
         return fields.stream()
@@ -151,8 +158,7 @@ public class FieldService {
         
         // Filter out fields that have confirmed or pending bookings overlapping with the requested time
         return fields.stream()
-            .filter(field -> !bookingRepository.existsByFieldAndFromTimeLessThanEqualAndToTimeGreaterThanEqual(
-                field, toTime, fromTime))
+            .filter(field -> bookingSlotIndex.isAvailable(field.getFieldId(), fromTime, toTime))
             .collect(Collectors.toList());
     }
     
@@ -0,0 +1,228 @@
+package fpt.aptech.management_field.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.aptech.management_field.models.IdempotencyRecord;
+import fpt.aptech.management_field.repositories.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per idempotency key and replays the stored response to retries.
+ * <p>
+ * Recent results are kept in a bounded in-memory LRU map in front of the
+ * idempotency_records table. The table row is inserted before the request runs, so its
+ * unique constraint also turns a concurrent duplicate into a 409 instead of a second run.
+ * Server errors are not stored, so the client can retry them.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_CACHED_RESULTS = 10_000;
+    private static final Duration RETENTION = Duration.ofHours(24);
+    // A claim older than this belongs to a request that died before storing its result
+    private static final Duration ABANDONED_AFTER = Duration.ofMinutes(10);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, StoredResponse> recent = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                    return size() > MAX_CACHED_RESULTS;
+                }
+            });
+
+    /**
+     * Runs the action once for the key, or replays its stored response. Without a key
+     * the action simply runs. The request is hashed so that reusing a key for a different
+     * request is rejected instead of silently replaying the old answer.
+     */
+    public ResponseEntity<?> execute(String endpoint, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String requestHash = hash(request);
+        Optional<StoredResponse> stored = lookup(endpoint, key);
+        if (stored.isPresent()) {
+            return replay(endpoint, stored.get(), requestHash);
+        }
+
+        IdempotencyRecord claim;
+        try {
+            claim = idempotencyRecordRepository.saveAndFlush(
+                    new IdempotencyRecord(null, endpoint, key, requestHash, null, null, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Another request with the same key got there first
+            Optional<StoredResponse> winner = lookup(endpoint, key);
+            return winner.isPresent() ? replay(endpoint, winner.get(), requestHash) : inProgress(endpoint);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.delete(claim);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            idempotencyRecordRepository.delete(claim);
+            return response;
+        }
+        try {
+            claim.setStatusCode(response.getStatusCode().value());
+            claim.setResponseBody(response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null);
+            idempotencyRecordRepository.save(claim);
+            recent.put(cacheKey(endpoint, key), toStored(claim));
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not store idempotent response for {}: {}", endpoint, e.getMessage());
+            idempotencyRecordRepository.delete(claim);
+        }
+        count(endpoint, "executed");
+        return response;
+    }
+
+    /**
+     * Variant for callbacks answered with a redirect: the redirect target is stored and replayed
+     * when {@code isFinal} accepts it. Returns null while another request with the key is running.
+     */
+    public String executeRedirect(String endpoint, String key, Supplier<String> action, Predicate<String> isFinal) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        Optional<StoredResponse> stored = lookup(endpoint, key);
+        if (stored.isPresent() && stored.get().body() != null) {
+            count(endpoint, "replayed");
+            return stored.get().body();
+        }
+
+        IdempotencyRecord claim;
+        try {
+            claim = idempotencyRecordRepository.saveAndFlush(
+                    new IdempotencyRecord(null, endpoint, key, null, null, null, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            count(endpoint, "conflict");
+            return lookup(endpoint, key).map(StoredResponse::body).orElse(null);
+        }
+
+        String redirectUrl;
+        try {
+            redirectUrl = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.delete(claim);
+            throw e;
+        }
+        if (redirectUrl == null || !isFinal.test(redirectUrl)) {
+            idempotencyRecordRepository.delete(claim);
+            return redirectUrl;
+        }
+        claim.setStatusCode(HttpStatus.FOUND.value());
+        claim.setResponseBody(redirectUrl);
+        idempotencyRecordRepository.save(claim);
+        recent.put(cacheKey(endpoint, key), toStored(claim));
+        count(endpoint, "executed");
+        return redirectUrl;
+    }
+
+    @Scheduled(fixedRate = 3600000) // 1 hour
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int removed = idempotencyRecordRepository.deleteExpired(now.minus(RETENTION), now.minus(ABANDONED_AFTER));
+        synchronized (recent) {
+            recent.values().removeIf(response -> response.createdAt().isBefore(now.minus(RETENTION)));
+        }
+        if (removed > 0) {
+            logger.info("Purged {} idempotency records", removed);
+        }
+    }
+
+    // Completed responses only; a record still in progress is reported as absent
+    private Optional<StoredResponse> lookup(String endpoint, String key) {
+        StoredResponse cached = recent.get(cacheKey(endpoint, key));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<StoredResponse> stored = idempotencyRecordRepository.findByEndpointAndIdempotencyKey(endpoint, key)
+                .filter(record -> record.getStatusCode() != null)
+                .map(this::toStored);
+        stored.ifPresent(response -> recent.put(cacheKey(endpoint, key), response));
+        return stored;
+    }
+
+    private ResponseEntity<?> replay(String endpoint, StoredResponse stored, String requestHash) {
+        if (stored.requestHash() != null && !stored.requestHash().equals(requestHash)) {
+            count(endpoint, "mismatch");
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("error", HEADER + " was already used for a different request"));
+        }
+        count(endpoint, "replayed");
+        return ResponseEntity.status(stored.statusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stored.body());
+    }
+
+    private ResponseEntity<?> inProgress(String endpoint) {
+        count(endpoint, "conflict");
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "A request with this " + HEADER + " is still being processed"));
+    }
+
+    private void count(String endpoint, String outcome) {
+        meterRegistry.counter("idempotency.requests", "endpoint", endpoint, "outcome", outcome).increment();
+    }
+
+    private String hash(Object request) {
+        if (request == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private StoredResponse toStored(IdempotencyRecord record) {
+        return new StoredResponse(record.getStatusCode(), record.getResponseBody(), record.getRequestHash(), record.getCreatedAt());
+    }
+
+    private static String cacheKey(String endpoint, String key) {
+        return endpoint + '\u0000' + key;
+    }
+
+    private record StoredResponse(int statusCode, String body, String requestHash, Instant createdAt) {
+    }
+}
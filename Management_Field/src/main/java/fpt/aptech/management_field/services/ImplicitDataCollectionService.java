@@ -1,15 +1,15 @@
 package fpt.aptech.management_field.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import fpt.aptech.management_field.events.BookingConfirmedEvent;
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
 import fpt.aptech.management_field.models.Booking;
 import fpt.aptech.management_field.models.Field;
 import fpt.aptech.management_field.models.User;
 import fpt.aptech.management_field.payload.dtos.SportProfileDto;
 import fpt.aptech.management_field.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,8 +24,12 @@ public class ImplicitDataCollectionService {
 
     @Autowired
     private UserRepository userRepository;
-    
-    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SportProfileService sportProfileService;
 
     @EventListener
     @Transactional
@@ -105,15 +109,8 @@ public class ImplicitDataCollectionService {
     
     private void updateUserSportProfilesWithImplicitTags(User user, List<String> implicitTags) {
         try {
-            Map<String, SportProfileDto> sportProfiles = new HashMap<>();
-            
-            // Parse existing sport profiles
-            if (user.getSportProfiles() != null && !user.getSportProfiles().isEmpty()) {
-                sportProfiles = objectMapper.readValue(
-                    user.getSportProfiles(), 
-                    new TypeReference<Map<String, SportProfileDto>>() {}
-                );
-            }
+            // Editable copy of the existing sport profiles
+            Map<String, SportProfileDto> sportProfiles = sportProfileService.copyProfiles(user);
             
             // Default sport type (assuming football/soccer is most common)
             String defaultSport = "BONG_DA";
@@ -139,10 +136,10 @@ public class ImplicitDataCollectionService {
             sportProfiles.put(defaultSport, profile);
             
             // Save updated sport profiles
-            String updatedSportProfilesJson = objectMapper.writeValueAsString(sportProfiles);
-            user.setSportProfiles(updatedSportProfilesJson);
+            sportProfileService.setProfiles(user, sportProfiles);
             
             userRepository.save(user);
+            eventPublisher.publishEvent(new SportProfileChangedEvent(this, user.getId()));
             
         } catch (JsonProcessingException e) {
             // Log error but don't fail the booking process
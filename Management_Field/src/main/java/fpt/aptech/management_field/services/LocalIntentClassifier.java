@@ -0,0 +1,85 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.payload.dtos.AiResponseV2DTO;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyword-based intent detection, used when the intent model is slow or unavailable.
+ * Much coarser than the model, but answers in microseconds.
+ */
+@Service
+public class LocalIntentClassifier {
+
+    public static final double CONFIDENCE = 0.5;
+
+    // Checked in order, so the more specific intents come first. Keywords are folded (no diacritics).
+    private static final Map<String, List<String>> KEYWORDS = new LinkedHashMap<>();
+
+    static {
+        KEYWORDS.put("tournament_prize", List.of("giai thuong", "tien thuong"));
+        KEYWORDS.put("tournament_fee_inquiry", List.of("le phi", "phi tham gia", "phi giai"));
+        KEYWORDS.put("tournament_schedule", List.of("lich thi dau"));
+        KEYWORDS.put("tournament_registration", List.of("dang ky giai", "dang ky tham gia"));
+        KEYWORDS.put("tournament_inquiry", List.of("giai dau", "tournament"));
+        KEYWORDS.put("booking_management", List.of("huy dat", "huy san", "doi lich", "lich dat cua toi"));
+        KEYWORDS.put("booking_instruction", List.of("cach dat", "dat san", "huong dan dat"));
+        KEYWORDS.put("payment_methods", List.of("thanh toan", "chuyen khoan", "paypal"));
+        KEYWORDS.put("availability_inquiry", List.of("con trong", "lich trong", "con san"));
+        KEYWORDS.put("operating_hours", List.of("gio mo cua", "gio hoat dong", "may gio", "dong cua"));
+        KEYWORDS.put("amenities_inquiry", List.of("tien ich", "wifi", "gui xe", "phong thay do"));
+        KEYWORDS.put("price_inquiry", List.of("gia", "bao nhieu tien", "chi phi"));
+        KEYWORDS.put("location_inquiry", List.of("dia chi", "o dau", "dia diem"));
+        KEYWORDS.put("thanks", List.of("cam on", "thank"));
+        KEYWORDS.put("goodbye", List.of("tam biet", "bye"));
+        KEYWORDS.put("greeting", List.of("xin chao", "chao", "hello", "hi"));
+    }
+
+    /**
+     * Best-guess intent for the message, "fallback" when no keyword matches. Only the
+     * field type is extracted as an entity.
+     */
+    public AiResponseV2DTO classify(String message) {
+        String text = " " + SearchIndexService.fold(message) + " ";
+        Map<String, Object> entities = new HashMap<>();
+        String fieldType = extractFieldType(text);
+        if (fieldType != null) {
+            entities.put("field_type", fieldType);
+        }
+        for (Map.Entry<String, List<String>> intent : KEYWORDS.entrySet()) {
+            for (String keyword : intent.getValue()) {
+                // Whole words only, so "gia" does not match "giai"
+                if (text.contains(" " + keyword + " ")) {
+                    return new AiResponseV2DTO(intent.getKey(), entities, CONFIDENCE);
+                }
+            }
+        }
+        return new AiResponseV2DTO("fallback", entities, 0.0);
+    }
+
+    private static String extractFieldType(String text) {
+        if (text.contains("san 5") || text.contains("5 nguoi")) {
+            return "Sân 5 người";
+        }
+        if (text.contains("san 7") || text.contains("7 nguoi")) {
+            return "Sân 7 người";
+        }
+        if (text.contains("san 11") || text.contains("11 nguoi")) {
+            return "Sân 11 người";
+        }
+        if (text.contains("cau long") || text.contains("badminton")) {
+            return "Cầu lông";
+        }
+        if (text.contains("tennis")) {
+            return "Tennis";
+        }
+        if (text.contains("bong ro") || text.contains("basketball")) {
+            return "Bóng rổ";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,270 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.BookingChangedEvent;
+import fpt.aptech.management_field.events.ScheduleChangedEvent;
+import fpt.aptech.management_field.models.Booking;
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.FieldClosure;
+import fpt.aptech.management_field.models.GlobalClosure;
+import fpt.aptech.management_field.models.HolidayClosure;
+import fpt.aptech.management_field.models.OperatingHour;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.DayAvailability;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.FieldAvailability;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.SlotStatus;
+import fpt.aptech.management_field.repositories.BookingRepository;
+import fpt.aptech.management_field.repositories.FieldClosureRepository;
+import fpt.aptech.management_field.repositories.FieldRepository;
+import fpt.aptech.management_field.repositories.GlobalClosureRepository;
+import fpt.aptech.management_field.repositories.HolidayClosureRepository;
+import fpt.aptech.management_field.repositories.OperatingHourRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the booking grid of a location: one row per field, one column per time slot.
+ * <p>
+ * Operating hours, field/holiday/global closures and bookings are each loaded with a
+ * single query for the whole requested range, then painted onto the grid in one pass.
+ * Days are cached per (location, day, slot size) and evicted when a booking or a
+ * closure touching them changes.
+ */
+@Service
+public class LocationAvailabilityService {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_RANGE_DAYS = 31;
+    // Safety net for changes made by other app instances, which do not reach this cache
+    private static final Duration CACHE_TTL = Duration.ofMinutes(5);
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private OperatingHourRepository operatingHourRepository;
+
+    @Autowired
+    private FieldClosureRepository fieldClosureRepository;
+
+    @Autowired
+    private HolidayClosureRepository holidayClosureRepository;
+
+    @Autowired
+    private GlobalClosureRepository globalClosureRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final Map<DayKey, CachedDay> cache = new ConcurrentHashMap<>();
+
+    @Transactional(readOnly = true)
+    public LocationAvailabilityResponse getAvailability(Long locationId, LocalDate fromDate, LocalDate toDate, int slotMinutes) {
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException("slotMinutes must divide a day evenly");
+        }
+
+        Instant now = Instant.now();
+        Map<LocalDate, DayAvailability> days = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            CachedDay cached = cache.get(new DayKey(locationId, date, slotMinutes));
+            if (cached != null && cached.builtAt().plus(CACHE_TTL).isAfter(now)) {
+                days.put(date, cached.day());
+            } else {
+                if (firstMissing == null) {
+                    firstMissing = date;
+                }
+                lastMissing = date;
+            }
+        }
+
+        if (firstMissing != null) {
+            Map<LocalDate, DayAvailability> built = build(locationId, firstMissing, lastMissing, slotMinutes);
+            built.forEach((date, day) -> cache.put(new DayKey(locationId, date, slotMinutes), new CachedDay(day, now)));
+            built.forEach(days::putIfAbsent);
+        }
+
+        List<DayAvailability> ordered = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            ordered.add(days.get(date));
+        }
+        return new LocationAvailabilityResponse(locationId, slotMinutes, ordered);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.getBooking();
+        if (booking.getField() == null || booking.getField().getLocation() == null
+                || booking.getFromTime() == null || booking.getToTime() == null) {
+            return;
+        }
+        Long locationId = booking.getField().getLocation().getLocationId();
+        LocalDate first = LocalDate.ofInstant(booking.getFromTime(), ZoneId.systemDefault());
+        LocalDate last = LocalDate.ofInstant(booking.getToTime(), ZoneId.systemDefault());
+        cache.keySet().removeIf(key -> key.locationId().equals(locationId)
+                && !key.date().isBefore(first) && !key.date().isAfter(last));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.getLocationId() == null) {
+            cache.clear();
+        } else {
+            cache.keySet().removeIf(key -> key.locationId().equals(event.getLocationId()));
+        }
+    }
+
+    @Scheduled(fixedRate = 600000) // 10 minutes
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(CACHE_TTL);
+        cache.values().removeIf(cached -> cached.builtAt().isBefore(cutoff));
+    }
+
+    private Map<LocalDate, DayAvailability> build(Long locationId, LocalDate fromDate, LocalDate toDate, int slotMinutes) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime rangeStart = fromDate.atStartOfDay();
+        LocalDateTime rangeEnd = toDate.plusDays(1).atStartOfDay();
+        int slotCount = MINUTES_PER_DAY / slotMinutes;
+
+        List<LocalTime> slotStarts = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slotStarts.add(LocalTime.MIDNIGHT.plusMinutes((long) i * slotMinutes));
+        }
+
+        List<Field> fields = fieldRepository.getFieldsByLocationId(locationId);
+        Map<LocalDate, DayAvailability> result = new HashMap<>();
+        if (fields.isEmpty()) {
+            for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+                result.put(date, new DayAvailability(date, slotStarts, List.of()));
+            }
+            return result;
+        }
+        Set<Long> fieldIds = fields.stream().map(Field::getFieldId).collect(Collectors.toSet());
+
+        // One query per source for the whole range
+        Map<Long, Map<Integer, OperatingHour>> hoursByField = new HashMap<>();
+        for (OperatingHour hour : operatingHourRepository.findByFieldIds(fieldIds)) {
+            hoursByField.computeIfAbsent(hour.getField().getFieldId(), id -> new HashMap<>()).put(hour.getDayOfWeek(), hour);
+        }
+        Map<Long, List<FieldClosure>> closuresByField = fieldClosureRepository
+                .findOverlappingForFields(fieldIds, rangeStart, rangeEnd).stream()
+                .collect(Collectors.groupingBy(c -> c.getField().getFieldId()));
+        Set<LocalDate> holidays = new HashSet<>();
+        for (HolidayClosure holiday : holidayClosureRepository.findForLocationBetween(locationId, fromDate, toDate)) {
+            holidays.add(holiday.getDate());
+        }
+        List<GlobalClosure> globalClosures = globalClosureRepository.findOverlappingForLocation(locationId, rangeStart, rangeEnd);
+        Map<Long, List<LocalDateTime[]>> bookingsByField = new HashMap<>();
+        for (Object[] row : bookingRepository.findActiveSlotsForFields(fieldIds,
+                rangeStart.atZone(zone).toInstant(), rangeEnd.atZone(zone).toInstant())) {
+            bookingsByField.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new LocalDateTime[]{
+                    LocalDateTime.ofInstant((Instant) row[1], zone), LocalDateTime.ofInstant((Instant) row[2], zone)});
+        }
+
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            LocalDateTime dayStart = date.atStartOfDay();
+            boolean holiday = holidays.contains(date);
+            List<FieldAvailability> rows = new ArrayList<>(fields.size());
+            for (Field field : fields) {
+                SlotStatus[] cells = new SlotStatus[slotCount];
+                Arrays.fill(cells, SlotStatus.FREE);
+
+                if (holiday || !Boolean.TRUE.equals(field.getIsActive())) {
+                    Arrays.fill(cells, SlotStatus.CLOSED);
+                } else {
+                    for (LocalDateTime[] booking : bookingsByField.getOrDefault(field.getFieldId(), List.of())) {
+                        paint(cells, dayStart, booking[0], booking[1], slotMinutes, SlotStatus.BOOKED);
+                    }
+                    paintOutsideOperatingHours(cells, dayStart, hoursByField.get(field.getFieldId()), slotMinutes);
+                    for (FieldClosure closure : closuresByField.getOrDefault(field.getFieldId(), List.of())) {
+                        paint(cells, dayStart, closure.getStartDate(), closure.getEndDate(), slotMinutes, SlotStatus.CLOSED);
+                    }
+                    for (GlobalClosure closure : globalClosures) {
+                        paint(cells, dayStart, closure.getStartDate(), closure.getEndDate(), slotMinutes, SlotStatus.CLOSED);
+                    }
+                }
+
+                rows.add(new FieldAvailability(field.getFieldId(), field.getName(),
+                        field.getType() != null ? field.getType().getName() : null, Arrays.asList(cells)));
+            }
+            result.put(date, new DayAvailability(date, slotStarts, rows));
+        }
+        return result;
+    }
+
+    /**
+     * Fields without any operating hours are treated as open all day. Fields with hours
+     * for other weekdays only are closed on this one. Day of week follows
+     * {@link java.time.DayOfWeek#getValue()} (1 = Monday).
+     */
+    private void paintOutsideOperatingHours(SlotStatus[] cells, LocalDateTime dayStart,
+                                            Map<Integer, OperatingHour> hours, int slotMinutes) {
+        if (hours == null || hours.isEmpty()) {
+            return;
+        }
+        OperatingHour today = hours.get(dayStart.getDayOfWeek().getValue());
+        if (today == null || today.getOpeningHour() == null || today.getClosingHour() == null) {
+            Arrays.fill(cells, SlotStatus.CLOSED);
+            return;
+        }
+        LocalDateTime opening = dayStart.with(today.getOpeningHour());
+        // A closing hour at or before opening (typically 00:00) means the field closes at midnight
+        LocalDateTime closing = today.getClosingHour().isAfter(today.getOpeningHour())
+                ? dayStart.with(today.getClosingHour())
+                : dayStart.plusDays(1);
+        paint(cells, dayStart, dayStart, opening, slotMinutes, SlotStatus.CLOSED);
+        paint(cells, dayStart, closing, dayStart.plusDays(1), slotMinutes, SlotStatus.CLOSED);
+    }
+
+    // Marks every slot touched by [from, to) with the status unless it already holds a stronger one
+    private void paint(SlotStatus[] cells, LocalDateTime dayStart, LocalDateTime from, LocalDateTime to,
+                       int slotMinutes, SlotStatus status) {
+        if (from == null || to == null) {
+            return;
+        }
+        long start = Math.max(0, ChronoUnit.MINUTES.between(dayStart, from));
+        long end = Math.min(MINUTES_PER_DAY, ChronoUnit.MINUTES.between(dayStart, to));
+        if (end <= start) {
+            return;
+        }
+        int first = (int) (start / slotMinutes);
+        int last = (int) ((end + slotMinutes - 1) / slotMinutes);
+        for (int i = first; i < last; i++) {
+            if (cells[i].ordinal() < status.ordinal()) {
+                cells[i] = status;
+            }
+        }
+    }
+
+    private record DayKey(Long locationId, LocalDate date, int slotMinutes) {
+    }
+
+    private record CachedDay(DayAvailability day, Instant builtAt) {
+    }
+}
@@ -0,0 +1,308 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.models.LocationStats;
+import fpt.aptech.management_field.payload.response.LocationMapResponse;
+import fpt.aptech.management_field.payload.response.MapClusterResponse;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map markers for any zoom level and viewport, served from a pre-aggregated grid pyramid.
+ * <p>
+ * Locations are projected to Web Mercator and bucketed into cells of a quarter tile at the
+ * finest clustered zoom; each coarser level merges four cells of the level below. A request
+ * only reads the cells inside its viewport, so the response size depends on the screen,
+ * not on how many locations exist. From {@link #MARKER_ZOOM} on, locations are returned
+ * one by one. The pyramid is rebuilt off the request path, shortly after a location
+ * changes and periodically to pick up price and rating changes.
+ */
+@Service
+public class LocationClusterService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationClusterService.class);
+
+    public static final int MAX_CLUSTER_ZOOM = 14;
+    public static final int MARKER_ZOOM = MAX_CLUSTER_ZOOM + 1;
+    // Cells per tile side: a 256px tile is split into 64px cells
+    private static final int CELLS_PER_TILE_SHIFT = 2;
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationStatsService locationStatsService;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of(), List.of(), Map.of());
+    private volatile boolean dirty = true;
+    private volatile Instant builtAt = Instant.EPOCH;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Marker> markers = new ArrayList<>();
+        List<LocationMapResponse> unplaced = new ArrayList<>();
+        loadMarkers(markers, unplaced);
+        List<Map<Long, Cell>> levels = new ArrayList<>(MAX_CLUSTER_ZOOM + 1);
+        for (int zoom = 0; zoom <= MAX_CLUSTER_ZOOM; zoom++) {
+            levels.add(null);
+        }
+
+        // Finest level from the points, then each level from the one below
+        Map<Long, Cell> finest = new HashMap<>();
+        Map<Long, List<Marker>> members = new HashMap<>();
+        for (Marker marker : markers) {
+            long key = cellKey(cellIndex(marker.x(), MAX_CLUSTER_ZOOM), cellIndex(marker.y(), MAX_CLUSTER_ZOOM));
+            finest.computeIfAbsent(key, k -> new Cell()).add(marker);
+            members.computeIfAbsent(key, k -> new ArrayList<>()).add(marker);
+        }
+        levels.set(MAX_CLUSTER_ZOOM, finest);
+        for (int zoom = MAX_CLUSTER_ZOOM - 1; zoom >= 0; zoom--) {
+            Map<Long, Cell> parent = new HashMap<>();
+            for (Map.Entry<Long, Cell> child : levels.get(zoom + 1).entrySet()) {
+                long key = cellKey(column(child.getKey()) >> 1, row(child.getKey()) >> 1);
+                parent.computeIfAbsent(key, k -> new Cell()).merge(child.getValue());
+            }
+            levels.set(zoom, parent);
+        }
+
+        snapshot = new Snapshot(markers, unplaced, levels, members);
+        builtAt = Instant.now();
+        logger.info("Built map cluster pyramid for {} locations", markers.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelay = 10000) // 10 seconds
+    public void refresh() {
+        if (dirty || builtAt.plus(REFRESH_INTERVAL).isBefore(Instant.now())) {
+            dirty = false;
+            rebuild();
+        }
+    }
+
+    /**
+     * Markers inside the box given by its south-west and north-east corners at the given zoom.
+     */
+    public List<MapClusterResponse> getClusters(int zoom, BigDecimal southWestLat, BigDecimal southWestLng,
+                                                BigDecimal northEastLat, BigDecimal northEastLng) {
+        if (zoom < 0) {
+            throw new IllegalArgumentException("zoom must not be negative");
+        }
+        if (southWestLat.compareTo(northEastLat) > 0 || southWestLng.compareTo(northEastLng) > 0) {
+            throw new IllegalArgumentException("Bounds must be given as south-west then north-east corner");
+        }
+        Snapshot current = snapshot;
+        // Nothing to cluster until the first pyramid is built
+        if (current.levels().isEmpty()) {
+            return new ArrayList<>();
+        }
+        int level = Math.min(zoom, MAX_CLUSTER_ZOOM);
+        double minX = projectX(southWestLng.doubleValue());
+        double maxX = projectX(northEastLng.doubleValue());
+        // Mercator y grows southwards
+        double minY = projectY(northEastLat.doubleValue());
+        double maxY = projectY(southWestLat.doubleValue());
+        long minColumn = cellIndex(minX, level);
+        long maxColumn = cellIndex(maxX, level);
+        long minRow = cellIndex(minY, level);
+        long maxRow = cellIndex(maxY, level);
+
+        List<MapClusterResponse> result = new ArrayList<>();
+        if (zoom >= MARKER_ZOOM) {
+            for (long key : cellKeysInRange(current.levels().get(level), minColumn, maxColumn, minRow, maxRow)) {
+                for (Marker marker : current.members().get(key)) {
+                    if (marker.x() >= minX && marker.x() <= maxX && marker.y() >= minY && marker.y() <= maxY) {
+                        result.add(toResponse(marker));
+                    }
+                }
+            }
+            return result;
+        }
+        Map<Long, Cell> cells = current.levels().get(level);
+        for (long key : cellKeysInRange(cells, minColumn, maxColumn, minRow, maxRow)) {
+            result.add(cells.get(key).toResponse());
+        }
+        return result;
+    }
+
+    /**
+     * Every location as a map marker, from the same snapshot.
+     */
+    public List<LocationMapResponse> getAllMarkers() {
+        Snapshot current = snapshot;
+        List<LocationMapResponse> result = new ArrayList<>(current.markers().size() + current.unplaced().size());
+        for (Marker marker : current.markers()) {
+            result.add(marker.details());
+        }
+        result.addAll(current.unplaced());
+        return result;
+    }
+
+    private List<Long> cellKeysInRange(Map<Long, Cell> cells, long minColumn, long maxColumn, long minRow, long maxRow) {
+        List<Long> keys = new ArrayList<>();
+        // A viewport larger than the data is cheaper to answer by scanning the occupied cells
+        if ((maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+            for (long key : cells.keySet()) {
+                long column = column(key);
+                long row = row(key);
+                if (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        }
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                long key = cellKey(column, row);
+                if (cells.containsKey(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    // One query for every location; the aggregates come from the stats read model
+    private void loadMarkers(List<Marker> markers, List<LocationMapResponse> unplaced) {
+        for (Object[] row : locationRepository.findMapRows()) {
+            Long locationId = (Long) row[0];
+            LocationStats stats = locationStatsService.get(locationId);
+            Integer minPrice = stats.getMinHourlyRate();
+            BigDecimal rating = stats.getAverageRating();
+            LocationMapResponse details = new LocationMapResponse();
+            details.setLocationId(locationId);
+            details.setName((String) row[1]);
+            details.setSlug((String) row[2]);
+            details.setAddress((String) row[3]);
+            details.setDescription((String) row[4]);
+            details.setLatitude((BigDecimal) row[5]);
+            details.setLongitude((BigDecimal) row[6]);
+            details.setThumbnailImageUrl((String) row[7]);
+            details.setFieldCount(stats.getFieldCount());
+            details.setStartingPrice(minPrice != null ? new BigDecimal(minPrice) : null);
+            details.setAverageRating(rating);
+            if (details.getLatitude() == null || details.getLongitude() == null) {
+                unplaced.add(details);
+                continue;
+            }
+            markers.add(new Marker(details, projectX(details.getLongitude().doubleValue()),
+                    projectY(details.getLatitude().doubleValue()), minPrice, rating != null ? rating.doubleValue() : null));
+        }
+    }
+
+    private static MapClusterResponse toResponse(Marker marker) {
+        LocationMapResponse details = marker.details();
+        return new MapClusterResponse(details.getLatitude(), details.getLongitude(), 1, details.getStartingPrice(),
+                details.getAverageRating(), details.getLocationId(), details.getName(), details.getSlug());
+    }
+
+    // Web Mercator, both axes mapped to [0, 1)
+    private static double projectX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    private static double projectY(double latitude) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static long cellIndex(double projected, int zoom) {
+        long cells = 1L << (zoom + CELLS_PER_TILE_SHIFT);
+        return Math.max(0, Math.min(cells - 1, (long) Math.floor(projected * cells)));
+    }
+
+    private static long cellKey(long column, long row) {
+        return (column << 32) | row;
+    }
+
+    private static long column(long key) {
+        return key >>> 32;
+    }
+
+    private static long row(long key) {
+        return key & 0xffffffffL;
+    }
+
+    private record Marker(LocationMapResponse details, double x, double y, Integer minPrice, Double rating) {
+    }
+
+    // Locations without coordinates are listed but never clustered
+    private record Snapshot(List<Marker> markers, List<LocationMapResponse> unplaced,
+                            List<Map<Long, Cell>> levels, Map<Long, List<Marker>> members) {
+    }
+
+    /**
+     * Running aggregate of the locations in one cell.
+     */
+    private static final class Cell {
+        private int count;
+        private double latitudeSum;
+        private double longitudeSum;
+        private Integer minPrice;
+        private double ratingSum;
+        private int ratedCount;
+        private Marker single;
+
+        void add(Marker marker) {
+            count++;
+            latitudeSum += marker.details().getLatitude().doubleValue();
+            longitudeSum += marker.details().getLongitude().doubleValue();
+            minPrice = min(minPrice, marker.minPrice());
+            if (marker.rating() != null) {
+                ratingSum += marker.rating();
+                ratedCount++;
+            }
+            single = count == 1 ? marker : null;
+        }
+
+        void merge(Cell other) {
+            count += other.count;
+            latitudeSum += other.latitudeSum;
+            longitudeSum += other.longitudeSum;
+            minPrice = min(minPrice, other.minPrice);
+            ratingSum += other.ratingSum;
+            ratedCount += other.ratedCount;
+            single = count == other.count ? other.single : null;
+        }
+
+        MapClusterResponse toResponse() {
+            if (single != null) {
+                return LocationClusterService.toResponse(single);
+            }
+            return new MapClusterResponse(
+                    BigDecimal.valueOf(latitudeSum / count).setScale(6, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(longitudeSum / count).setScale(6, RoundingMode.HALF_UP),
+                    count,
+                    minPrice != null ? new BigDecimal(minPrice) : null,
+                    ratedCount > 0 ? BigDecimal.valueOf(ratingSum / ratedCount).setScale(2, RoundingMode.HALF_UP) : null,
+                    null, null, null);
+        }
+
+        private static Integer min(Integer a, Integer b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null ? a : Math.min(a, b);
+        }
+    }
+}
@@ -2,10 +2,12 @@ package fpt.aptech.management_field.services;
 
 import fpt.aptech.management_field.mappers.LocationReviewMapper;
 import java.util.ArrayList;
+import java.util.Comparator;
 import fpt.aptech.management_field.models.Field;
 import fpt.aptech.management_field.models.FieldType;
 import fpt.aptech.management_field.models.Location;
 import fpt.aptech.management_field.models.LocationReview;
+import fpt.aptech.management_field.models.LocationStats;
 import fpt.aptech.management_field.payload.dtos.BookingDTO;
 import fpt.aptech.management_field.payload.dtos.FieldDTO;
 import fpt.aptech.management_field.payload.dtos.FieldTypeDto;
@@ -14,6 +16,7 @@ import fpt.aptech.management_field.payload.response.FieldSummaryResponse;
 import fpt.aptech.management_field.payload.response.LocationCardResponse;
 import fpt.aptech.management_field.payload.response.LocationDetailResponse;
 import fpt.aptech.management_field.payload.response.LocationMapResponse;
+import fpt.aptech.management_field.payload.response.MapClusterResponse;
 import fpt.aptech.management_field.repositories.BookingRepository;
 import fpt.aptech.management_field.repositories.FieldRepository;
 import fpt.aptech.management_field.repositories.LocationRepository;
@@ -56,6 +59,18 @@ public class LocationService {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private LocationSpatialIndex locationSpatialIndex;
+
+    @Autowired
+    private LocationClusterService locationClusterService;
+
+    @Autowired
+    private LocationStatsService locationStatsService;
+
+    @Autowired
+    private LocationSlugIndex locationSlugIndex;
+
     public List<LocationMapResponse> searchLocationsForMap(BigDecimal latitude,
                                                            BigDecimal longitude,
                                                            Double radiusKm,
@@ -71,11 +86,13 @@ public class LocationService {
         boolean hasFilters = typeId != null || categoryId != null ||
                 minHourlyRate != null || maxHourlyRate != null;
 
+        // Candidates come from the in-memory index; only the matches are loaded
+        List<Long> candidateIds = locationSpatialIndex.withinRadius(latitude, longitude, radiusKm);
         if (hasFilters) {
-            locations = locationRepository.findLocationsWithinRadiusWithFilters(
-                    latitude, longitude, radiusKm, typeId, categoryId, minHourlyRate, maxHourlyRate);
+            locations = LocationSpatialIndex.hydrate(candidateIds, ids -> locationRepository.findByIdsWithFieldFilters(
+                    ids, typeId, categoryId, minHourlyRate, maxHourlyRate));
         } else {
-            locations = locationRepository.findLocationsWithinRadius(latitude, longitude, radiusKm);
+            locations = LocationSpatialIndex.hydrate(candidateIds, locationRepository::findAllById);
         }
 
         return locations.stream().map(this::convertToLocationMapResponse).collect(Collectors.toList());
@@ -91,28 +108,20 @@ public class LocationService {
         response.setLatitude(location.getLatitude());
         response.setLongitude(location.getLongitude());
         
-        // Get field count
-        Integer fieldCount = locationRepository.countFieldsByLocationId(location.getLocationId());
-        response.setFieldCount(fieldCount != null ? fieldCount : 0);
-        
-        // Get average rating
-        BigDecimal averageRating = locationRepository.getAverageRatingByLocationId(location.getLocationId());
-        response.setAverageRating(averageRating);
+        // Aggregates come from the stats read model, one row per location
+        LocationStats stats = locationStatsService.get(location.getLocationId());
+        response.setFieldCount(stats.getFieldCount());
+        response.setAverageRating(stats.getAverageRating());
         
         // Get thumbnail image from location or first field
         String thumbnailUrl = location.getThumbnailUrl();
         if (thumbnailUrl == null || thumbnailUrl.trim().isEmpty()) {
-            // Try to get thumbnail from first field if location doesn't have one
-            List<Field> fields = fieldRepository.getFieldsByLocationId(location.getLocationId());
-            if (!fields.isEmpty() && fields.get(0).getThumbnailUrl() != null) {
-                thumbnailUrl = fields.get(0).getThumbnailUrl();
-            }
+            thumbnailUrl = stats.getFieldThumbnailUrl();
         }
         response.setThumbnailImageUrl(thumbnailUrl);
         
-        // Get starting price (minimum hourly rate from fields)
-        Integer minHourlyRate = locationRepository.getMinimumHourlyRateByLocationId(location.getLocationId());
-        response.setStartingPrice(minHourlyRate != null ? new BigDecimal(minHourlyRate) : null);
+        // Starting price is the minimum hourly rate of the location's fields
+        response.setStartingPrice(stats.getMinHourlyRate() != null ? new BigDecimal(stats.getMinHourlyRate()) : null);
         
         return response;
     }
@@ -159,88 +168,37 @@ public class LocationService {
     }
 
     public List<LocationCardResponse> getAllLocationsForCards(String sortBy) {
-        List<Location> locations;
+        List<Location> locations = new ArrayList<>(locationRepository.findAll());
         
-        // Sort locations based on the sortBy parameter
+        // Sort locations based on the sortBy parameter, using the precomputed stats
+        Comparator<Location> order;
         switch (sortBy.toLowerCase()) {
-            case "rating":
-                locations = locationRepository.findAllSortedByRating();
-                break;
             case "popularity":
-                // Calculate 30 days ago for popularity sorting
-                java.time.Instant thirtyDaysAgo = java.time.Instant.now().minus(30, java.time.temporal.ChronoUnit.DAYS);
-                locations = locationRepository.findAllSortedByPopularity(thirtyDaysAgo);
+                order = Comparator.comparingLong(
+                        (Location location) -> locationStatsService.get(location.getLocationId()).getRecentBookingCount()).reversed();
                 break;
+            case "rating":
             default:
                 // Default to rating if sortBy is not recognized
-                locations = locationRepository.findAllSortedByRating();
+                order = Comparator.comparing(
+                        (Location location) -> locationStatsService.get(location.getLocationId()).getAverageRating(),
+                        Comparator.nullsLast(Comparator.reverseOrder()));
                 break;
         }
+        locations.sort(order);
         
         return locations.stream().map(this::convertToLocationCardResponse).collect(Collectors.toList());
     }
 
     public List<LocationMapResponse> getAllLocationsForMap() {
-        // Step 1: Fetch all location entities from the database.
-        List<Location> locations = locationRepository.findAll();
-        System.out.println("Found " + locations.size() + " locations in the database to process for map.");
-        
-        if (locations.isEmpty()) {
-            System.out.println("WARNING: No locations found in database. Check if seed data is loaded.");
-            return new ArrayList<>();
-        }
-        
-        // Step 2: Convert each Location entity to LocationMapResponse
-        List<LocationMapResponse> result = locations.stream()
-                .map(location -> {
-                    try {
-                        LocationMapResponse response = new LocationMapResponse();
-                        response.setLocationId(location.getLocationId());
-                        response.setName(location.getName());
-                        response.setSlug(location.getSlug());
-                        response.setAddress(location.getAddress());
-                        response.setDescription(location.getDescription());
-                        
-                        // Ensure latitude and longitude are not null before setting
-                        if (location.getLatitude() != null) {
-                            response.setLatitude(location.getLatitude());
-                        } else {
-                            System.out.println("WARNING: Location " + location.getName() + " has null latitude");
-                        }
-                        
-                        if (location.getLongitude() != null) {
-                            response.setLongitude(location.getLongitude());
-                        } else {
-                            System.out.println("WARNING: Location " + location.getName() + " has null longitude");
-                        }
-                        
-                        // Get field count
-                        Integer fieldCount = locationRepository.countFieldsByLocationId(location.getLocationId());
-                        response.setFieldCount(fieldCount != null ? fieldCount : 0);
-                        
-                        // Get average rating (may be null if no reviews)
-                        BigDecimal averageRating = locationRepository.getAverageRatingByLocationId(location.getLocationId());
-                        response.setAverageRating(averageRating);
-                        
-                        // Set thumbnail (placeholder for now)
-                        response.setThumbnailImageUrl(null);
-                        
-                        System.out.println("Processed location: " + location.getName() + " (ID: " + location.getLocationId() + ")");
-                        return response;
-                    } catch (Exception e) {
-                        System.out.println("ERROR processing location " + location.getLocationId() + ": " + e.getMessage());
-                        e.printStackTrace();
-                        return null;
-                    }
-                })
-                .filter(response -> response != null) // Filter out any null responses from errors
-                .collect(Collectors.toList());
-        
-        System.out.println("Successfully processed " + result.size() + " locations for map data.");
-        return result;
+        // Served from the cluster snapshot, built from the location stats read model
+        return locationClusterService.getAllMarkers();
     }
 
-
+    public List<MapClusterResponse> getMapClusters(int zoom, BigDecimal southWestLat, BigDecimal southWestLng,
+                                                   BigDecimal northEastLat, BigDecimal northEastLng) {
+        return locationClusterService.getClusters(zoom, southWestLat, southWestLng, northEastLat, northEastLng);
+    }
 
     private FieldSummaryResponse convertToFieldSummaryResponse(Field field) {
         FieldSummaryResponse response = new FieldSummaryResponse();
@@ -267,31 +225,17 @@ public class LocationService {
         response.setAddress(location.getAddress());
         response.setDescription(location.getDescription());
 
-        // Get field count
-        Integer fieldCount = locationRepository.countFieldsByLocationId(location.getLocationId());
-        response.setFieldCount(fieldCount != null ? fieldCount : 0);
-        
-        // Get average rating
-        BigDecimal averageRating = locationRepository.getAverageRatingByLocationId(location.getLocationId());
-        response.setAverageRating(averageRating != null ? averageRating.doubleValue() : null);
-        
-        // Get starting price (minimum hourly rate from fields)
-        Integer minHourlyRate = locationRepository.getMinimumHourlyRateByLocationId(location.getLocationId());
-        response.setStartingPrice(minHourlyRate != null ? new BigDecimal(minHourlyRate) : null);
-        
-        // Get booking count (last 30 days)
-        java.time.Instant thirtyDaysAgo = java.time.Instant.now().minus(30, java.time.temporal.ChronoUnit.DAYS);
-        Long bookingCount = locationRepository.getBookingCountByLocationId(location.getLocationId(), thirtyDaysAgo);
-        response.setBookingCount(bookingCount != null ? bookingCount : 0L);
+        // Aggregates come from the stats read model, one row per location
+        LocationStats stats = locationStatsService.get(location.getLocationId());
+        response.setFieldCount(stats.getFieldCount());
+        response.setAverageRating(stats.getAverageRating() != null ? stats.getAverageRating().doubleValue() : null);
+        response.setStartingPrice(stats.getMinHourlyRate() != null ? new BigDecimal(stats.getMinHourlyRate()) : null);
+        response.setBookingCount(stats.getRecentBookingCount());
         
         // Set main image URL from location's thumbnail or first field's thumbnail
         String mainImageUrl = location.getThumbnailUrl();
         if (mainImageUrl == null || mainImageUrl.isEmpty()) {
-            // Try to get thumbnail from first field
-            List<Field> fields = fieldRepository.getFieldsByLocationId(location.getLocationId());
-            if (!fields.isEmpty()) {
-                mainImageUrl = fields.get(0).getThumbnailUrl();
-            }
+            mainImageUrl = stats.getFieldThumbnailUrl();
         }
         response.setMainImageUrl(mainImageUrl);
 
@@ -299,50 +243,32 @@ public class LocationService {
     }
 
     public LocationDetailResponse getLocationDetail(String locationSlug) {
-        System.out.println("=== LOCATION SEARCH DEBUG ===");
-        System.out.println("Searching for location with slug: " + locationSlug);
-        
-        // Try exact match first
-        Location location = locationRepository.getLocationBySlug(locationSlug);
-        System.out.println("Exact match result: " + (location != null ? "Found - " + location.getName() : "Not found"));
-        
-        if (location == null) {
-            // Try case-insensitive search
-            System.out.println("Trying case-insensitive search...");
-            location = locationRepository.getLocationBySlugIgnoreCase(locationSlug);
-            System.out.println("Case-insensitive match result: " + (location != null ? "Found - " + location.getName() : "Not found"));
-        }
-        
-        if (location == null) {
-            // Try native SQL query
-            System.out.println("Trying native SQL query...");
-            location = locationRepository.getLocationBySlugNative(locationSlug);
-            System.out.println("Native SQL match result: " + (location != null ? "Found - " + location.getName() : "Not found"));
-        }
-        
-        if (location == null) {
-            // Debug: List all locations
-            System.out.println("Location not found. Listing all available locations:");
-            List<Location> allLocations = locationRepository.findAllLocations();
-            System.out.println("Total locations in database: " + allLocations.size());
-            for (Location loc : allLocations) {
-                System.out.println("Available slug: '" + loc.getSlug() + "' - Name: " + loc.getName());
-            }
-            System.out.println("=== END DEBUG ===");
+        // Known slugs are answered from the in-memory index without touching the database
+        Long locationId = locationSlugIndex.resolve(locationSlug);
+        if (locationId == null) {
             return null;
         }
         
-        System.out.println("Location found successfully: " + location.getName());
-        System.out.println("=== END DEBUG ===");
-        
         try {
-            System.out.println("Starting to build response...");
-            List<Field> locationFields = fieldRepository.getFieldsByLocationId(location.getLocationId());
-            System.out.println("Found " + locationFields.size() + " fields for location");
+            // One query for the location, its fields and their types
+            List<Field> locationFields = fieldRepository.findDetailByLocationId(locationId);
+            Location location = !locationFields.isEmpty()
+                    ? locationFields.get(0).getLocation()
+                    : locationRepository.findById(locationId).orElse(null);
+            if (location == null) {
+                return null;
+            }
+            
+            // Bookings for today and the next 7 days, for every field at once
+            LocalDateTime startDate = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+            LocalDateTime endDate = startDate.plusDays(7).withHour(23).withMinute(59).withSecond(59);
+            Map<Long, List<BookingDTO>> bookingsByField = bookingService.getBookingsByDateForFields(
+                    startDate.atZone(ZoneId.systemDefault()).toInstant(),
+                    endDate.atZone(ZoneId.systemDefault()).toInstant(),
+                    locationFields.stream().map(Field::getFieldId).toList());
             
             Map<Long, List<Field>> groupedByTypeId = locationFields.stream()
                     .collect(Collectors.groupingBy(field -> field.getType().getTypeId()));
-            System.out.println("Grouped fields by " + groupedByTypeId.size() + " types");
             
             List<FieldTypeDto> typeDTOS = groupedByTypeId.entrySet().stream()
                     .map(entry -> {
@@ -350,34 +276,16 @@ public class LocationService {
                         FieldType type = entry.getValue().get(0).getType(); // Get FieldType from first field
                         List<FieldDTO> fieldDTOs = entry.getValue().stream()
                                 .map(field -> {
-                                    try {
-                                        // Get current date and next 7 days for booking data
-                                        LocalDateTime startDate = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-                                        LocalDateTime endDate = startDate.plusDays(7).withHour(23).withMinute(59).withSecond(59);
-                                        
-                                        // Convert to Instant for the service call
-                                        Instant startInstant = startDate.atZone(ZoneId.systemDefault()).toInstant();
-                                        Instant endInstant = endDate.atZone(ZoneId.systemDefault()).toInstant();
-                                        
-                                        // Fetch bookings for this field
-                                        List<BookingDTO> fieldBookings = bookingService.getBookingsByDate(startInstant, endInstant, field.getFieldId());
-                                        
-                                        // Create FieldDTO with bookings and thumbnail
-                                        FieldDTO fieldDTO = new FieldDTO(
-                                                field.getFieldId(),
-                                                field.getName(),
-                                                field.getDescription(),
-                                                field.getHourlyRate(),
-                                                field.getThumbnailUrl(),
-                                                field.getImageGallery()
-                                        );
-                                        fieldDTO.setBookings(fieldBookings);
-                                        return fieldDTO;
-                                    } catch (Exception e) {
-                                        System.out.println("Error processing field " + field.getFieldId() + ": " + e.getMessage());
-                                        e.printStackTrace();
-                                        throw new RuntimeException("Error processing field", e);
-                                    }
+                                    FieldDTO fieldDTO = new FieldDTO(
+                                            field.getFieldId(),
+                                            field.getName(),
+                                            field.getDescription(),
+                                            field.getHourlyRate(),
+                                            field.getThumbnailUrl(),
+                                            field.getImageGallery()
+                                    );
+                                    fieldDTO.setBookings(bookingsByField.get(field.getFieldId()));
+                                    return fieldDTO;
                                 })
                                 .collect(Collectors.toList());
 
@@ -389,10 +297,7 @@ public class LocationService {
                         );
                     }).toList();
             
-            System.out.println("Created " + typeDTOS.size() + " field type DTOs");
-            
             List<LocationReviewDTO> reviewDTOS = locationReviewService.getLocationReviewDTOs(location.getLocationId());
-            System.out.println("Found " + reviewDTOS.size() + " reviews");
 
             LocationDetailResponse response = new LocationDetailResponse();
             response.setName(location.getName());
@@ -400,14 +305,6 @@ public class LocationService {
             response.setDescription(location.getDescription());
             response.setFieldTypes(typeDTOS);
             response.setReviews(reviewDTOS);
-            
-            System.out.println("=== RESPONSE DEBUG ===");
-            System.out.println("Response created with name: " + response.getName());
-            System.out.println("Response address: " + response.getAddress());
-            System.out.println("Field types count: " + (response.getFieldTypes() != null ? response.getFieldTypes().size() : "null"));
-            System.out.println("Reviews count: " + (response.getReviews() != null ? response.getReviews().size() : "null"));
-            System.out.println("Response object: " + (response != null ? "not null" : "null"));
-            System.out.println("=== END RESPONSE DEBUG ===");
 
             return response;
         } catch (Exception e) {
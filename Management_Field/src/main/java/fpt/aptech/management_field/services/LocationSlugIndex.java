@@ -0,0 +1,160 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.models.LocationSlugHistory;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import fpt.aptech.management_field.repositories.LocationSlugHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive slug to location id lookup, covering current slugs and the slugs
+ * locations had before being renamed. Warmed at startup and kept current from
+ * {@link LocationChangedEvent}s; retired slugs are stored in location_slug_history.
+ * Changes made by other instances only arrive with the periodic rebuild, so a slug
+ * missing from memory is looked up in the database, by exact match on the indexed
+ * columns, before being reported unknown. Unknown slugs are remembered for a short
+ * while, so repeated bad links do not reach the database.
+ */
+@Service
+public class LocationSlugIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LocationSlugIndex.class);
+
+    private static final Duration MISS_TTL = Duration.ofMinutes(1);
+    private static final int MAX_MISSES = 10000;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationSlugHistoryRepository locationSlugHistoryRepository;
+
+    // Normalized slug -> location id, current and historic
+    private volatile Map<String, Long> slugs = new ConcurrentHashMap<>();
+    // Location id -> normalized current slug
+    private volatile Map<Long, String> currentSlugs = new ConcurrentHashMap<>();
+    // Normalized slug -> when it was found unknown
+    private final Map<String, Instant> misses = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warm() {
+        Map<String, Long> warmedSlugs = new ConcurrentHashMap<>();
+        Map<Long, String> warmedCurrentSlugs = new ConcurrentHashMap<>();
+        for (LocationSlugHistory history : locationSlugHistoryRepository.findAll()) {
+            warmedSlugs.put(normalize(history.getSlug()), history.getLocationId());
+        }
+        // Current slugs win over historic ones that were later reused
+        for (Object[] row : locationRepository.findAllSlugs()) {
+            String slug = normalize((String) row[1]);
+            warmedSlugs.put(slug, (Long) row[0]);
+            warmedCurrentSlugs.put((Long) row[0], slug);
+        }
+        // Swapped in whole, so lookups never see a half-built index
+        slugs = warmedSlugs;
+        currentSlugs = warmedCurrentSlugs;
+        misses.clear();
+        logger.info("Indexed {} location slugs", warmedSlugs.size());
+    }
+
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000) // 5 minutes
+    public void refresh() {
+        warm();
+    }
+
+    /**
+     * Location id for the slug, or null when no location uses it or has used it.
+     */
+    public Long resolve(String slug) {
+        if (slug == null) {
+            return null;
+        }
+        String normalized = normalize(slug);
+        Long locationId = slugs.get(normalized);
+        if (locationId != null) {
+            return locationId;
+        }
+        Instant missedAt = misses.get(normalized);
+        if (missedAt != null && missedAt.plus(MISS_TTL).isAfter(Instant.now())) {
+            return null;
+        }
+        // Only lookups of the same slug wait for each other
+        locationId = slugs.computeIfAbsent(normalized, this::load);
+        if (locationId == null) {
+            rememberMiss(normalized);
+        } else {
+            misses.remove(normalized);
+        }
+        return locationId;
+    }
+
+    // Slugs created or renamed on another instance since the last rebuild
+    private Long load(String slug) {
+        Long locationId = locationRepository.findIdBySlug(slug);
+        if (locationId != null) {
+            currentSlugs.put(locationId, slug);
+            return locationId;
+        }
+        return locationSlugHistoryRepository.findBySlug(slug)
+                .map(LocationSlugHistory::getLocationId)
+                .orElse(null);
+    }
+
+    private void rememberMiss(String slug) {
+        Instant now = Instant.now();
+        if (misses.size() >= MAX_MISSES) {
+            misses.values().removeIf(missedAt -> missedAt.plus(MISS_TTL).isBefore(now));
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+        }
+        misses.put(slug, now);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public synchronized void onLocationChanged(LocationChangedEvent event) {
+        Long locationId = event.getLocationId();
+        if (event.isRemoved()) {
+            locationSlugHistoryRepository.deleteByLocationId(locationId);
+            currentSlugs.remove(locationId);
+            slugs.values().removeIf(locationId::equals);
+            return;
+        }
+        if (event.getSlug() == null) {
+            return;
+        }
+        String slug = normalize(event.getSlug());
+        misses.remove(slug);
+        String previous = currentSlugs.put(locationId, slug);
+        if (previous != null && !previous.equals(slug)) {
+            retire(previous, locationId);
+        }
+        slugs.put(slug, locationId);
+    }
+
+    private void retire(String slug, Long locationId) {
+        LocationSlugHistory history = locationSlugHistoryRepository.findBySlug(slug)
+                .orElseGet(() -> new LocationSlugHistory(null, slug, locationId, null));
+        history.setLocationId(locationId);
+        history.setRetiredAt(Instant.now());
+        locationSlugHistoryRepository.save(history);
+    }
+
+    private static String normalize(String slug) {
+        return slug.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,232 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory grid index over location coordinates for map searches.
+ * <p>
+ * Locations are bucketed into fixed cells of {@link #CELL_DEGREES} degrees. A radius or
+ * bounding-box search only visits the cells that overlap the query and checks the exact
+ * distance of the points in them, so the database is only asked to load the matches.
+ * The grid is built at startup and kept current from {@link LocationChangedEvent}s; it is
+ * rebuilt every few minutes to pick up locations changed through other instances. A
+ * rebuild fills a new grid and swaps it in, so searches never see it half built.
+ */
+@Service
+public class LocationSpatialIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LocationSpatialIndex.class);
+
+    // About 11 km at the equator, the scale of a typical map search
+    private static final double CELL_DEGREES = 0.1;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    // SQL Server accepts at most 2100 parameters per statement
+    private static final int HYDRATE_CHUNK = 1000;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private volatile Grid grid = new Grid();
+    // Changes applied while a rebuild reads the table, replayed onto its grid; null when no rebuild runs
+    private List<LocationChangedEvent> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new ArrayList<>();
+            }
+            Grid rebuilt = new Grid();
+            try {
+                for (Object[] row : locationRepository.findAllCoordinates()) {
+                    rebuilt.put((Long) row[0], (BigDecimal) row[1], (BigDecimal) row[2]);
+                }
+                synchronized (this) {
+                    changedDuringRebuild.forEach(rebuilt::apply);
+                    grid = rebuilt;
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+            logger.info("Indexed {} locations for map search", rebuilt.points.size());
+        }
+    }
+
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000) // 5 minutes
+    public void refresh() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLocationChanged(LocationChangedEvent event) {
+        grid.apply(event);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(event);
+        }
+    }
+
+    /**
+     * Ids of the locations within the radius, nearest first.
+     */
+    public List<Long> withinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
+        double lat = latitude.doubleValue();
+        double lng = longitude.doubleValue();
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        // Near the poles a radius spans every longitude
+        double dLng = cosLat < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE * cosLat));
+
+        List<Point> matches = new ArrayList<>();
+        for (Point point : candidates(lat - dLat, lng - dLng, lat + dLat, lng + dLng)) {
+            if (distanceKm(lat, lng, point.lat(), point.lng()) <= radiusKm) {
+                matches.add(point);
+            }
+        }
+        matches.sort(Comparator.comparingDouble(point -> distanceKm(lat, lng, point.lat(), point.lng())));
+        return matches.stream().map(Point::locationId).toList();
+    }
+
+    /**
+     * Ids of the locations inside the box given by its south-west and north-east corners.
+     */
+    public List<Long> withinBounds(BigDecimal southWestLat, BigDecimal southWestLng,
+                                   BigDecimal northEastLat, BigDecimal northEastLng) {
+        double minLat = southWestLat.doubleValue();
+        double minLng = southWestLng.doubleValue();
+        double maxLat = northEastLat.doubleValue();
+        double maxLng = northEastLng.doubleValue();
+        List<Long> matches = new ArrayList<>();
+        for (Point point : candidates(minLat, minLng, maxLat, maxLng)) {
+            if (point.lat() >= minLat && point.lat() <= maxLat && point.lng() >= minLng && point.lng() <= maxLng) {
+                matches.add(point.locationId());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Loads entities for the given ids in chunks the database accepts.
+     */
+    public static <T> List<T> hydrate(List<Long> ids, Function<Collection<Long>, List<T>> loader) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<T> loaded = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += HYDRATE_CHUNK) {
+            loaded.addAll(loader.apply(ids.subList(from, Math.min(ids.size(), from + HYDRATE_CHUNK))));
+        }
+        return loaded;
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(lng2 - lng1);
+        double h = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private Collection<Point> candidates(double minLat, double minLng, double maxLat, double maxLng) {
+        Grid current = grid;
+        Map<Long, Point> points = current.points;
+        long minRow = cellIndex(Math.max(-90, minLat));
+        long maxRow = cellIndex(Math.min(90, maxLat));
+        long minCol = cellIndex(Math.max(-180, minLng));
+        long maxCol = cellIndex(Math.min(180, maxLng));
+        // A zoomed-out view covers more cells than there are points; scanning the points is cheaper
+        if ((maxRow - minRow + 1) * (maxCol - minCol + 1) > points.size()) {
+            return points.values();
+        }
+        List<Point> found = new ArrayList<>();
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                Set<Long> ids = current.cells.get(cellKey(row, col));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    Point point = points.get(id);
+                    if (point != null) {
+                        found.add(point);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+
+    private record Point(Long locationId, double lat, double lng, long cellKey) {
+    }
+
+    /**
+     * Points by location id and the ids in each cell. Written under the index lock only.
+     */
+    private static final class Grid {
+        private final Map<Long, Point> points = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+        void apply(LocationChangedEvent event) {
+            remove(event.getLocationId());
+            if (!event.isRemoved()) {
+                put(event.getLocationId(), event.getLatitude(), event.getLongitude());
+            }
+        }
+
+        void put(Long locationId, BigDecimal latitude, BigDecimal longitude) {
+            if (locationId == null || latitude == null || longitude == null) {
+                return;
+            }
+            double lat = latitude.doubleValue();
+            double lng = longitude.doubleValue();
+            long key = cellKey(cellIndex(lat), cellIndex(lng));
+            points.put(locationId, new Point(locationId, lat, lng, key));
+            cells.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(locationId);
+        }
+
+        void remove(Long locationId) {
+            Point previous = points.remove(locationId);
+            if (previous == null) {
+                return;
+            }
+            Set<Long> ids = cells.get(previous.cellKey());
+            if (ids != null) {
+                ids.remove(locationId);
+                if (ids.isEmpty()) {
+                    cells.remove(previous.cellKey());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.BookingChangedEvent;
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.events.LocationContentChangedEvent;
+import fpt.aptech.management_field.models.Booking;
+import fpt.aptech.management_field.models.LocationStats;
+import fpt.aptech.management_field.repositories.LocationStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-location aggregates (field count, lowest price, rating, recent bookings) kept in
+ * the location_stats table and mirrored in memory, so listings read one row per location.
+ * <p>
+ * Booking, field and review writes mark their location dirty; dirty locations are
+ * recomputed together a few seconds later with one grouped query per aggregate. A periodic
+ * reconcile recomputes every location, which also ages bookings out of the 30-day window
+ * and picks up changes made by other instances.
+ */
+@Service
+public class LocationStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationStatsService.class);
+
+    public static final Duration BOOKING_WINDOW = Duration.ofDays(30);
+
+    @Autowired
+    private LocationStatsRepository locationStatsRepository;
+
+    private final Map<Long, LocationStats> stats = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // Ahead of the other startup listeners, which read these stats
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void load() {
+        for (LocationStats row : locationStatsRepository.findAll()) {
+            stats.put(row.getLocationId(), row);
+        }
+        // First start, or locations written while no instance was maintaining the table
+        if (stats.size() != locationStatsRepository.findAllLocationIds().size()) {
+            reconcile();
+        }
+        logger.info("Loaded stats for {} locations", stats.size());
+    }
+
+    /**
+     * Stats of the location, or an all-zero row when it has none yet.
+     */
+    public LocationStats get(Long locationId) {
+        LocationStats row = stats.get(locationId);
+        return row != null ? row : new LocationStats(locationId, 0, null, null, 0, null, Instant.EPOCH);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.getBooking();
+        if (booking.getField() != null && booking.getField().getLocation() != null) {
+            dirty.add(booking.getField().getLocation().getLocationId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationContentChanged(LocationContentChangedEvent event) {
+        dirty.add(event.getLocationId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        dirty.add(event.getLocationId());
+    }
+
+    @Scheduled(fixedDelay = 5000) // 5 seconds
+    @Transactional
+    public void flushDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> locationIds = new ArrayList<>(dirty);
+        dirty.removeAll(locationIds);
+
+        List<Long> existing = LocationSpatialIndex.hydrate(locationIds, locationStatsRepository::findExistingLocationIds);
+        Set<Long> removed = new HashSet<>(locationIds);
+        existing.forEach(removed::remove);
+        if (!removed.isEmpty()) {
+            locationStatsRepository.deleteAllByIdInBatch(removed);
+            removed.forEach(stats::remove);
+        }
+        if (!existing.isEmpty()) {
+            Instant since = Instant.now().minus(BOOKING_WINDOW);
+            save(existing,
+                    LocationSpatialIndex.hydrate(existing, locationStatsRepository::aggregateFields),
+                    LocationSpatialIndex.hydrate(existing, locationStatsRepository::aggregateRatings),
+                    LocationSpatialIndex.hydrate(existing, ids -> locationStatsRepository.countBookingsSince(since, ids)),
+                    LocationSpatialIndex.hydrate(existing, locationStatsRepository::findFirstFieldThumbnails));
+        }
+    }
+
+    @Scheduled(fixedRate = 900000, initialDelay = 900000) // 15 minutes
+    @Transactional
+    public void reconcile() {
+        List<Long> locationIds = locationStatsRepository.findAllLocationIds();
+        Set<Long> stale = new HashSet<>(stats.keySet());
+        locationIds.forEach(stale::remove);
+        if (!stale.isEmpty()) {
+            locationStatsRepository.deleteAllByIdInBatch(stale);
+            stale.forEach(stats::remove);
+        }
+        save(locationIds,
+                locationStatsRepository.aggregateFields(),
+                locationStatsRepository.aggregateRatings(),
+                locationStatsRepository.countBookingsSince(Instant.now().minus(BOOKING_WINDOW)),
+                locationStatsRepository.findFirstFieldThumbnails());
+        logger.info("Reconciled stats for {} locations", locationIds.size());
+    }
+
+    private void save(Collection<Long> locationIds, List<Object[]> fields, List<Object[]> ratings,
+                      List<Object[]> bookings, List<Object[]> thumbnails) {
+        Map<Long, Object[]> fieldsById = byLocation(fields);
+        Map<Long, Object[]> ratingsById = byLocation(ratings);
+        Map<Long, Object[]> bookingsById = byLocation(bookings);
+        Map<Long, Object[]> thumbnailsById = byLocation(thumbnails);
+        Instant now = Instant.now();
+
+        // Loading the current rows first lets saveAll update them without a select per row
+        Map<Long, LocationStats> current = new HashMap<>();
+        for (LocationStats row : LocationSpatialIndex.hydrate(new ArrayList<>(locationIds), locationStatsRepository::findAllById)) {
+            current.put(row.getLocationId(), row);
+        }
+        List<LocationStats> rows = new ArrayList<>(locationIds.size());
+        for (Long locationId : locationIds) {
+            Object[] field = fieldsById.get(locationId);
+            Object[] rating = ratingsById.get(locationId);
+            Object[] booking = bookingsById.get(locationId);
+            Object[] thumbnail = thumbnailsById.get(locationId);
+            LocationStats row = current.getOrDefault(locationId, new LocationStats());
+            row.setLocationId(locationId);
+            row.setFieldCount(field != null ? ((Number) field[1]).intValue() : 0);
+            row.setMinHourlyRate(field != null ? (Integer) field[2] : null);
+            row.setAverageRating(rating != null && rating[1] != null
+                    ? BigDecimal.valueOf(((Number) rating[1]).doubleValue()).setScale(2, RoundingMode.HALF_UP)
+                    : null);
+            row.setRecentBookingCount(booking != null ? ((Number) booking[1]).longValue() : 0);
+            row.setFieldThumbnailUrl(thumbnail != null ? (String) thumbnail[1] : null);
+            row.setUpdatedAt(now);
+            rows.add(row);
+        }
+        locationStatsRepository.saveAll(rows);
+        rows.forEach(row -> stats.put(row.getLocationId(), row));
+    }
+
+    private static Map<Long, Object[]> byLocation(List<Object[]> rows) {
+        Map<Long, Object[]> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put((Long) row[0], row);
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package fpt.aptech.management_field.services;
 
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
 import fpt.aptech.management_field.models.Sport;
 import fpt.aptech.management_field.models.Tag;
 import fpt.aptech.management_field.models.User;
@@ -8,8 +9,8 @@ import fpt.aptech.management_field.payload.request.OnboardingRequest;
 import fpt.aptech.management_field.repositories.SportRepository;
 import fpt.aptech.management_field.repositories.TagRepository;
 import fpt.aptech.management_field.repositories.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,7 +31,10 @@ public class OnboardingService {
     private UserRepository userRepository;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SportProfileService sportProfileService;
     
     @Transactional
     public void processOnboarding(User user, OnboardingRequest request) throws Exception {
@@ -127,9 +131,8 @@ public class OnboardingService {
         }
         
         // Convert to JSON and save
-        String sportProfilesJson = objectMapper.writeValueAsString(sportProfiles);
-        System.out.println("DEBUG: SportProfiles JSON: " + sportProfilesJson);
-        user.setSportProfiles(sportProfilesJson);
+        sportProfileService.setProfiles(user, sportProfiles);
+        System.out.println("DEBUG: SportProfiles JSON: " + user.getSportProfiles());
         
         // Set discoverable flag
         if (request.getIsDiscoverable() != null) {
@@ -142,6 +145,7 @@ public class OnboardingService {
         System.out.println("DEBUG: Set hasCompletedProfile to true");
         
         userRepository.save(user);
+        eventPublisher.publishEvent(new SportProfileChangedEvent(this, user.getId()));
         System.out.println("DEBUG: User saved successfully");
     }
     
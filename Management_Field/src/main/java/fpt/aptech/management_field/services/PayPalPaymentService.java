@@ -10,8 +10,10 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -134,6 +136,50 @@ public class PayPalPaymentService {
         return response.getBody();
     }
 
+    /**
+     * Refunds every capture of a previously captured PayPal order in full.
+     * Used when a payment was captured but what it paid for could not be confirmed.
+     *
+     * @param capture The response of {@link #capturePayment(String)}.
+     * @throws PayPalPaymentException if the capture ids are missing or a refund request fails.
+     */
+    public void refundCapture(PayPalCaptureResponse capture) {
+        if (isTestToken(capture.getOrderId())) {
+            System.out.println("Test token detected - skipping actual PayPal refund");
+            return;
+        }
+
+        List<String> captureIds = new ArrayList<>();
+        if (capture.getPurchaseUnits() != null) {
+            for (Map<String, Object> unit : capture.getPurchaseUnits()) {
+                if (unit.get("payments") instanceof Map<?, ?> payments && payments.get("captures") instanceof List<?> captures) {
+                    for (Object item : captures) {
+                        if (item instanceof Map<?, ?> captureItem && captureItem.get("id") != null) {
+                            captureIds.add(captureItem.get("id").toString());
+                        }
+                    }
+                }
+            }
+        }
+        if (captureIds.isEmpty()) {
+            throw new PayPalPaymentException("No capture id to refund for order: " + capture.getOrderId());
+        }
+
+        String accessToken = getAccessToken();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(accessToken);
+        HttpEntity<String> entity = new HttpEntity<>("{}", headers);
+
+        for (String captureId : captureIds) {
+            String url = paypalUrl + "/v2/payments/captures/" + captureId + "/refund";
+            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new PayPalPaymentException("Failed to refund capture: " + url + response.getStatusCode());
+            }
+        }
+    }
+
     /**
      * Checks if the provided token is a test token for development purposes.
      * This method allows bypassing actual PayPal API calls during development and testing.
@@ -36,7 +36,12 @@ public class PaymentService {
     }
 
     public String initiatePayPal(Long payableId, PaymentPayable payableType, int amount, String clientType) {
+        return initiatePayPal(payableId, payableType, amount, clientType, null);
+    }
+
+    public String initiatePayPal(Long payableId, PaymentPayable payableType, int amount, String clientType, String bookingGroupId) {
         Payment payment = createPayment(payableId, payableType, amount);
+        payment.setBookingGroupId(bookingGroupId);
         PayPalOrderCreationResponse response = payPalPaymentService.initiatePayPalPayment(payment.getPaymentId(), amount, clientType);
         payment.setTransactionId(response.getId());
         paymentRepository.save(payment);
@@ -50,9 +55,18 @@ public class PaymentService {
 
     public Payment handlePayPalCallback(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId).orElseThrow(() -> new ResourceNotFoundException("Payment not found for paymentId: " + paymentId));
+        capturePayPal(payment);
+        return paymentRepository.save(payment);
+    }
+
+    /**
+     * Captures the approved PayPal order of the payment and marks the payment successful.
+     * Returns the capture, which {@link PayPalPaymentService#refundCapture} can undo.
+     */
+    public PayPalCaptureResponse capturePayPal(Payment payment) {
         PayPalCaptureResponse response = payPalPaymentService.capturePayment(payment.getTransactionId());
         if (!response.getStatus().equals("COMPLETED")) {
-            throw new PayPalPaymentException("Failed to capture payment for paymentId: " + paymentId);
+            throw new PayPalPaymentException("Failed to capture payment for paymentId: " + payment.getPaymentId());
         }
         payment.setStatus(PaymentStatus.SUCCESS);
         payment.setUpdatedAt(LocalDateTime.now());
@@ -63,7 +77,7 @@ public class PaymentService {
         if (payment.getPayableType() == PaymentPayable.BOOKING) {
             createAdminRevenueRecord(savedPayment);
         }
-        return paymentRepository.save(payment);
+        return response;
     }
      private void createAdminRevenueRecord(Payment payment) {
         try {
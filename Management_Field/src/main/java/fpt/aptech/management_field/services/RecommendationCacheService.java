@@ -0,0 +1,289 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.MatchChangedEvent;
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
+import fpt.aptech.management_field.models.DraftMatch;
+import fpt.aptech.management_field.models.OpenMatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Per-candidate cache of AI ranking results.
+ * <p>
+ * An entry holds what the model answered for one candidate (match or teammate) when
+ * ranked for one user and sport. It is keyed by the user's profile version, the hash
+ * of the user data sent to the model, and stored with the hash of the candidate data
+ * sent, so a changed profile or candidate is simply a miss. A ranking request sends
+ * only the candidates without a usable entry to the model and merges the answer with
+ * the cached ones.
+ * <p>
+ * Entries expire after {@code recommendation.cache.ttl-seconds}, the map is bounded
+ * by {@code recommendation.cache.max-entries} in LRU order, and entries are dropped as
+ * soon as the user's sport profiles change or the match is written or joined. Keys are
+ * also indexed by user and by candidate, so invalidation only touches their entries.
+ */
+@Service
+public class RecommendationCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationCacheService.class);
+
+    public enum Kind {
+        OPEN_MATCH, DRAFT_MATCH, TEAMMATE
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int maxEntries;
+    private final Duration ttl;
+
+    private final Counter sizeEvictionCounter;
+    private final Counter expiryEvictionCounter;
+    private final Counter invalidationCounter;
+
+    // Least recently used first
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    // Keys by the user they were ranked for, and by candidate; guarded by the entries lock
+    private final Map<Long, Set<Key>> keysByUser = new HashMap<>();
+    private final Map<CandidateKey, Set<Key>> keysByCandidate = new HashMap<>();
+
+    public RecommendationCacheService(MeterRegistry meterRegistry,
+                                      @Value("${recommendation.cache.max-entries:50000}") int maxEntries,
+                                      @Value("${recommendation.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.sizeEvictionCounter = meterRegistry.counter("recommendation.cache.evictions", "cause", "size");
+        this.expiryEvictionCounter = meterRegistry.counter("recommendation.cache.evictions", "cause", "expired");
+        this.invalidationCounter = meterRegistry.counter("recommendation.cache.evictions", "cause", "invalidated");
+        meterRegistry.gauge("recommendation.cache.entries", this, RecommendationCacheService::size);
+    }
+
+    /**
+     * Model results for the candidates, highest {@code compatibilityScore} first.
+     * <p>
+     * Cached results are reused; the remaining candidates are passed to {@code model}
+     * in one call, whose results are matched back by {@code idKey} and cached.
+     * Candidates the model leaves out are left out of the result as well. Returns null
+     * when the model call fails (returns null), so the caller can fall back.
+     *
+     * @param currentUser the user data sent to the model, which defines the profile version
+     * @param candidates  the candidate data sent to the model, each carrying its id under {@code idKey}
+     */
+    public List<Map<String, Object>> rank(Kind kind, Long userId, String sportType, Map<String, Object> currentUser,
+                                          List<Map<String, Object>> candidates, String idKey,
+                                          Function<List<Map<String, Object>>, List<Map<String, Object>>> model) {
+        int profileVersion = currentUser.hashCode();
+        Map<Long, Map<String, Object>> results = new HashMap<>();
+        List<Map<String, Object>> uncached = new ArrayList<>();
+        Instant now = Instant.now();
+
+        synchronized (entries) {
+            for (Map<String, Object> candidate : candidates) {
+                Long candidateId = toId(candidate.get(idKey));
+                Entry entry = candidateId == null ? null
+                        : entries.get(new Key(kind, userId, sportType, profileVersion, candidateId));
+                if (entry != null && entry.fingerprint() == candidate.hashCode() && entry.expiresAt().isAfter(now)) {
+                    results.put(candidateId, entry.result());
+                } else {
+                    uncached.add(candidate);
+                }
+            }
+        }
+        count(kind, "hit", results.size());
+        count(kind, "miss", uncached.size());
+
+        if (!uncached.isEmpty()) {
+            List<Map<String, Object>> scored = model.apply(uncached);
+            if (scored == null) {
+                return null;
+            }
+            Map<Long, Map<String, Object>> scoredById = new HashMap<>();
+            for (Map<String, Object> result : scored) {
+                Long candidateId = toId(result.get(idKey));
+                if (candidateId != null) {
+                    scoredById.put(candidateId, Collections.unmodifiableMap(new HashMap<>(result)));
+                }
+            }
+            Instant expiresAt = Instant.now().plus(ttl);
+            synchronized (entries) {
+                for (Map<String, Object> candidate : uncached) {
+                    Long candidateId = toId(candidate.get(idKey));
+                    if (candidateId == null) {
+                        continue;
+                    }
+                    // A null result remembers that the model left this candidate out
+                    Map<String, Object> result = scoredById.get(candidateId);
+                    store(new Key(kind, userId, sportType, profileVersion, candidateId),
+                            new Entry(candidate.hashCode(), result, expiresAt));
+                    results.put(candidateId, result);
+                }
+                evictOverflow();
+            }
+        }
+
+        List<Map<String, Object>> ranked = new ArrayList<>();
+        for (Map<String, Object> candidate : candidates) {
+            Map<String, Object> result = results.get(toId(candidate.get(idKey)));
+            if (result != null) {
+                // Callers annotate the maps they get, so hand out copies
+                ranked.add(new HashMap<>(result));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(RecommendationCacheService::compatibilityScore).reversed());
+        return ranked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSportProfileChanged(SportProfileChangedEvent event) {
+        Long userId = event.getUserId();
+        synchronized (entries) {
+            Set<Key> keys = new HashSet<>(keysByUser.getOrDefault(userId, Set.of()));
+            keys.addAll(keysByCandidate.getOrDefault(new CandidateKey(Kind.TEAMMATE, userId), Set.of()));
+            invalidate(keys);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMatchChanged(MatchChangedEvent event) {
+        Kind kind;
+        if (event.getMatchType() == OpenMatch.class) {
+            kind = Kind.OPEN_MATCH;
+        } else if (event.getMatchType() == DraftMatch.class) {
+            kind = Kind.DRAFT_MATCH;
+        } else {
+            return;
+        }
+        Long matchId = event.getMatchId();
+        synchronized (entries) {
+            invalidate(new ArrayList<>(keysByCandidate.getOrDefault(new CandidateKey(kind, matchId), Set.of())));
+        }
+    }
+
+    @Scheduled(fixedRate = 60000) // 1 minute
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int removed = 0;
+        synchronized (entries) {
+            var iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (!entry.getValue().expiresAt().isAfter(now)) {
+                    iterator.remove();
+                    unindex(entry.getKey());
+                    removed++;
+                }
+            }
+        }
+        expiryEvictionCounter.increment(removed);
+    }
+
+    // Called with the entries lock held
+    private void invalidate(Collection<Key> keys) {
+        int removed = 0;
+        for (Key key : keys) {
+            if (entries.remove(key) != null) {
+                unindex(key);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Invalidated {} cached recommendation scores", removed);
+            invalidationCounter.increment(removed);
+        }
+    }
+
+    private void store(Key key, Entry entry) {
+        if (entries.put(key, entry) == null) {
+            keysByUser.computeIfAbsent(key.userId(), id -> new HashSet<>()).add(key);
+            keysByCandidate.computeIfAbsent(new CandidateKey(key.kind(), key.candidateId()), id -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void unindex(Key key) {
+        removeKey(keysByUser, key.userId(), key);
+        removeKey(keysByCandidate, new CandidateKey(key.kind(), key.candidateId()), key);
+    }
+
+    private static <K> void removeKey(Map<K, Set<Key>> index, K indexKey, Key key) {
+        Set<Key> keys = index.get(indexKey);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        var iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            Key key = iterator.next();
+            iterator.remove();
+            unindex(key);
+            sizeEvictionCounter.increment();
+        }
+    }
+
+    private void count(Kind kind, String result, int amount) {
+        if (amount > 0) {
+            meterRegistry.counter("recommendation.cache.requests", "kind", kind.name().toLowerCase(), "result", result)
+                    .increment(amount);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static Long toId(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static double compatibilityScore(Map<String, Object> result) {
+        Object score = result.get("compatibilityScore");
+        if (score instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return score == null ? Double.NEGATIVE_INFINITY : Double.parseDouble(score.toString());
+        } catch (NumberFormatException e) {
+            return Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    private record Key(Kind kind, Long userId, String sportType, int profileVersion, Long candidateId) {
+    }
+
+    private record CandidateKey(Kind kind, Long candidateId) {
+    }
+
+    private record Entry(int fingerprint, Map<String, Object> result, Instant expiresAt) {
+    }
+}
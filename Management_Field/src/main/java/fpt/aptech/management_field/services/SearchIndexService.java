@@ -0,0 +1,455 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.LocationChangedEvent;
+import fpt.aptech.management_field.events.SearchableEntityChangedEvent;
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.FieldType;
+import fpt.aptech.management_field.models.Location;
+import fpt.aptech.management_field.models.Tournament;
+import fpt.aptech.management_field.payload.response.SearchResultResponse;
+import fpt.aptech.management_field.repositories.FieldRepository;
+import fpt.aptech.management_field.repositories.FieldTypeRepository;
+import fpt.aptech.management_field.repositories.LocationRepository;
+import fpt.aptech.management_field.repositories.TournamentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over field, location, field type and tournament names.
+ * <p>
+ * Text is folded to lower-case ASCII ("Quận 7" and "quan 7" index the same) and split
+ * into words. A query word matches a document by exact word, by word prefix, or, for
+ * words of four letters or more, by trigram similarity to a word in the vocabulary,
+ * which absorbs most typos. Built at startup and updated from entity write events,
+ * one document at a time. Rebuilt every few minutes into a fresh index that is then
+ * swapped in, to pick up writes made through other instances.
+ */
+@Service
+public class SearchIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    public enum Kind {
+        FIELD, LOCATION, FIELD_TYPE, TOURNAMENT
+    }
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final int MIN_PREFIX = 2;
+    private static final int MAX_PREFIX = 15;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.5;
+
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+    // Words of the title count a little more than words of the subtitle or address
+    private static final double TITLE_BONUS = 0.2;
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private FieldTypeRepository fieldTypeRepository;
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    private volatile Index index = new Index();
+    // Updates applied while a rebuild reads the tables, replayed onto its index; null when no rebuild runs
+    private List<Consumer<Index>> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Lower-cases, strips Vietnamese diacritics and collapses everything that is not
+     * a letter or digit to single spaces.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new ArrayList<>();
+            }
+            Index rebuilt = new Index();
+            try {
+                locationRepository.findAll().forEach(location -> rebuilt.put(toDocument(location)));
+                fieldRepository.findAllForSearch().forEach(field -> rebuilt.put(toDocument(field)));
+                fieldTypeRepository.findAllForSearch().forEach(type -> rebuilt.put(toDocument(type)));
+                tournamentRepository.findAllForSearch().forEach(tournament -> rebuilt.put(toDocument(tournament)));
+                synchronized (this) {
+                    changedDuringRebuild.forEach(update -> update.accept(rebuilt));
+                    index = rebuilt;
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+            logger.info("Indexed {} search documents, {} words", rebuilt.documents.size(), rebuilt.words.size());
+        }
+    }
+
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000) // 5 minutes
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Ranked hits for the query among the given kinds. With {@code requireAll}, every
+     * query word must match; otherwise documents matching more words rank first.
+     */
+    public List<SearchResultResponse> search(String query, Set<Kind> kinds, int limit, boolean requireAll) {
+        List<SearchResultResponse> results = new ArrayList<>();
+        for (Hit hit : rank(query, kinds, limit, requireAll)) {
+            Document document = hit.document();
+            results.add(new SearchResultResponse(document.kind().name(), document.id(), document.title(),
+                    document.subtitle(), document.slug(), document.locationId(),
+                    Math.round(hit.score() * 1000) / 1000.0));
+        }
+        return results;
+    }
+
+    /**
+     * Ids of the best matching documents of one kind, best first.
+     */
+    public List<Long> searchIds(String query, Kind kind, int limit, boolean requireAll) {
+        return rank(query, EnumSet.of(kind), limit, requireAll).stream().map(hit -> hit.document().id()).toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        Long locationId = event.getLocationId();
+        if (event.isRemoved()) {
+            update(current -> {
+                current.remove(key(Kind.LOCATION, locationId));
+                current.keysAt(locationId).stream()
+                        .filter(key -> current.documents.get(key).kind() != Kind.TOURNAMENT)
+                        .toList()
+                        .forEach(current::remove);
+            });
+            return;
+        }
+        // Child documents carry the location's name, so they are reindexed with it
+        List<Document> documents = new ArrayList<>();
+        locationRepository.findById(locationId).ifPresent(location -> documents.add(toDocument(location)));
+        fieldRepository.findForMapByLocationIds(List.of(locationId)).forEach(field -> documents.add(toDocument(field)));
+        fieldTypeRepository.findForSearchByLocationId(locationId).forEach(type -> documents.add(toDocument(type)));
+        tournamentRepository.findForSearchByLocationId(locationId).forEach(tournament -> documents.add(toDocument(tournament)));
+        update(current -> documents.forEach(current::put));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSearchableEntityChanged(SearchableEntityChangedEvent event) {
+        Kind kind;
+        Document document = null;
+        if (event.getEntityType() == Field.class) {
+            kind = Kind.FIELD;
+            if (!event.isRemoved()) {
+                document = fieldRepository.findForSearch(List.of(event.getEntityId())).stream()
+                        .findFirst().map(this::toDocument).orElse(null);
+            }
+        } else if (event.getEntityType() == FieldType.class) {
+            kind = Kind.FIELD_TYPE;
+            if (!event.isRemoved()) {
+                document = fieldTypeRepository.findForSearch(List.of(event.getEntityId())).stream()
+                        .findFirst().map(this::toDocument).orElse(null);
+            }
+        } else if (event.getEntityType() == Tournament.class) {
+            kind = Kind.TOURNAMENT;
+            if (!event.isRemoved()) {
+                document = tournamentRepository.findForSearch(List.of(event.getEntityId())).stream()
+                        .findFirst().map(this::toDocument).orElse(null);
+            }
+        } else {
+            return;
+        }
+        Document changed = document;
+        String key = key(kind, event.getEntityId());
+        update(current -> {
+            if (changed != null) {
+                current.put(changed);
+            } else {
+                current.remove(key);
+            }
+        });
+    }
+
+    // Applies the change to the live index and, while a rebuild runs, to the one it builds
+    private synchronized void update(Consumer<Index> change) {
+        change.accept(index);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(change);
+        }
+    }
+
+    private List<Hit> rank(String query, Set<Kind> kinds, int limit, boolean requireAll) {
+        List<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        Index current = index;
+        // document key -> best weight per query word
+        Map<String, double[]> weights = new HashMap<>();
+        for (int i = 0; i < queryWords.size(); i++) {
+            String word = queryWords.get(i);
+            match(weights, current.words.get(word), i, queryWords.size(), EXACT_WEIGHT);
+            if (word.length() >= MIN_PREFIX) {
+                match(weights, current.prefixes.get(word), i, queryWords.size(), PREFIX_WEIGHT);
+            }
+            if (word.length() >= MIN_FUZZY_LENGTH) {
+                for (Map.Entry<String, Double> similar : similarWords(current, word).entrySet()) {
+                    match(weights, current.words.get(similar.getKey()), i, queryWords.size(), FUZZY_WEIGHT * similar.getValue());
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : weights.entrySet()) {
+            Document document = current.documents.get(entry.getKey());
+            if (document == null || !kinds.contains(document.kind())) {
+                continue;
+            }
+            int matched = 0;
+            double score = 0;
+            double[] perWord = entry.getValue();
+            for (int i = 0; i < perWord.length; i++) {
+                if (perWord[i] > 0) {
+                    matched++;
+                    score += perWord[i];
+                    if (document.titleWords().contains(queryWords.get(i))) {
+                        score += TITLE_BONUS;
+                    }
+                }
+            }
+            if (requireAll && matched < perWord.length) {
+                continue;
+            }
+            hits.add(new Hit(document, matched, score / perWord.length));
+        }
+        hits.sort(Comparator.comparingInt(Hit::matched).reversed()
+                .thenComparing(Comparator.comparingDouble(Hit::score).reversed())
+                .thenComparingInt(hit -> hit.document().title() != null ? hit.document().title().length() : 0));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    private void match(Map<String, double[]> weights, Set<String> keys, int wordIndex, int wordCount, double weight) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            double[] perWord = weights.computeIfAbsent(key, k -> new double[wordCount]);
+            perWord[wordIndex] = Math.max(perWord[wordIndex], weight);
+        }
+    }
+
+    // Vocabulary words sharing enough trigrams with the given word, with their Jaccard similarity
+    private static Map<String, Double> similarWords(Index index, String word) {
+        Set<String> grams = trigramsOf(word);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> candidates = index.trigrams.get(gram);
+            if (candidates != null) {
+                for (String candidate : candidates) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, Double> similar = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getKey().equals(word)) {
+                continue;
+            }
+            int union = grams.size() + trigramsOf(entry.getKey()).size() - entry.getValue();
+            double similarity = (double) entry.getValue() / union;
+            if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                similar.put(entry.getKey(), similarity);
+            }
+        }
+        return similar;
+    }
+
+    private Document toDocument(Location location) {
+        return document(Kind.LOCATION, location.getLocationId(), location.getName(), location.getAddress(),
+                location.getSlug(), location.getLocationId(), location.getAddress(), location.getCity());
+    }
+
+    private Document toDocument(Field field) {
+        Location location = field.getLocation();
+        String typeName = field.getType() != null ? field.getType().getName() : null;
+        String title = field.getName() != null ? field.getName() : typeName;
+        return document(Kind.FIELD, field.getFieldId(), title, join(typeName, location.getName()), null,
+                location.getLocationId(), typeName, location.getName(), location.getAddress());
+    }
+
+    private Document toDocument(FieldType type) {
+        Location location = type.getLocation();
+        return document(Kind.FIELD_TYPE, type.getTypeId(), type.getName(), location.getName(), null,
+                location.getLocationId(), location.getName());
+    }
+
+    private Document toDocument(Tournament tournament) {
+        Location location = tournament.getLocation();
+        return document(Kind.TOURNAMENT, tournament.getTournamentId(), tournament.getName(),
+                location != null ? location.getName() : null, tournament.getSlug(),
+                location != null ? location.getLocationId() : null,
+                location != null ? location.getName() : null);
+    }
+
+    private Document document(Kind kind, Long id, String title, String subtitle, String slug, Long locationId,
+                              String... extraText) {
+        Set<String> titleWords = new LinkedHashSet<>(tokenize(title));
+        Set<String> allWords = new LinkedHashSet<>(titleWords);
+        for (String text : extraText) {
+            allWords.addAll(tokenize(text));
+        }
+        return new Document(kind, id, title, subtitle, slug, locationId, titleWords, allWords);
+    }
+
+    private static List<String> tokenize(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        return List.of(folded.split(" "));
+    }
+
+    private static Set<String> trigramsOf(String word) {
+        String padded = "^" + word + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String join(String first, String second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first + " - " + second;
+    }
+
+    private static String key(Kind kind, Long id) {
+        return kind.name() + ':' + id;
+    }
+
+    private record Document(Kind kind, Long id, String title, String subtitle, String slug, Long locationId,
+                            Set<String> titleWords, Set<String> words) {
+    }
+
+    private record Hit(Document document, int matched, double score) {
+    }
+
+    /**
+     * The documents and their postings. Written under the service lock only.
+     */
+    private static final class Index {
+        private final Map<String, Document> documents = new ConcurrentHashMap<>();
+        // word -> document keys
+        private final Map<String, Set<String>> words = new ConcurrentHashMap<>();
+        // word prefix -> document keys
+        private final Map<String, Set<String>> prefixes = new ConcurrentHashMap<>();
+        // trigram -> vocabulary words, for typo tolerance
+        private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+        // location id -> keys of the documents at that location
+        private final Map<Long, Set<String>> byLocation = new ConcurrentHashMap<>();
+
+        Set<String> keysAt(Long locationId) {
+            return byLocation.getOrDefault(locationId, Set.of());
+        }
+
+        void put(Document document) {
+            String key = key(document.kind(), document.id());
+            remove(key);
+            documents.put(key, document);
+            if (document.locationId() != null) {
+                byLocation.computeIfAbsent(document.locationId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            for (String word : document.words()) {
+                words.computeIfAbsent(word, w -> {
+                    trigramsOf(w).forEach(gram -> trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(w));
+                    return ConcurrentHashMap.newKeySet();
+                }).add(key);
+                for (int length = MIN_PREFIX; length < Math.min(word.length(), MAX_PREFIX + 1); length++) {
+                    prefixes.computeIfAbsent(word.substring(0, length), p -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+        }
+
+        void remove(String key) {
+            Document previous = documents.remove(key);
+            if (previous == null) {
+                return;
+            }
+            if (previous.locationId() != null) {
+                Set<String> keys = byLocation.get(previous.locationId());
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        byLocation.remove(previous.locationId());
+                    }
+                }
+            }
+            for (String word : previous.words()) {
+                Set<String> keys = words.get(word);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        words.remove(word);
+                        for (String gram : trigramsOf(word)) {
+                            Set<String> vocabulary = trigrams.get(gram);
+                            if (vocabulary != null) {
+                                vocabulary.remove(word);
+                                if (vocabulary.isEmpty()) {
+                                    trigrams.remove(gram);
+                                }
+                            }
+                        }
+                    }
+                }
+                for (int length = MIN_PREFIX; length < Math.min(word.length(), MAX_PREFIX + 1); length++) {
+                    String prefix = word.substring(0, length);
+                    Set<String> prefixKeys = prefixes.get(prefix);
+                    if (prefixKeys != null) {
+                        prefixKeys.remove(key);
+                        if (prefixKeys.isEmpty()) {
+                            prefixes.remove(prefix);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
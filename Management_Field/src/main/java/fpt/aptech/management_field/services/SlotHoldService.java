@@ -0,0 +1,187 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.BookingChangedEvent;
+import fpt.aptech.management_field.models.Booking;
+import fpt.aptech.management_field.models.SlotHold;
+import fpt.aptech.management_field.repositories.BookingRepository;
+import fpt.aptech.management_field.repositories.SlotHoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-limited holds on the slots of pending bookings.
+ * <p>
+ * A pending booking keeps its slot only while its hold is live. Holds are kept in
+ * memory and mirrored to the slot_holds table; the table is the source of truth
+ * so holds survive restarts and are swept by whichever instance gets there first.
+ * Paying converts the hold, letting it expire cancels the booking in bulk.
+ */
+@Service
+public class SlotHoldService {
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldService.class);
+
+    // Holds placed by other instances only exist in the table, so it is swept at least this often
+    private static final Duration FULL_SWEEP_INTERVAL = Duration.ofMinutes(5);
+
+    @Autowired
+    private SlotHoldRepository slotHoldRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.hold.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    // bookingId -> hold, for holds known to this instance
+    private final Map<Long, SlotHold> holds = new ConcurrentHashMap<>();
+
+    private volatile Instant lastFullSweep = Instant.EPOCH;
+
+    private final Counter placedCounter;
+    private final Counter convertedCounter;
+    private final Counter expiredCounter;
+    private final Counter releasedCounter;
+
+    public SlotHoldService(MeterRegistry meterRegistry) {
+        this.placedCounter = meterRegistry.counter("booking.holds", "outcome", "placed");
+        this.convertedCounter = meterRegistry.counter("booking.holds", "outcome", "converted");
+        this.expiredCounter = meterRegistry.counter("booking.holds", "outcome", "expired");
+        this.releasedCounter = meterRegistry.counter("booking.holds", "outcome", "released");
+        meterRegistry.gaugeMapSize("booking.holds.active", List.of(), holds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (SlotHold hold : slotHoldRepository.findAll()) {
+            holds.put(hold.getBookingId(), hold);
+        }
+        logger.info("Loaded {} slot holds", holds.size());
+    }
+
+    /**
+     * Places a hold on each newly created pending booking. Must run inside the
+     * transaction that created them. Returns the common expiry time.
+     */
+    public Instant place(Collection<Booking> bookings) {
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(ttlMinutes));
+        List<SlotHold> newHolds = new ArrayList<>();
+        for (Booking booking : bookings) {
+            newHolds.add(new SlotHold(null, booking.getBookingId(), booking.getField().getFieldId(),
+                    booking.getFromTime(), booking.getToTime(), expiresAt));
+        }
+        List<SlotHold> saved = slotHoldRepository.saveAll(newHolds);
+        afterCommit(() -> {
+            saved.forEach(hold -> holds.put(hold.getBookingId(), hold));
+            placedCounter.increment(saved.size());
+        });
+        return expiresAt;
+    }
+
+    /**
+     * Turns the holds of paid bookings into confirmed bookings. Call before reading
+     * the bookings: deleting the hold rows blocks a concurrent sweep of the same holds,
+     * so a booking is either converted here or cancelled by the sweep, never both.
+     */
+    public void convert(Collection<Long> bookingIds) {
+        remove(bookingIds, convertedCounter);
+    }
+
+    /**
+     * Locks the holds of the bookings until the surrounding transaction ends, so the
+     * sweeper can neither cancel them meanwhile nor be half-way through cancelling them.
+     * Re-read the booking statuses afterwards: bookings already swept are cancelled.
+     */
+    public void lock(Collection<Long> bookingIds) {
+        if (!bookingIds.isEmpty()) {
+            slotHoldRepository.lockByBookingIds(bookingIds);
+        }
+    }
+
+    /**
+     * Drops the holds of bookings cancelled or resolved by hand.
+     */
+    public void release(Collection<Long> bookingIds) {
+        remove(bookingIds, releasedCounter);
+    }
+
+    /**
+     * Cancels the pending bookings of expired holds in bulk. The database is only hit
+     * when a hold known to this instance has expired, or when a full sweep is due.
+     */
+    @Scheduled(fixedDelay = 30000) // 30 seconds
+    @Transactional
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        boolean localExpired = holds.values().stream().anyMatch(hold -> !hold.getExpiresAt().isAfter(now));
+        if (!localExpired && lastFullSweep.plus(FULL_SWEEP_INTERVAL).isAfter(now)) {
+            return;
+        }
+        lastFullSweep = now;
+
+        List<SlotHold> expired = slotHoldRepository.lockExpired(now);
+        if (expired.isEmpty()) {
+            // Holds expired locally but already swept by another instance
+            holds.values().removeIf(hold -> !hold.getExpiresAt().isAfter(now));
+            return;
+        }
+        List<Long> bookingIds = expired.stream().map(SlotHold::getBookingId).toList();
+        int cancelled = bookingRepository.cancelPendingBookings(bookingIds);
+        slotHoldRepository.deleteByBookingIds(bookingIds);
+        for (Booking booking : bookingRepository.findAllById(bookingIds)) {
+            eventPublisher.publishEvent(new BookingChangedEvent(this, booking));
+        }
+        afterCommit(() -> {
+            bookingIds.forEach(holds::remove);
+            holds.values().removeIf(hold -> !hold.getExpiresAt().isAfter(now));
+            expiredCounter.increment(cancelled);
+        });
+        logger.info("Released {} expired slot holds, cancelled {} pending bookings", expired.size(), cancelled);
+    }
+
+    private void remove(Collection<Long> bookingIds, Counter outcome) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        int removed = slotHoldRepository.deleteByBookingIds(bookingIds);
+        afterCommit(() -> {
+            bookingIds.forEach(holds::remove);
+            outcome.increment(removed);
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,329 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.models.Field;
+import fpt.aptech.management_field.models.FieldType;
+import fpt.aptech.management_field.models.Location;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.DayAvailability;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.FieldAvailability;
+import fpt.aptech.management_field.payload.response.LocationAvailabilityResponse.SlotStatus;
+import fpt.aptech.management_field.payload.response.SlotSuggestionResponse;
+import fpt.aptech.management_field.repositories.FieldRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the free slots closest to a requested one that is taken.
+ * <p>
+ * Candidates come from the requested field, then fields of the same type at the same
+ * location, then fields of the same kind at nearby locations. Each candidate costs its
+ * time shift in minutes plus a penalty for moving. A best-first search pulls from one
+ * cursor per field, each walking outward from the requested start, so only the
+ * cheapest candidates are ever examined. Nearby locations are loaded only when the
+ * requested location cannot produce a cheaper result. Slot data comes from the
+ * cached {@link LocationAvailabilityService} grid, so a search issues no query per
+ * candidate slot.
+ */
+@Service
+public class SlotSuggestionService {
+    // Total search window, centred on the requested day
+    private static final int HORIZON_DAYS = 7;
+    private static final double NEARBY_RADIUS_KM = 5.0;
+    // Upper bound on cursor steps for one search
+    private static final int MAX_EXPANSIONS = 20_000;
+
+    // Cost of switching field or location, in minutes of time shift
+    private static final long SAME_LOCATION_PENALTY = 30;
+    private static final long NEARBY_BASE_PENALTY = 60;
+    private static final long NEARBY_PENALTY_PER_KM = 15;
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private LocationSpatialIndex locationSpatialIndex;
+
+    @Autowired
+    private LocationAvailabilityService locationAvailabilityService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Transactional(readOnly = true)
+    public List<SlotSuggestionResponse> suggest(Long fieldId, Instant fromTime, Instant toTime, int limit) {
+        return meterRegistry.timer("booking.slot.suggestions").record(() -> search(fieldId, fromTime, toTime, limit));
+    }
+
+    private List<SlotSuggestionResponse> search(Long fieldId, Instant fromTime, Instant toTime, int limit) {
+        long durationMinutes = Duration.between(fromTime, toTime).toMinutes();
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        Field requested = fieldRepository.findById(fieldId)
+                .orElseThrow(() -> new RuntimeException("Field not found"));
+        Location location = requested.getLocation();
+
+        ZoneId zone = ZoneId.systemDefault();
+        int slotMinutes = slotMinutesFor(fromTime, durationMinutes, zone);
+        int slotsNeeded = (int) ((durationMinutes + slotMinutes - 1) / slotMinutes);
+        LocalDate today = LocalDate.now(zone);
+        LocalDate requestDay = LocalDate.ofInstant(fromTime, zone);
+        LocalDate firstDay = requestDay.minusDays(HORIZON_DAYS / 2);
+        if (firstDay.isBefore(today)) {
+            firstDay = today;
+        }
+        LocalDate lastDay = firstDay.plusDays(HORIZON_DAYS - 1);
+        Window window = new Window(firstDay, lastDay, firstDay.atStartOfDay(zone).toInstant(), slotMinutes,
+                slotsNeeded, fromTime, Instant.now());
+
+        Map<Long, boolean[]> gridCache = new HashMap<>();
+        // Results come out in (cost, start) order; each cursor yields its starts in that order too
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator
+                .comparingLong(Candidate::cost)
+                .thenComparingInt(Candidate::startIndex)
+                .thenComparingInt(c -> c.cursor().match().ordinal())
+                .thenComparingLong(c -> c.cursor().field().getFieldId()));
+
+        // Same field, then same type at the same location
+        List<Field> localFields = fieldRepository.findActiveWithTypeByLocationIds(List.of(location.getLocationId()));
+        seed(queue, new Cursor(requested, Match.SAME_FIELD, 0, 0.0,
+                blockedCells(requested, window, gridCache), window, true));
+        for (Field field : localFields) {
+            if (!field.getFieldId().equals(fieldId) && field.getType() != null && requested.getType() != null
+                    && field.getType().getTypeId().equals(requested.getType().getTypeId())) {
+                seed(queue, new Cursor(field, Match.SAME_LOCATION, SAME_LOCATION_PENALTY, 0.0,
+                        blockedCells(field, window, gridCache), window, false));
+            }
+        }
+
+        List<SlotSuggestionResponse> results = new ArrayList<>();
+        boolean nearbyLoaded = false;
+        int expansions = 0;
+        while (results.size() < limit && expansions < MAX_EXPANSIONS) {
+            // Nearby candidates cost at least NEARBY_BASE_PENALTY, so they are only needed once nothing local beats it
+            if (!nearbyLoaded && (queue.isEmpty() || queue.peek().cost() > NEARBY_BASE_PENALTY)) {
+                nearbyLoaded = true;
+                for (Cursor cursor : nearbyCursors(requested, window, gridCache)) {
+                    seed(queue, cursor);
+                }
+                continue;
+            }
+            Candidate best = queue.poll();
+            if (best == null) {
+                break;
+            }
+            Cursor cursor = best.cursor();
+            Instant start = window.start().plus(Duration.ofMinutes((long) best.startIndex() * slotMinutes));
+            results.add(new SlotSuggestionResponse(
+                    cursor.field().getFieldId(),
+                    cursor.field().getName(),
+                    cursor.field().getLocation().getLocationId(),
+                    cursor.field().getLocation().getName(),
+                    start,
+                    start.plus(Duration.ofMinutes(durationMinutes)),
+                    cursor.match().name(),
+                    cursor.distanceKm()));
+            expansions += cursor.steps();
+            seed(queue, cursor);
+        }
+        return results;
+    }
+
+    private List<Cursor> nearbyCursors(Field requested, Window window, Map<Long, boolean[]> gridCache) {
+        Location origin = requested.getLocation();
+        if (origin.getLatitude() == null || origin.getLongitude() == null) {
+            return List.of();
+        }
+        List<Long> nearbyIds = locationSpatialIndex.withinRadius(origin.getLatitude(), origin.getLongitude(),
+                NEARBY_RADIUS_KM).stream().filter(id -> !id.equals(origin.getLocationId())).toList();
+        if (nearbyIds.isEmpty()) {
+            return List.of();
+        }
+        List<Cursor> cursors = new ArrayList<>();
+        for (Field field : fieldRepository.findActiveWithTypeByLocationIds(nearbyIds)) {
+            if (!sameKind(requested.getType(), field.getType())) {
+                continue;
+            }
+            Location location = field.getLocation();
+            double km = LocationSpatialIndex.distanceKm(origin.getLatitude().doubleValue(), origin.getLongitude().doubleValue(),
+                    location.getLatitude().doubleValue(), location.getLongitude().doubleValue());
+            long penalty = NEARBY_BASE_PENALTY + Math.round(km * NEARBY_PENALTY_PER_KM);
+            cursors.add(new Cursor(field, Match.NEARBY, penalty, Math.round(km * 10) / 10.0,
+                    blockedCells(field, window, gridCache), window, false));
+        }
+        return cursors;
+    }
+
+    private void seed(PriorityQueue<Candidate> queue, Cursor cursor) {
+        int startIndex = cursor.nextFree();
+        if (startIndex >= 0) {
+            queue.add(new Candidate(cursor.cost(startIndex), startIndex, cursor));
+        }
+    }
+
+    /**
+     * Flattens the field's availability over the window into one cell per slot,
+     * true where the field cannot be booked.
+     */
+    private boolean[] blockedCells(Field field, Window window, Map<Long, boolean[]> gridCache) {
+        boolean[] known = gridCache.get(field.getFieldId());
+        if (known != null) {
+            return known;
+        }
+        // One cached grid covers every field of the location, so all of them are flattened at once
+        LocationAvailabilityResponse availability = locationAvailabilityService.getAvailability(
+                field.getLocation().getLocationId(), window.firstDay(), window.lastDay(), window.slotMinutes());
+        int slotsPerDay = 24 * 60 / window.slotMinutes();
+        int totalSlots = availability.getDays().size() * slotsPerDay;
+        for (int day = 0; day < availability.getDays().size(); day++) {
+            DayAvailability dayAvailability = availability.getDays().get(day);
+            for (FieldAvailability row : dayAvailability.getFields()) {
+                boolean[] cells = gridCache.computeIfAbsent(row.getFieldId(), id -> new boolean[totalSlots]);
+                for (int i = 0; i < slotsPerDay; i++) {
+                    cells[day * slotsPerDay + i] = row.getSlots().get(i) != SlotStatus.FREE;
+                }
+            }
+        }
+        return gridCache.getOrDefault(field.getFieldId(), new boolean[0]);
+    }
+
+    // Largest slot size that keeps both the requested start and duration on the grid
+    private int slotMinutesFor(Instant fromTime, long durationMinutes, ZoneId zone) {
+        int minuteOfDay = fromTime.atZone(zone).toLocalTime().toSecondOfDay() / 60;
+        for (int size : new int[]{60, 30, 15}) {
+            if (durationMinutes % size == 0 && minuteOfDay % size == 0) {
+                return size;
+            }
+        }
+        return 15;
+    }
+
+    // Field types belong to one location, so "same type" elsewhere means same team size, or same name
+    private boolean sameKind(FieldType a, FieldType b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a.getTeamCapacity() != null && b.getTeamCapacity() != null) {
+            return a.getTeamCapacity().equals(b.getTeamCapacity());
+        }
+        return a.getName() != null && a.getName().equalsIgnoreCase(b.getName());
+    }
+
+    private enum Match {
+        SAME_FIELD, SAME_LOCATION, NEARBY
+    }
+
+    private record Window(LocalDate firstDay, LocalDate lastDay, Instant start, int slotMinutes,
+                          int slotsNeeded, Instant requestedStart, Instant now) {
+    }
+
+    private record Candidate(long cost, int startIndex, Cursor cursor) {
+    }
+
+    /**
+     * Walks one field's slots outward from the requested start in (cost, start) order:
+     * one pointer moves back from the slot holding the requested start, one forward from
+     * the slot after it, and the cheaper of the two goes first, the earlier on a tie. When
+     * the requested start is off the grid the two sides are not symmetric, so a fixed
+     * 0, +1, -1, ... walk would not do. Prefix sums make each window check O(1).
+     */
+    private static final class Cursor {
+        private final Field field;
+        private final Match match;
+        private final long penalty;
+        private final Double distanceKm;
+        private final Window window;
+        private final boolean skipRequested;
+        private final int[] blockedPrefix;
+        private final int origin;
+        private final long originOffsetMinutes;
+        private final int firstAllowed;
+        private final int lastAllowed;
+        private int backward;
+        private int forward;
+        private int steps;
+
+        Cursor(Field field, Match match, long penalty, Double distanceKm, boolean[] blocked, Window window,
+               boolean skipRequested) {
+            this.field = field;
+            this.match = match;
+            this.penalty = penalty;
+            this.distanceKm = distanceKm;
+            this.window = window;
+            this.skipRequested = skipRequested;
+            this.blockedPrefix = new int[blocked.length + 1];
+            for (int i = 0; i < blocked.length; i++) {
+                blockedPrefix[i + 1] = blockedPrefix[i] + (blocked[i] ? 1 : 0);
+            }
+            long minutesFromStart = Duration.between(window.start(), window.requestedStart()).toMinutes();
+            this.origin = (int) Math.floorDiv(minutesFromStart, window.slotMinutes());
+            this.originOffsetMinutes = minutesFromStart - (long) origin * window.slotMinutes();
+            long minutesToNow = Duration.between(window.start(), window.now()).toMinutes();
+            this.firstAllowed = (int) Math.max(0, Math.floorDiv(minutesToNow + window.slotMinutes() - 1, window.slotMinutes()));
+            this.lastAllowed = blocked.length - window.slotsNeeded();
+            this.backward = origin;
+            this.forward = origin + 1;
+        }
+
+        /**
+         * Next free start index in outward order, or -1 when the window is exhausted.
+         */
+        int nextFree() {
+            steps = 0;
+            while (backward >= firstAllowed || forward <= lastAllowed) {
+                int index;
+                if (backward >= firstAllowed && (forward > lastAllowed || cost(backward) <= cost(forward))) {
+                    index = backward--;
+                } else {
+                    index = forward++;
+                }
+                steps++;
+                if (index < firstAllowed || index > lastAllowed) {
+                    continue;
+                }
+                if (skipRequested && index == origin && originOffsetMinutes == 0) {
+                    continue;
+                }
+                if (blockedPrefix[index + window.slotsNeeded()] - blockedPrefix[index] == 0) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        long cost(int startIndex) {
+            long shift = Math.abs((long) (startIndex - origin) * window.slotMinutes() - originOffsetMinutes);
+            return penalty + shift;
+        }
+
+        Field field() {
+            return field;
+        }
+
+        Match match() {
+            return match;
+        }
+
+        Double distanceKm() {
+            return Objects.equals(distanceKm, 0.0) ? null : distanceKm;
+        }
+
+        int steps() {
+            return steps;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package fpt.aptech.management_field.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
+import fpt.aptech.management_field.models.User;
+import fpt.aptech.management_field.models.UserSportProfile;
+import fpt.aptech.management_field.payload.dtos.SportProfileDto;
+import fpt.aptech.management_field.repositories.UserRepository;
+import fpt.aptech.management_field.repositories.UserSportProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed access to {@link User#getSportProfiles()}, the sport profiles JSON column.
+ * <p>
+ * Parsed profiles are cached per user together with the JSON they came from, so the
+ * JSON itself is the version: a user whose column has not changed is never parsed
+ * again, and a changed column is simply a miss. The cache holds the most recently
+ * used {@value #MAX_CACHED_USERS} users. Every profile write is also mirrored into
+ * the user_sport_profiles rows for filtering by sport, skill and tag in SQL.
+ */
+@Service
+public class SportProfileService {
+    private static final Logger logger = LoggerFactory.getLogger(SportProfileService.class);
+
+    private static final int MAX_CACHED_USERS = 20000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSportProfileRepository userSportProfileRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    // userId -> profiles parsed from json, least recently used first
+    private final LinkedHashMap<Long, Entry> cache = new LinkedHashMap<>(1024, 0.75f, true);
+
+    public SportProfileService(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.hitCounter = meterRegistry.counter("sport.profile.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("sport.profile.cache.requests", "result", "miss");
+    }
+
+    /**
+     * Sport code -> profile of the user, empty when the user has none or the JSON is
+     * unreadable. Shared between callers and must not be modified; use
+     * {@link #copyProfiles} to edit.
+     */
+    public Map<String, SportProfileDto> getProfiles(User user) {
+        return getProfiles(user.getId(), user.getSportProfiles());
+    }
+
+    /**
+     * As {@link #getProfiles(User)}, for a user id and sport profiles JSON read without the entity.
+     */
+    public Map<String, SportProfileDto> getProfiles(Long userId, String sportProfilesJson) {
+        if (sportProfilesJson == null || sportProfilesJson.isEmpty()) {
+            return Map.of();
+        }
+        synchronized (cache) {
+            Entry entry = userId != null ? cache.get(userId) : null;
+            if (entry != null && (entry.json() == sportProfilesJson || entry.json().equals(sportProfilesJson))) {
+                hitCounter.increment();
+                return entry.profiles();
+            }
+        }
+        missCounter.increment();
+        Map<String, SportProfileDto> profiles = parse(userId, sportProfilesJson);
+        if (userId != null) {
+            synchronized (cache) {
+                cache.put(userId, new Entry(sportProfilesJson, profiles));
+                if (cache.size() > MAX_CACHED_USERS) {
+                    var iterator = cache.values().iterator();
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Profile of the user for the sport, or null.
+     */
+    public SportProfileDto getProfile(User user, String sportType) {
+        return sportType != null ? getProfiles(user).get(sportType) : null;
+    }
+
+    /**
+     * Modifiable deep copy of the user's profiles, to change and pass to {@link #setProfiles}.
+     */
+    public Map<String, SportProfileDto> copyProfiles(User user) {
+        Map<String, SportProfileDto> copy = new HashMap<>();
+        getProfiles(user).forEach((sport, profile) -> copy.put(sport, new SportProfileDto(profile.getSport(),
+                profile.getSkill(), profile.getTags() != null ? new ArrayList<>(profile.getTags()) : null)));
+        return copy;
+    }
+
+    /**
+     * Writes the profiles into the user's JSON column. The caller saves the user and
+     * publishes a {@link SportProfileChangedEvent}, which updates the profile rows.
+     */
+    public void setProfiles(User user, Map<String, SportProfileDto> profiles) throws JsonProcessingException {
+        user.setSportProfiles(objectMapper.writeValueAsString(profiles));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSportProfileChanged(SportProfileChangedEvent event) {
+        userRepository.findById(event.getUserId())
+                .ifPresent(user -> replaceRows(user.getId(), getProfiles(user)));
+    }
+
+    /**
+     * Fills the profile rows from the JSON column the first time the table exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (userSportProfileRepository.count() > 0) {
+            return;
+        }
+        int users = 0;
+        for (Object[] row : userRepository.findSportProfileRows()) {
+            Long userId = (Long) row[0];
+            replaceRows(userId, parse(userId, (String) row[1]));
+            users++;
+        }
+        logger.info("Backfilled sport profile rows of {} users", users);
+    }
+
+    private void replaceRows(Long userId, Map<String, SportProfileDto> profiles) {
+        userSportProfileRepository.deleteByUserId(userId);
+        // Make sure the deletes reach the database before the inserts hit the (user_id, sport) constraint
+        userSportProfileRepository.flush();
+        List<UserSportProfile> rows = new ArrayList<>();
+        profiles.forEach((sport, profile) -> {
+            List<String> tags = new ArrayList<>();
+            if (profile.getTags() != null) {
+                profile.getTags().stream().filter(tag -> tag != null).distinct().forEach(tags::add);
+            }
+            rows.add(new UserSportProfile(null, userId, sport, profile.getSkill(), tags));
+        });
+        userSportProfileRepository.saveAll(rows);
+    }
+
+    private Map<String, SportProfileDto> parse(Long userId, String sportProfilesJson) {
+        if (sportProfilesJson == null || sportProfilesJson.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Map<String, SportProfileDto> profiles = objectMapper.readValue(sportProfilesJson,
+                    new TypeReference<Map<String, SportProfileDto>>() {});
+            if (profiles == null) {
+                return Map.of();
+            }
+            profiles.values().removeIf(profile -> profile == null);
+            return Collections.unmodifiableMap(profiles);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable sport profiles of user {}: {}", userId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private record Entry(String json, Map<String, SportProfileDto> profiles) {
+    }
+}
@@ -0,0 +1,196 @@
+package fpt.aptech.management_field.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Local, deterministic tag-overlap ranking, used when the AI service cannot answer.
+ * <p>
+ * Tags are interned once into small integer ids, ignoring case, and a tag list becomes
+ * a {@link TagSet}: a {@code long[]} bitset over those ids. Tag sets of candidate lists
+ * are cached by content, so scoring a candidate is a map lookup plus one {@code AND}
+ * and {@link Long#bitCount} per 64 tags. Equal inputs always give equal scores, and
+ * equal scores keep the input order.
+ */
+@Component
+public class TagRankingEngine {
+
+    // Bitsets of distinct tag lists kept; the cache is simply dropped when it fills up
+    private static final int MAX_CACHED_TAG_SETS = 10000;
+    // Scores are ranked at this resolution
+    private static final double SCORE_SCALE = 1_000_000;
+
+    private final ConcurrentHashMap<String, Integer> idsByTag = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> idsByNormalizedTag = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final ConcurrentHashMap<List<String>, TagSet> tagSets = new ConcurrentHashMap<>();
+
+    /**
+     * How an overlap ratio (shared tags over required tags) maps onto a score.
+     * Below 0.3 the score is {@code low + ratio * lowSlope}, from 0.3 it is
+     * {@code mid + (ratio - 0.3) * 0.75} and from 0.7 {@code high + (ratio - 0.7) * 0.5}.
+     * The result is scaled by 0.95 to 1.05 with the Jaccard similarity of the two sets,
+     * so candidates with the same overlap are told apart, and capped.
+     */
+    public record ScoreCurve(double noRequirements, double noUserTags, double high, double mid,
+                             double low, double lowSlope, double cap) {
+        public static final ScoreCurve OPEN_MATCH = new ScoreCurve(0.6, 0.3, 0.8, 0.5, 0.2, 1.0, 0.95);
+        public static final ScoreCurve DRAFT_MATCH = new ScoreCurve(0.65, 0.35, 0.75, 0.45, 0.25, 0.67, 0.9);
+    }
+
+    /**
+     * Interned tags as a bitset. Immutable.
+     */
+    public static final class TagSet {
+        public static final TagSet EMPTY = new TagSet(new long[0], 0);
+
+        private final long[] words;
+        private final int size;
+
+        private TagSet(long[] words, int size) {
+            this.words = words;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int intersectionSize(TagSet other) {
+            int common = 0;
+            int length = Math.min(words.length, other.words.length);
+            for (int i = 0; i < length; i++) {
+                common += Long.bitCount(words[i] & other.words[i]);
+            }
+            return common;
+        }
+
+        /**
+         * |A ∩ B| / |A ∪ B|, 0 when both are empty.
+         */
+        public double jaccard(TagSet other) {
+            int common = intersectionSize(other);
+            int union = size + other.size - common;
+            return union == 0 ? 0.0 : (double) common / union;
+        }
+    }
+
+    /**
+     * Id of the tag, the same for every spelling that differs only in case or surrounding blanks.
+     */
+    public int intern(String tag) {
+        Integer id = idsByTag.get(tag);
+        if (id != null) {
+            return id;
+        }
+        int normalizedId = idsByNormalizedTag.computeIfAbsent(tag.trim().toLowerCase(Locale.ROOT),
+                key -> nextId.getAndIncrement());
+        idsByTag.putIfAbsent(tag, normalizedId);
+        return normalizedId;
+    }
+
+    /**
+     * Bitset of the tags, cached by list content. Null tags are ignored.
+     */
+    public TagSet tagSet(List<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return TagSet.EMPTY;
+        }
+        TagSet cached = tagSets.get(tags);
+        if (cached != null) {
+            return cached;
+        }
+
+        long[] words = new long[0];
+        boolean hasNull = false;
+        for (String tag : tags) {
+            if (tag == null) {
+                hasNull = true;
+                continue;
+            }
+            int id = intern(tag);
+            int word = id >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, word + 1);
+            }
+            words[word] |= 1L << id;
+        }
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        TagSet created = new TagSet(words, size);
+
+        // List.copyOf rejects nulls; such lists are rare enough to rebuild every time
+        if (!hasNull) {
+            if (tagSets.size() >= MAX_CACHED_TAG_SETS) {
+                tagSets.clear();
+            }
+            tagSets.put(List.copyOf(tags), created);
+        }
+        return created;
+    }
+
+    /**
+     * Score in [0, cap] of a candidate requiring {@code required} for a user with {@code user}.
+     */
+    public double score(TagSet user, TagSet required, ScoreCurve curve) {
+        if (required.isEmpty()) {
+            return curve.noRequirements();
+        }
+        if (user.isEmpty()) {
+            return curve.noUserTags();
+        }
+        int common = user.intersectionSize(required);
+        double overlap = (double) common / required.size();
+        double jaccard = (double) common / (user.size() + required.size() - common);
+
+        double base;
+        if (overlap >= 0.7) {
+            base = curve.high() + (overlap - 0.7) * 0.5;
+        } else if (overlap >= 0.3) {
+            base = curve.mid() + (overlap - 0.3) * 0.75;
+        } else {
+            base = curve.low() + overlap * curve.lowSlope();
+        }
+        return Math.min(curve.cap(), base * (0.95 + 0.1 * jaccard));
+    }
+
+    /**
+     * The candidates ordered by score, highest first and stable on ties. Each score is
+     * handed to {@code scoreSink} before ranking.
+     */
+    public <T> List<T> rank(List<String> userTags, List<T> candidates, Function<T, List<String>> requiredTags,
+                            ScoreCurve curve, ObjDoubleConsumer<T> scoreSink) {
+        TagSet user = tagSet(userTags);
+        int count = candidates.size();
+        // (inverted score << 32 | index), so one primitive sort gives score order with index as tie-break
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            T candidate = candidates.get(i);
+            double score = score(user, tagSet(requiredTags.apply(candidate)), curve);
+            scoreSink.accept(candidate, score);
+            long scaled = Math.round(Math.max(0.0, Math.min(1.0, score)) * SCORE_SCALE);
+            keys[i] = ((long) SCORE_SCALE - scaled) << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        List<T> ranked = new ArrayList<>(count);
+        for (long key : keys) {
+            ranked.add(candidates.get((int) key));
+        }
+        return ranked;
+    }
+}
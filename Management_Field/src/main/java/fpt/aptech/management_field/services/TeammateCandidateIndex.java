@@ -0,0 +1,343 @@
+package fpt.aptech.management_field.services;
+
+import fpt.aptech.management_field.events.SportProfileChangedEvent;
+import fpt.aptech.management_field.models.User;
+import fpt.aptech.management_field.payload.dtos.SportProfileDto;
+import fpt.aptech.management_field.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * First stage of teammate recommendation: picks at most
+ * {@code recommendation.candidates.max} discoverable users worth scoring, so the
+ * scoring payload stays the same size however many users there are.
+ * <p>
+ * Users are bucketed per sport by skill band (1-2, 3, 4-5), preferred area (district
+ * and "khu vực" tags, and the district in the address) and time of day they play
+ * (the "chơi sáng/chiều/tối" tags). A lookup walks the buckets from the closest band
+ * outwards, taking users who share both an area and a time of day first, then an area,
+ * then a time of day, then anyone in the band. The index is updated from sport profile
+ * changes and rebuilt periodically to pick up other writes.
+ */
+@Service
+public class TeammateCandidateIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TeammateCandidateIndex.class);
+
+    private static final int DEFAULT_BAND = 1;
+    private static final Pattern DISTRICT = Pattern.compile("\\b(?:quan|district)\\s+(\\d+)\\b");
+    private static final Map<String, String> TIME_TAGS = Map.of(
+            "choi sang", "morning",
+            "choi chieu", "afternoon",
+            "choi toi", "evening");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SportProfileService sportProfileService;
+
+    private final int maxCandidates;
+
+    // userId -> sport -> traits, and bucket key -> users in insertion order
+    private Map<Long, Map<String, Traits>> traitsByUser = new HashMap<>();
+    private Map<String, LinkedHashSet<Long>> buckets = new HashMap<>();
+    // Latest traits (null when no longer discoverable) of users changed while a rebuild reads
+    // the table, applied to its maps before the swap; null when no rebuild runs
+    private Map<Long, Map<String, Traits>> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public TeammateCandidateIndex(MeterRegistry meterRegistry,
+                                  @Value("${recommendation.candidates.max:200}") int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+        meterRegistry.gauge("recommendation.candidates.indexed", this, TeammateCandidateIndex::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRate = 600000, initialDelay = 600000) // 10 minutes
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashMap<>();
+            }
+            Map<Long, Map<String, Traits>> traits = new HashMap<>();
+            Map<String, LinkedHashSet<Long>> index = new HashMap<>();
+            try {
+                for (Object[] row : userRepository.findTeammateIndexRows()) {
+                    Long userId = (Long) row[0];
+                    Map<String, Traits> userTraits = parse(userId, (String) row[1], (String) row[2]);
+                    traits.put(userId, userTraits);
+                    addPostings(index, userId, userTraits);
+                }
+                synchronized (this) {
+                    changedDuringRebuild.forEach((userId, userTraits) -> replace(traits, index, userId, userTraits));
+                    traitsByUser = traits;
+                    buckets = index;
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+            logger.info("Indexed {} discoverable users for teammate recommendations", traits.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSportProfileChanged(SportProfileChangedEvent event) {
+        Long userId = event.getUserId();
+        List<Object[]> rows = userRepository.findTeammateIndexRowsByUserId(userId);
+        Map<String, Traits> userTraits = rows.isEmpty() ? null
+                : parse(userId, (String) rows.get(0)[1], (String) rows.get(0)[2]);
+        synchronized (this) {
+            replace(traitsByUser, buckets, userId, userTraits);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(userId, userTraits);
+            }
+        }
+    }
+
+    private static void replace(Map<Long, Map<String, Traits>> traits, Map<String, LinkedHashSet<Long>> index,
+                                Long userId, Map<String, Traits> userTraits) {
+        Map<String, Traits> previous = traits.remove(userId);
+        if (previous != null) {
+            for (String key : postingKeys(previous)) {
+                Set<Long> bucket = index.get(key);
+                if (bucket != null && bucket.remove(userId) && bucket.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+        // Users that stopped being discoverable simply drop out
+        if (userTraits != null) {
+            traits.put(userId, userTraits);
+            addPostings(index, userId, userTraits);
+        }
+    }
+
+    /**
+     * Ids of the users most worth scoring as teammates of the user, best first. A null
+     * sport looks through every indexed sport.
+     */
+    public List<Long> candidateIds(User user, String sportType) {
+        Map<String, Traits> own;
+        synchronized (this) {
+            own = traitsByUser.get(user.getId());
+        }
+        if (own == null) {
+            own = parse(user.getId(), user.getSportProfiles(), user.getAddress());
+        }
+
+        LinkedHashSet<Long> result = new LinkedHashSet<>();
+        synchronized (this) {
+            Collection<String> sports = sportType != null ? List.of(sportType) : indexedSports();
+            for (String sport : sports) {
+                collect(result, user.getId(), sport, own.getOrDefault(sport, Traits.NONE));
+                if (result.size() >= maxCandidates) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * The candidate users themselves, in {@link #candidateIds} order.
+     */
+    public List<User> candidates(User user, String sportType) {
+        List<Long> ids = candidateIds(user, sportType);
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User candidate = users.get(id);
+            if (candidate != null) {
+                result.add(candidate);
+            }
+        }
+        logger.debug("Selected {} teammate candidates for user {} in {}", result.size(), user.getId(), sportType);
+        return result;
+    }
+
+    private void collect(LinkedHashSet<Long> result, Long userId, String sport, Traits own) {
+        for (int band : bandOrder(own.band())) {
+            String prefix = sport + "|" + band;
+            if (!own.times().isEmpty()) {
+                for (String area : own.areas()) {
+                    for (Long candidate : bucket(prefix + "|a|" + area)) {
+                        Traits traits = traitsByUser.get(candidate).get(sport);
+                        if (!disjoint(traits.times(), own.times()) && add(result, userId, candidate)) {
+                            return;
+                        }
+                    }
+                }
+            }
+            for (String area : own.areas()) {
+                if (addAll(result, userId, bucket(prefix + "|a|" + area))) {
+                    return;
+                }
+            }
+            for (String time : own.times()) {
+                if (addAll(result, userId, bucket(prefix + "|t|" + time))) {
+                    return;
+                }
+            }
+            if (addAll(result, userId, bucket(prefix))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the candidate unless it is the user; true once the result is full.
+     */
+    private boolean add(LinkedHashSet<Long> result, Long userId, Long candidate) {
+        if (!candidate.equals(userId)) {
+            result.add(candidate);
+        }
+        return result.size() >= maxCandidates;
+    }
+
+    private boolean addAll(LinkedHashSet<Long> result, Long userId, Set<Long> candidates) {
+        for (Long candidate : candidates) {
+            if (add(result, userId, candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Long> bucket(String key) {
+        Set<Long> bucket = buckets.get(key);
+        return bucket != null ? bucket : Set.of();
+    }
+
+    private Set<String> indexedSports() {
+        Set<String> sports = new TreeSet<>();
+        for (Map<String, Traits> userTraits : traitsByUser.values()) {
+            sports.addAll(userTraits.keySet());
+        }
+        return sports;
+    }
+
+    private Map<String, Traits> parse(Long userId, String sportProfilesJson, String address) {
+        Map<String, Traits> result = new HashMap<>();
+        Map<String, SportProfileDto> profiles = sportProfileService.getProfiles(userId, sportProfilesJson);
+        if (profiles.isEmpty()) {
+            return result;
+        }
+
+        String addressDistrict = null;
+        if (address != null) {
+            Matcher matcher = DISTRICT.matcher(SearchIndexService.fold(address));
+            if (matcher.find()) {
+                addressDistrict = "quan " + matcher.group(1);
+            }
+        }
+        for (Map.Entry<String, SportProfileDto> entry : profiles.entrySet()) {
+            SportProfileDto profile = entry.getValue();
+            if (profile == null) {
+                continue;
+            }
+            Set<String> areas = new LinkedHashSet<>();
+            Set<String> times = new LinkedHashSet<>();
+            if (profile.getTags() != null) {
+                for (String tag : profile.getTags()) {
+                    if (tag == null) {
+                        continue;
+                    }
+                    String folded = SearchIndexService.fold(tag);
+                    if (folded.startsWith("quan ") || folded.startsWith("khu vuc ")) {
+                        areas.add(folded);
+                    } else if (TIME_TAGS.containsKey(folded)) {
+                        times.add(TIME_TAGS.get(folded));
+                    }
+                }
+            }
+            if (addressDistrict != null) {
+                areas.add(addressDistrict);
+            }
+            result.put(entry.getKey(), new Traits(band(profile.getSkill()), areas, times));
+        }
+        return result;
+    }
+
+    private static void addPostings(Map<String, LinkedHashSet<Long>> index, Long userId, Map<String, Traits> userTraits) {
+        for (String key : postingKeys(userTraits)) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(userId);
+        }
+    }
+
+    private static List<String> postingKeys(Map<String, Traits> userTraits) {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Traits> entry : userTraits.entrySet()) {
+            String prefix = entry.getKey() + "|" + entry.getValue().band();
+            keys.add(prefix);
+            for (String area : entry.getValue().areas()) {
+                keys.add(prefix + "|a|" + area);
+            }
+            for (String time : entry.getValue().times()) {
+                keys.add(prefix + "|t|" + time);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Skill 1-2, 3 and 4-5 as bands 0, 1 and 2; no skill counts as 3.
+     */
+    private static int band(Integer skill) {
+        if (skill == null) {
+            return DEFAULT_BAND;
+        }
+        return skill <= 2 ? 0 : skill == 3 ? 1 : 2;
+    }
+
+    private static int[] bandOrder(int band) {
+        return switch (band) {
+            case 0 -> new int[]{0, 1, 2};
+            case 2 -> new int[]{2, 1, 0};
+            default -> new int[]{1, 0, 2};
+        };
+    }
+
+    private static boolean disjoint(Set<String> a, Set<String> b) {
+        for (String value : a) {
+            if (b.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized int size() {
+        return traitsByUser.size();
+    }
+
+    /**
+     * What the index knows of one user for one sport.
+     */
+    private record Traits(int band, Set<String> areas, Set<String> times) {
+        static final Traits NONE = new Traits(DEFAULT_BAND, Set.of(), Set.of());
+    }
+}
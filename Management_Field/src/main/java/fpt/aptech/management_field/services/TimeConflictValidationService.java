@@ -2,6 +2,7 @@ package fpt.aptech.management_field.services;
 
 import fpt.aptech.management_field.models.*;
 import fpt.aptech.management_field.repositories.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 @Service
 public class TimeConflictValidationService {
@@ -35,68 +37,18 @@ public class TimeConflictValidationService {
     @Autowired
     private BookingUserRepository bookingUserRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final List<DraftMatchStatus> PARTICIPANT_DRAFT_STATUSES = List.of(
+            DraftMatchStatus.RECRUITING, DraftMatchStatus.FULL, DraftMatchStatus.AWAITING_CONFIRMATION);
+
     /**
      * Check time conflicts for a user with given time range
      */
+    @Transactional(readOnly = true)
     public ValidationResult checkTimeConflictsForUser(Long userId, LocalDateTime startTime, LocalDateTime endTime, String location) {
-        List<ConflictInfo> conflicts = new ArrayList<>();
-        
-        // Check draft match conflicts
-        List<DraftMatch> userDraftMatches = getUserActiveDraftMatches(userId);
-        for (DraftMatch match : userDraftMatches) {
-            if (hasTimeOverlap(startTime, endTime, match.getEstimatedStartTime(), match.getEstimatedEndTime())) {
-                conflicts.add(new ConflictInfo(
-                    "DRAFT_MATCH", 
-                    match.getId(), 
-                    match.getSportType(),
-                    match.getLocationDescription(),
-                    match.getEstimatedStartTime(),
-                    match.getEstimatedEndTime(),
-                    calculateConflictSeverity(startTime, endTime, match.getEstimatedStartTime(), match.getEstimatedEndTime())
-                ));
-            }
-        }
-        
-        // Check open match conflicts
-        List<OpenMatch> userOpenMatches = getUserActiveOpenMatches(userId);
-        for (OpenMatch match : userOpenMatches) {
-            Booking booking = match.getBooking();
-            LocalDateTime matchStart = LocalDateTime.ofInstant(booking.getFromTime(), ZoneId.systemDefault());
-            LocalDateTime matchEnd = LocalDateTime.ofInstant(booking.getToTime(), ZoneId.systemDefault());
-            
-            if (hasTimeOverlap(startTime, endTime, matchStart, matchEnd)) {
-                conflicts.add(new ConflictInfo(
-                    "OPEN_MATCH", 
-                    match.getId(), 
-                    match.getSportType(),
-                    booking.getField().getLocation().getName(),
-                    matchStart,
-                    matchEnd,
-                    calculateConflictSeverity(startTime, endTime, matchStart, matchEnd)
-                ));
-            }
-        }
-        
-        // Check personal booking conflicts
-        List<Booking> userBookings = getUserActiveBookings(userId, startTime, endTime);
-        for (Booking booking : userBookings) {
-            LocalDateTime bookingStart = LocalDateTime.ofInstant(booking.getFromTime(), ZoneId.systemDefault());
-            LocalDateTime bookingEnd = LocalDateTime.ofInstant(booking.getToTime(), ZoneId.systemDefault());
-            
-            if (hasTimeOverlap(startTime, endTime, bookingStart, bookingEnd)) {
-                conflicts.add(new ConflictInfo(
-                    "PERSONAL_BOOKING", 
-                    booking.getBookingId(), 
-                    "Đặt sân cá nhân",
-                    booking.getField().getLocation().getName(),
-                    bookingStart,
-                    bookingEnd,
-                    calculateConflictSeverity(startTime, endTime, bookingStart, bookingEnd)
-                ));
-            }
-        }
-        
-        return new ValidationResult(!conflicts.isEmpty(), conflicts, generateRecommendations(conflicts, startTime, endTime));
+        return timed("check", () -> collectConflicts(userId, startTime, endTime, null, null));
     }
 
     /**
@@ -142,141 +94,79 @@ public class TimeConflictValidationService {
      */
     private ValidationResult validateTimeConflicts(Long userId, LocalDateTime startTime, 
             LocalDateTime endTime, String matchType, Long excludeMatchId) {
-        
+        return timed("join", () -> collectConflicts(userId, startTime, endTime, matchType, excludeMatchId));
+    }
+
+    /**
+     * Collects everything on the user's schedule that overlaps the window. Each source is
+     * one query restricted to the user and the window, so the cost does not grow with the
+     * user's history.
+     */
+    private ValidationResult collectConflicts(Long userId, LocalDateTime startTime, LocalDateTime endTime,
+            String matchType, Long excludeMatchId) {
         List<ConflictInfo> conflicts = new ArrayList<>();
+        Instant startInstant = startTime.atZone(ZoneId.systemDefault()).toInstant();
+        Instant endInstant = endTime.atZone(ZoneId.systemDefault()).toInstant();
         
-        // Check draft match conflicts
-        List<DraftMatch> userDraftMatches = getUserActiveDraftMatches(userId);
+        // Check draft match conflicts: created and still recruiting, or approved into an active one
+        List<DraftMatch> userDraftMatches = draftMatchRepository.findActiveForUserOverlapping(
+                userId, startTime, endTime, DraftMatchStatus.RECRUITING, PARTICIPANT_DRAFT_STATUSES);
         for (DraftMatch match : userDraftMatches) {
-            if (excludeMatchId != null && matchType.equals("DRAFT_MATCH") && match.getId().equals(excludeMatchId)) {
+            if (excludeMatchId != null && "DRAFT_MATCH".equals(matchType) && match.getId().equals(excludeMatchId)) {
                 continue; // Skip the target match itself
             }
-            
-            if (hasTimeOverlap(startTime, endTime, match.getEstimatedStartTime(), match.getEstimatedEndTime())) {
-                conflicts.add(new ConflictInfo(
-                    "DRAFT_MATCH", 
-                    match.getId(), 
-                    match.getSportType(),
-                    match.getLocationDescription(),
-                    match.getEstimatedStartTime(),
-                    match.getEstimatedEndTime(),
-                    calculateConflictSeverity(startTime, endTime, match.getEstimatedStartTime(), match.getEstimatedEndTime())
-                ));
-            }
+            conflicts.add(new ConflictInfo(
+                "DRAFT_MATCH", 
+                match.getId(), 
+                match.getSportType(),
+                match.getLocationDescription(),
+                match.getEstimatedStartTime(),
+                match.getEstimatedEndTime(),
+                calculateConflictSeverity(startTime, endTime, match.getEstimatedStartTime(), match.getEstimatedEndTime())
+            ));
         }
         
         // Check open match conflicts
-        List<OpenMatch> userOpenMatches = getUserActiveOpenMatches(userId);
+        List<OpenMatch> userOpenMatches = openMatchRepository.findActiveForUserOverlapping(userId, startInstant, endInstant);
         for (OpenMatch match : userOpenMatches) {
-            if (excludeMatchId != null && matchType.equals("OPEN_MATCH") && match.getId().equals(excludeMatchId)) {
+            if (excludeMatchId != null && "OPEN_MATCH".equals(matchType) && match.getId().equals(excludeMatchId)) {
                 continue; // Skip the target match itself
             }
-            
             Booking booking = match.getBooking();
             LocalDateTime matchStart = LocalDateTime.ofInstant(booking.getFromTime(), ZoneId.systemDefault());
             LocalDateTime matchEnd = LocalDateTime.ofInstant(booking.getToTime(), ZoneId.systemDefault());
-            
-            if (hasTimeOverlap(startTime, endTime, matchStart, matchEnd)) {
-                conflicts.add(new ConflictInfo(
-                    "OPEN_MATCH", 
-                    match.getId(), 
-                    match.getSportType(),
-                    booking.getField().getLocation().getName(),
-                    matchStart,
-                    matchEnd,
-                    calculateConflictSeverity(startTime, endTime, matchStart, matchEnd)
-                ));
-            }
+            conflicts.add(new ConflictInfo(
+                "OPEN_MATCH", 
+                match.getId(), 
+                match.getSportType(),
+                booking.getField().getLocation().getName(),
+                matchStart,
+                matchEnd,
+                calculateConflictSeverity(startTime, endTime, matchStart, matchEnd)
+            ));
         }
         
         // Check personal booking conflicts
-        List<Booking> userBookings = getUserActiveBookings(userId, startTime, endTime);
+        List<Booking> userBookings = bookingRepository.findConfirmedForUserOverlapping(userId, startInstant, endInstant);
         for (Booking booking : userBookings) {
             LocalDateTime bookingStart = LocalDateTime.ofInstant(booking.getFromTime(), ZoneId.systemDefault());
             LocalDateTime bookingEnd = LocalDateTime.ofInstant(booking.getToTime(), ZoneId.systemDefault());
-            
-            if (hasTimeOverlap(startTime, endTime, bookingStart, bookingEnd)) {
-                conflicts.add(new ConflictInfo(
-                    "PERSONAL_BOOKING", 
-                    booking.getBookingId(), 
-                    "Đặt sân cá nhân",
-                    booking.getField().getLocation().getName(),
-                    bookingStart,
-                    bookingEnd,
-                    calculateConflictSeverity(startTime, endTime, bookingStart, bookingEnd)
-                ));
-            }
+            conflicts.add(new ConflictInfo(
+                "PERSONAL_BOOKING", 
+                booking.getBookingId(), 
+                "Đặt sân cá nhân",
+                booking.getField().getLocation().getName(),
+                bookingStart,
+                bookingEnd,
+                calculateConflictSeverity(startTime, endTime, bookingStart, bookingEnd)
+            ));
         }
         
         return new ValidationResult(!conflicts.isEmpty(), conflicts, generateRecommendations(conflicts, startTime, endTime));
     }
 
-    /**
-     * Get user's active draft matches
-     */
-    private List<DraftMatch> getUserActiveDraftMatches(Long userId) {
-        // Get draft matches where user is creator or approved participant
-        List<DraftMatch> createdMatches = draftMatchRepository.findByCreatorId(userId)
-                .stream()
-                .filter(match -> match.getStatus() == DraftMatchStatus.RECRUITING)
-                .toList();
-        
-        List<DraftMatch> participatingMatches = draftMatchUserStatusRepository
-                .findByUserIdAndStatus(userId, "APPROVED")
-                .stream()
-                .map(status -> status.getDraftMatch())
-                .filter(match -> match.getStatus() == DraftMatchStatus.RECRUITING || 
-                               match.getStatus() == DraftMatchStatus.FULL ||
-                               match.getStatus() == DraftMatchStatus.AWAITING_CONFIRMATION)
-                .toList();
-        
-        List<DraftMatch> allMatches = new ArrayList<>(createdMatches);
-        allMatches.addAll(participatingMatches);
-        return allMatches;
-    }
-
-    /**
-     * Get user's active open matches
-     */
-    private List<OpenMatch> getUserActiveOpenMatches(Long userId) {
-        List<OpenMatch> createdMatches = openMatchRepository.findByCreatorUserId(userId)
-                .stream()
-                .filter(match -> "OPEN".equals(match.getStatus()))
-                .toList();
-        
-        List<OpenMatch> participatingMatches = openMatchParticipantRepository
-                .findByUserId(userId)
-                .stream()
-                .map(participant -> participant.getOpenMatch())
-                .filter(match -> "OPEN".equals(match.getStatus()) || "FULL".equals(match.getStatus()))
-                .toList();
-        
-        List<OpenMatch> allMatches = new ArrayList<>(createdMatches);
-        allMatches.addAll(participatingMatches);
-        return allMatches;
-    }
-
-    /**
-     * Get user's active bookings in time range
-     */
-    private List<Booking> getUserActiveBookings(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
-        Instant startInstant = startTime.atZone(ZoneId.systemDefault()).toInstant();
-        Instant endInstant = endTime.atZone(ZoneId.systemDefault()).toInstant();
-        
-        return bookingRepository.findByUserId(userId)
-                .stream()
-                .filter(booking -> "confirmed".equals(booking.getStatus()) &&
-                        booking.getFromTime().isBefore(endInstant) &&
-                        booking.getToTime().isAfter(startInstant))
-                .toList();
-    }
-
-    /**
-     * Check if two time ranges overlap
-     */
-    private boolean hasTimeOverlap(LocalDateTime start1, LocalDateTime end1, 
-                                  LocalDateTime start2, LocalDateTime end2) {
-        return start1.isBefore(end2) && end1.isAfter(start2);
+    private ValidationResult timed(String operation, Supplier<ValidationResult> check) {
+        return meterRegistry.timer("time.conflict.validation", "operation", operation).record(check);
     }
 
     /**
@@ -126,11 +126,11 @@ public class UnifiedCompatibilityService {
                 
                 // Only normalize scores to valid range - no fallback logic
                 for (DraftMatchDto match : result) {
+                    // aiScoreUsed is kept as ranked: false when the AI call failed and tag scores were used
                     if (match.getCompatibilityScore() != null) {
                         match.setCompatibilityScore(normalizeScore(match.getCompatibilityScore()));
-                        match.setAiScoreUsed(true);
-                        logger.debug("[AI_SCORE_TRUST] Using AI score {} for draft match {}", 
-                                   match.getCompatibilityScore(), match.getId());
+                        logger.debug("[AI_SCORE_TRUST] Using score {} for draft match {} (AI: {})", 
+                                   match.getCompatibilityScore(), match.getId(), match.getAiScoreUsed());
                     }
                     if (match.getExplicitScore() != null) {
                         match.setExplicitScore(normalizeScore(match.getExplicitScore()));